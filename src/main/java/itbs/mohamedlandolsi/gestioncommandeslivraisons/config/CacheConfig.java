@@ -0,0 +1,45 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * In-process Caffeine caches, sized and expired through spring.cache.* in application.properties.
+ * Their hit, miss and eviction counts are published to Actuator.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    // Products by ID, read through by ProduitService
+    public static final String PRODUITS = "produits";
+
+    /**
+     * Puts and evictions made inside a transaction are deferred until it commits, so a rolled back
+     * write never evicts and an uncommitted value is never put. The cache stays best-effort: a
+     * read-only transaction that loaded the old row can commit, and apply its deferred put, after a
+     * writer's after-commit eviction, leaving a stale entry until it expires. Stock decisions do not
+     * go through it (ProduitService.hasEnoughStock and getProduitsByIds read the database).
+     */
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        String spec = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(spec)) {
+            caffeineCacheManager.setCacheSpecification(spec);
+        }
+        if (!cacheProperties.getCacheNames().isEmpty()) {
+            caffeineCacheManager.setCacheNames(cacheProperties.getCacheNames());
+        }
+        caffeineCacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,83 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions (@Transactional(readOnly = true)) to a replica when
+ * spring.datasource.replica.url is set; everything else, including statements run outside a
+ * transaction, goes to the primary. Without a replica URL, Spring Boot's single DataSource is used.
+ * Hibernate gives the connection back after each transaction (hibernate.connection.handling_mode),
+ * otherwise the session opened for the whole web request would keep the first one it was routed to.
+ */
+@Configuration
+@ConditionalOnProperty("spring.datasource.replica.url")
+public class ReadReplicaConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    /**
+     * Both pools take the spring.datasource.hikari.* settings; the replica's credentials default to
+     * the primary's.
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(PRIMARY);
+
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setJdbcUrl(environment.getRequiredProperty("spring.datasource.replica.url"));
+        replica.setUsername(environment.getProperty("spring.datasource.replica.username", properties.determineUsername()));
+        replica.setPassword(environment.getProperty("spring.datasource.replica.password", properties.determinePassword()));
+        replica.setPoolName(REPLICA);
+
+        return new ReadWriteDataSource(primary, replica);
+    }
+
+    /**
+     * Chooses the pool when the transaction runs its first statement, from its read-only flag
+     */
+    static class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final HikariDataSource primary;
+        private final HikariDataSource replica;
+
+        ReadWriteDataSource(HikariDataSource primary, HikariDataSource replica) {
+            this.primary = primary;
+            this.replica = replica;
+            AbstractRoutingDataSource routing = new AbstractRoutingDataSource() {
+                @Override
+                protected Object determineCurrentLookupKey() {
+                    return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+                }
+            };
+            routing.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+            routing.setDefaultTargetDataSource(primary);
+            routing.afterPropertiesSet();
+            setTargetDataSource(routing);
+        }
+
+        @Override
+        public void close() {
+            replica.close();
+            primary.close();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs, such as the late delivery sweep, run on Spring's scheduler thread.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
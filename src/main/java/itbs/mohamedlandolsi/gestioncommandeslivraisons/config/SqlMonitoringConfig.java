@@ -0,0 +1,39 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.config;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring.SlowQueryLog;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring.SqlStatementCounter;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource so that every statement goes through {@link SqlStatementCounter} and the
+ * {@link SlowQueryLog}. Flyway, Hibernate and JdbcTemplate all share the wrapped DataSource.
+ */
+@Configuration
+public class SqlMonitoringConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSource(Environment environment) {
+        long slowQueryThresholdMs = environment.getProperty("sql.slow-query.threshold-ms", Long.class, 200L);
+        double slowQuerySampleRate = environment.getProperty("sql.slow-query.sample-rate", Double.class, 0.001);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SqlStatementCounter())
+                            .listener(new SlowQueryLog(slowQueryThresholdMs, slowQuerySampleRate))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
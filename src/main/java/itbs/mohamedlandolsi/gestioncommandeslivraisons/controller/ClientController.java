@@ -1,5 +1,7 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ClientDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.ClientService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,14 +25,22 @@ public class ClientController {
 
     // Get all clients
     @GetMapping
-    public ResponseEntity<List<Client>> getAllClients() {
-        List<Client> clients = clientService.getAllClients();
+    public ResponseEntity<List<ClientDTO>> getAllClients() {
+        List<ClientDTO> clients = clientService.getAllClients();
         return ResponseEntity.ok(clients);
     }
 
+    // Get one page of clients (keyset pagination)
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<ClientDTO>> getClientsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(clientService.getClientsPage(cursor, limit));
+    }
+
     // Get client by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Client> getClientById(@PathVariable Long id) {
+    public ResponseEntity<ClientDTO> getClientById(@PathVariable Long id) {
         return clientService.getClientById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -38,24 +48,24 @@ public class ClientController {
 
     // Create a new client
     @PostMapping
-    public ResponseEntity<Client> createClient(@Valid @RequestBody Client client) {
+    public ResponseEntity<ClientDTO> createClient(@Valid @RequestBody Client client) {
         // Ensure we're creating a new client, not updating
         if (client.getId() != null && clientService.existsById(client.getId())) {
             return ResponseEntity.badRequest().build();
         }
         Client savedClient = clientService.saveClient(client);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedClient);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ClientDTO.of(savedClient));
     }
 
     // Update an existing client
     @PutMapping("/{id}")
-    public ResponseEntity<Client> updateClient(@PathVariable Long id, @Valid @RequestBody Client client) {
+    public ResponseEntity<ClientDTO> updateClient(@PathVariable Long id, @Valid @RequestBody Client client) {
         if (!clientService.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
         client.setId(id); // Ensure ID consistency
         Client updatedClient = clientService.saveClient(client);
-        return ResponseEntity.ok(updatedClient);
+        return ResponseEntity.ok(ClientDTO.of(updatedClient));
     }
 
     // Delete a client
@@ -70,28 +80,28 @@ public class ClientController {
 
     // Search clients by name
     @GetMapping("/search")
-    public ResponseEntity<List<Client>> searchClients(@RequestParam String query) {
-        List<Client> clients = clientService.searchClientsByName(query);
+    public ResponseEntity<List<ClientDTO>> searchClients(@RequestParam String query) {
+        List<ClientDTO> clients = clientService.searchClientsByName(query);
         return ResponseEntity.ok(clients);
     }
 
     // Get clients by city
     @GetMapping("/by-city")
-    public ResponseEntity<List<Client>> getClientsByCity(@RequestParam String city) {
-        List<Client> clients = clientService.getClientsByCity(city);
+    public ResponseEntity<List<ClientDTO>> getClientsByCity(@RequestParam String city) {
+        List<ClientDTO> clients = clientService.getClientsByCity(city);
         return ResponseEntity.ok(clients);
     }
 
     // Get clients by postal code
     @GetMapping("/by-postal-code")
-    public ResponseEntity<List<Client>> getClientsByPostalCode(@RequestParam String postalCode) {
-        List<Client> clients = clientService.getClientsByPostalCode(postalCode);
+    public ResponseEntity<List<ClientDTO>> getClientsByPostalCode(@RequestParam String postalCode) {
+        List<ClientDTO> clients = clientService.getClientsByPostalCode(postalCode);
         return ResponseEntity.ok(clients);
     }
 
     // Get client by email
     @GetMapping("/by-email")
-    public ResponseEntity<Client> getClientByEmail(@RequestParam String email) {
+    public ResponseEntity<ClientDTO> getClientByEmail(@RequestParam String email) {
         return clientService.getClientByEmail(email)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -1,13 +1,24 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeBatchResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeStatutBulkRequestDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeStatutBulkResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeSummaryDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.CommandeExportService;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.CommandeExportService.ExportFormat;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.CommandeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
@@ -20,22 +31,32 @@ import java.util.Map;
 public class CommandeController {
 
     private final CommandeService commandeService;
+    private final CommandeExportService commandeExportService;
 
     @Autowired
-    public CommandeController(CommandeService commandeService) {
+    public CommandeController(CommandeService commandeService, CommandeExportService commandeExportService) {
         this.commandeService = commandeService;
+        this.commandeExportService = commandeExportService;
     }
 
     // Get all orders
     @GetMapping
-    public ResponseEntity<List<Commande>> getAllCommandes() {
-        List<Commande> commandes = commandeService.getAllCommandes();
+    public ResponseEntity<List<CommandeDTO>> getAllCommandes() {
+        List<CommandeDTO> commandes = commandeService.getAllCommandes();
         return ResponseEntity.ok(commandes);
     }
 
+    // Get one page of orders, newest first (keyset pagination)
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<CommandeDTO>> getCommandesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(commandeService.getCommandesPage(cursor, limit));
+    }
+
     // Get order by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Commande> getCommandeById(@PathVariable Long id) {
+    public ResponseEntity<CommandeDTO> getCommandeById(@PathVariable Long id) {
         return commandeService.getCommandeById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -50,7 +71,7 @@ public class CommandeController {
         
         try {
             Commande savedCommande = commandeService.saveCommande(commande);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedCommande);
+            return ResponseEntity.status(HttpStatus.CREATED).body(CommandeDTO.of(savedCommande));
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -58,6 +79,13 @@ public class CommandeController {
         }
     }
 
+    // Create many orders at once, reporting the outcome of each one
+    @PostMapping("/batch")
+    public ResponseEntity<CommandeBatchResultDTO> createCommandesBatch(@RequestBody List<Commande> commandes) {
+        CommandeBatchResultDTO result = commandeService.saveCommandesBatch(commandes);
+        return ResponseEntity.ok(result);
+    }
+
     // Update an existing order
     @PutMapping("/{id}")
     public ResponseEntity<?> updateCommande(@PathVariable Long id, @Valid @RequestBody Commande commande) {
@@ -68,7 +96,7 @@ public class CommandeController {
         commande.setId(id);
         try {
             Commande updatedCommande = commandeService.saveCommande(commande);
-            return ResponseEntity.ok(updatedCommande);
+            return ResponseEntity.ok(CommandeDTO.of(updatedCommande));
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -88,48 +116,94 @@ public class CommandeController {
 
     // Update order status
     @PatchMapping("/{id}/statut")
-    public ResponseEntity<Commande> updateCommandeStatut(
+    public ResponseEntity<CommandeDTO> updateCommandeStatut(
             @PathVariable Long id,
             @RequestParam StatutCommande statut) {
         
-        Commande updatedCommande = commandeService.updateCommandeStatus(id, statut);
+        CommandeDTO updatedCommande = commandeService.updateCommandeStatus(id, statut);
         if (updatedCommande == null) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(updatedCommande);
     }
 
+    // Move many orders to the same status at once
+    @PatchMapping("/statut")
+    public ResponseEntity<CommandeStatutBulkResultDTO> updateCommandesStatut(
+            @Valid @RequestBody CommandeStatutBulkRequestDTO request) {
+        
+        return ResponseEntity.ok(commandeService.updateCommandesStatus(request.getIds(), request.getStatut()));
+    }
+
     // Get orders by client ID
     @GetMapping("/by-client/{clientId}")
-    public ResponseEntity<List<Commande>> getCommandesByClient(@PathVariable Long clientId) {
-        List<Commande> commandes = commandeService.getCommandesByClientId(clientId);
+    public ResponseEntity<List<CommandeDTO>> getCommandesByClient(@PathVariable Long clientId) {
+        List<CommandeDTO> commandes = commandeService.getCommandesByClientId(clientId);
         return ResponseEntity.ok(commandes);
     }
 
     // Get orders by status
     @GetMapping("/by-status")
-    public ResponseEntity<List<Commande>> getCommandesByStatus(@RequestParam StatutCommande status) {
-        List<Commande> commandes = commandeService.getCommandesByStatus(status);
+    public ResponseEntity<List<CommandeDTO>> getCommandesByStatus(@RequestParam StatutCommande status) {
+        List<CommandeDTO> commandes = commandeService.getCommandesByStatus(status);
         return ResponseEntity.ok(commandes);
     }
 
     // Get orders between dates
     @GetMapping("/by-date-range")
-    public ResponseEntity<List<Commande>> getCommandesByDateRange(
+    public ResponseEntity<List<CommandeDTO>> getCommandesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
         
-        List<Commande> commandes = commandeService.getCommandesByDateRange(start, end);
+        List<CommandeDTO> commandes = commandeService.getCommandesByDateRange(start, end);
         return ResponseEntity.ok(commandes);
     }
 
+    // Stream the orders of a period as CSV or NDJSON (one order per line)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCommandes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        
+        StreamingResponseBody body = outputStream ->
+                commandeExportService.exportCommandes(start, end, format, outputStream);
+        boolean csv = format == ExportFormat.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"commandes." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
     // Get recent orders
     @GetMapping("/recent")
-    public ResponseEntity<List<Commande>> getRecentCommandes(
+    public ResponseEntity<List<CommandeDTO>> getRecentCommandes(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
         
         LocalDateTime fromDate = since != null ? since : LocalDateTime.now().minusDays(30);
-        List<Commande> commandes = commandeService.getRecentCommandes(fromDate);
+        List<CommandeDTO> commandes = commandeService.getRecentCommandes(fromDate);
         return ResponseEntity.ok(commandes);
     }
+
+    // Get order summaries by client ID
+    @GetMapping("/summary/by-client/{clientId}")
+    public ResponseEntity<List<CommandeSummaryDTO>> getCommandeSummariesByClient(@PathVariable Long clientId) {
+        return ResponseEntity.ok(commandeService.getCommandeSummariesByClientId(clientId));
+    }
+
+    // Get order summaries by status
+    @GetMapping("/summary/by-status")
+    public ResponseEntity<List<CommandeSummaryDTO>> getCommandeSummariesByStatus(@RequestParam StatutCommande status) {
+        return ResponseEntity.ok(commandeService.getCommandeSummariesByStatus(status));
+    }
+
+    // Get recent order summaries
+    @GetMapping("/summary/recent")
+    public ResponseEntity<List<CommandeSummaryDTO>> getRecentCommandeSummaries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        
+        LocalDateTime fromDate = since != null ? since : LocalDateTime.now().minusDays(30);
+        return ResponseEntity.ok(commandeService.getRecentCommandeSummaries(fromDate));
+    }
 }
\ No newline at end of file
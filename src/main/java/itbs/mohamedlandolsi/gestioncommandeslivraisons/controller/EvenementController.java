@@ -0,0 +1,35 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.StatutEventBroadcaster;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/evenements")
+@CrossOrigin
+public class EvenementController {
+
+    private final StatutEventBroadcaster statutEventBroadcaster;
+    private final long timeoutMillis;
+
+    @Autowired
+    public EvenementController(
+            StatutEventBroadcaster statutEventBroadcaster,
+            @Value("${evenements.sse.timeout-ms:1800000}") long timeoutMillis) {
+        this.statutEventBroadcaster = statutEventBroadcaster;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    // Stream order and delivery status changes (Server-Sent Events), optionally filtered
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatutChanges(
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) Long transporteurId,
+            @RequestParam(required = false) String statut) {
+        return statutEventBroadcaster.subscribe(new SseEmitter(timeoutMillis),
+                new StatutEventBroadcaster.Filtre(clientId, transporteurId, statut));
+    }
+}
@@ -1,6 +1,8 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.FournisseurDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.FournisseurService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,34 +25,34 @@ public class FournisseurController {
     }
 
     @GetMapping
-    public List<Fournisseur> getAllFournisseurs() {
+    public List<FournisseurDTO> getAllFournisseurs() {
         return fournisseurService.getAllFournisseurs();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Fournisseur> getFournisseurById(@PathVariable Long id) {
+    public ResponseEntity<FournisseurDTO> getFournisseurById(@PathVariable Long id) {
         return fournisseurService.getFournisseurById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public Fournisseur createFournisseur(@RequestBody Fournisseur fournisseur) {
-        return fournisseurService.saveFournisseur(fournisseur);
+    public FournisseurDTO createFournisseur(@RequestBody Fournisseur fournisseur) {
+        return FournisseurDTO.of(fournisseurService.saveFournisseur(fournisseur));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Fournisseur> updateFournisseur(@PathVariable Long id, @RequestBody Fournisseur fournisseur) {
-        if (!fournisseurService.getFournisseurById(id).isPresent()) {
+    public ResponseEntity<FournisseurDTO> updateFournisseur(@PathVariable Long id, @RequestBody Fournisseur fournisseur) {
+        if (!fournisseurService.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
         fournisseur.setId(id);
-        return ResponseEntity.ok(fournisseurService.saveFournisseur(fournisseur));
+        return ResponseEntity.ok(FournisseurDTO.of(fournisseurService.saveFournisseur(fournisseur)));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFournisseur(@PathVariable Long id) {
-        if (!fournisseurService.getFournisseurById(id).isPresent()) {
+        if (!fournisseurService.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
         fournisseurService.deleteFournisseur(id);
@@ -58,39 +60,46 @@ public class FournisseurController {
     }
 
     @GetMapping("/search")
-    public List<Fournisseur> searchFournisseurs(@RequestParam String nom) {
+    public List<FournisseurDTO> searchFournisseurs(@RequestParam String nom) {
         return fournisseurService.searchFournisseursByNom(nom);
     }
 
     /**
-     * Get order history for a supplier
+     * Get order history for a supplier, one page at a time (newest first), optionally within a date range
      */
     @GetMapping("/{id}/commandes")
-    public List<Commande> getOrderHistory(@PathVariable Long id) {
-        return fournisseurService.getOrderHistoryByFournisseur(id);
+    public CursorPageDTO<CommandeDTO> getOrderHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return fournisseurService.getOrderHistory(id, debut, fin, cursor, limit);
     }
 
     /**
-     * Get order history for a supplier within a date range
+     * Get order history for a supplier within a date range, one page at a time (newest first)
      */
     @GetMapping("/{id}/commandes/period")
-    public List<Commande> getOrderHistoryByDateRange(
+    public CursorPageDTO<CommandeDTO> getOrderHistoryByDateRange(
             @PathVariable Long id,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime debut,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin) {
-        return fournisseurService.getOrderHistoryByDateRange(id, debut, fin);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return fournisseurService.getOrderHistory(id, debut, fin, cursor, limit);
     }
 
     /**
      * Update supplier rating
      */
     @PatchMapping("/{id}/note")
-    public ResponseEntity<Fournisseur> updateRating(
+    public ResponseEntity<FournisseurDTO> updateRating(
             @PathVariable Long id, 
             @RequestParam Double note) {
         try {
             Fournisseur updated = fournisseurService.updateFournisseurRating(id, note);
-            return ResponseEntity.ok(updated);
+            return ResponseEntity.ok(FournisseurDTO.of(updated));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -1,5 +1,7 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LigneCommandeDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.LigneCommandeService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,14 +25,22 @@ public class LigneCommandeController {
 
     // Get all order line items
     @GetMapping
-    public ResponseEntity<List<LigneCommande>> getAllLignesCommandes() {
-        List<LigneCommande> lignesCommandes = ligneCommandeService.getAllLignesCommande();
+    public ResponseEntity<List<LigneCommandeDTO>> getAllLignesCommandes() {
+        List<LigneCommandeDTO> lignesCommandes = ligneCommandeService.getAllLignesCommande();
         return ResponseEntity.ok(lignesCommandes);
     }
 
+    // Get one page of order line items (keyset pagination)
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<LigneCommandeDTO>> getLignesCommandePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ligneCommandeService.getLignesCommandePage(cursor, limit));
+    }
+
     // Get order line item by ID
     @GetMapping("/{id}")
-    public ResponseEntity<LigneCommande> getLigneCommandeById(@PathVariable Long id) {
+    public ResponseEntity<LigneCommandeDTO> getLigneCommandeById(@PathVariable Long id) {
         return ligneCommandeService.getLigneCommandeById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -38,17 +48,17 @@ public class LigneCommandeController {
 
     // Create a new order line item
     @PostMapping
-    public ResponseEntity<LigneCommande> createLigneCommande(@Valid @RequestBody LigneCommande ligneCommande) {
+    public ResponseEntity<LigneCommandeDTO> createLigneCommande(@Valid @RequestBody LigneCommande ligneCommande) {
         if (ligneCommande.getId() != null && ligneCommandeService.existsById(ligneCommande.getId())) {
             return ResponseEntity.badRequest().build();
         }
         LigneCommande savedLigneCommande = ligneCommandeService.saveLigneCommande(ligneCommande);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedLigneCommande);
+        return ResponseEntity.status(HttpStatus.CREATED).body(LigneCommandeDTO.of(savedLigneCommande));
     }
 
     // Update an existing order line item
     @PutMapping("/{id}")
-    public ResponseEntity<LigneCommande> updateLigneCommande(
+    public ResponseEntity<LigneCommandeDTO> updateLigneCommande(
             @PathVariable Long id, 
             @Valid @RequestBody LigneCommande ligneCommande) {
         
@@ -57,7 +67,7 @@ public class LigneCommandeController {
         }
         ligneCommande.setId(id);
         LigneCommande updatedLigneCommande = ligneCommandeService.saveLigneCommande(ligneCommande);
-        return ResponseEntity.ok(updatedLigneCommande);
+        return ResponseEntity.ok(LigneCommandeDTO.of(updatedLigneCommande));
     }
 
     // Delete an order line item
@@ -72,15 +82,15 @@ public class LigneCommandeController {
 
     // Get line items by order ID
     @GetMapping("/by-commande/{commandeId}")
-    public ResponseEntity<List<LigneCommande>> getLignesCommandeByCommande(@PathVariable Long commandeId) {
-        List<LigneCommande> lignesCommandes = ligneCommandeService.getLignesCommandeByCommandeId(commandeId);
+    public ResponseEntity<List<LigneCommandeDTO>> getLignesCommandeByCommande(@PathVariable Long commandeId) {
+        List<LigneCommandeDTO> lignesCommandes = ligneCommandeService.getLignesCommandeByCommandeId(commandeId);
         return ResponseEntity.ok(lignesCommandes);
     }
 
     // Get line items by product ID
     @GetMapping("/by-produit/{produitId}")
-    public ResponseEntity<List<LigneCommande>> getLignesCommandeByProduit(@PathVariable Long produitId) {
-        List<LigneCommande> lignesCommandes = ligneCommandeService.getLignesCommandeByProduitId(produitId);
+    public ResponseEntity<List<LigneCommandeDTO>> getLignesCommandeByProduit(@PathVariable Long produitId) {
+        List<LigneCommandeDTO> lignesCommandes = ligneCommandeService.getLignesCommandeByProduitId(produitId);
         return ResponseEntity.ok(lignesCommandes);
     }
 
@@ -1,5 +1,8 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonAutoAssignResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonRequestDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
@@ -33,14 +36,22 @@ public class LivraisonController {
 
     // Get all deliveries
     @GetMapping
-    public ResponseEntity<List<Livraison>> getAllLivraisons() {
-        List<Livraison> livraisons = livraisonService.getAllLivraisons();
+    public ResponseEntity<List<LivraisonDTO>> getAllLivraisons() {
+        List<LivraisonDTO> livraisons = livraisonService.getAllLivraisons();
         return ResponseEntity.ok(livraisons);
     }
 
+    // Get one page of deliveries (keyset pagination)
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<LivraisonDTO>> getLivraisonsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(livraisonService.getLivraisonsPage(cursor, limit));
+    }
+
     // Get delivery by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Livraison> getLivraisonById(@PathVariable Long id) {
+    public ResponseEntity<LivraisonDTO> getLivraisonById(@PathVariable Long id) {
         return livraisonService.getLivraisonById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -51,7 +62,7 @@ public class LivraisonController {
     public ResponseEntity<?> createLivraison(@Valid @RequestBody LivraisonRequestDTO livraisonDTO) {
         try {
             Livraison savedLivraison = livraisonService.createLivraisonFromDTO(livraisonDTO);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedLivraison);
+            return ResponseEntity.status(HttpStatus.CREATED).body(LivraisonDTO.of(savedLivraison));
         } catch (IllegalArgumentException e) { // For issues like Commande not found
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -78,7 +89,7 @@ public class LivraisonController {
             if (updatedLivraison == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(updatedLivraison);
+            return ResponseEntity.ok(LivraisonDTO.of(updatedLivraison));
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -102,7 +113,7 @@ public class LivraisonController {
 
     // Update delivery status with "statut" parameter
     @PatchMapping("/{id}/statut")
-    public ResponseEntity<Livraison> updateLivraisonStatut(
+    public ResponseEntity<LivraisonDTO> updateLivraisonStatut(
             @PathVariable Long id,
             @RequestParam StatutLivraison statut) {
         
@@ -110,12 +121,12 @@ public class LivraisonController {
         if (updatedLivraison == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(updatedLivraison);
+        return ResponseEntity.ok(LivraisonDTO.of(updatedLivraison));
     }
 
     // Update delivery status with "status" in URL and JSON body
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Livraison> updateLivraisonStatus(
+    public ResponseEntity<LivraisonDTO> updateLivraisonStatus(
             @PathVariable Long id,
             @RequestBody Map<String, String> statusUpdate) {
         
@@ -130,7 +141,7 @@ public class LivraisonController {
             if (updatedLivraison == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(updatedLivraison);
+            return ResponseEntity.ok(LivraisonDTO.of(updatedLivraison));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -138,54 +149,60 @@ public class LivraisonController {
 
     // Assign transporter to delivery
     @PatchMapping("/{id}/transporteur")
-    public ResponseEntity<Livraison> assignTransporteur(
+    public ResponseEntity<LivraisonDTO> assignTransporteur(
             @PathVariable Long id,
             @RequestParam Long transporteurId) {
         Livraison updatedLivraison = livraisonService.assignTransporteur(id, transporteurId);
         if (updatedLivraison == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(updatedLivraison);
+        return ResponseEntity.ok(LivraisonDTO.of(updatedLivraison));
+    }
+
+    // Assign a carrier to every active delivery without one
+    @PostMapping("/auto-assign")
+    public ResponseEntity<LivraisonAutoAssignResultDTO> autoAssignTransporteurs() {
+        return ResponseEntity.ok(livraisonService.autoAssignUnassigned());
     }
 
     // Get deliveries by order ID
     @GetMapping("/by-commande/{commandeId}")
-    public ResponseEntity<List<Livraison>> getLivraisonsByCommande(@PathVariable Long commandeId) {
-        List<Livraison> livraisons = livraisonService.getLivraisonsByCommandeId(commandeId);
+    public ResponseEntity<List<LivraisonDTO>> getLivraisonsByCommande(@PathVariable Long commandeId) {
+        List<LivraisonDTO> livraisons = livraisonService.getLivraisonsByCommandeId(commandeId);
         return ResponseEntity.ok(livraisons);
     }
 
     // Get deliveries by transporter ID
     @GetMapping("/by-transporteur/{transporteurId}")
-    public ResponseEntity<List<Livraison>> getLivraisonsByTransporteur(@PathVariable Long transporteurId) {
-        List<Livraison> livraisons = livraisonService.getLivraisonsByTransporteurId(transporteurId);
+    public ResponseEntity<List<LivraisonDTO>> getLivraisonsByTransporteur(@PathVariable Long transporteurId) {
+        List<LivraisonDTO> livraisons = livraisonService.getLivraisonsByTransporteurId(transporteurId);
         return ResponseEntity.ok(livraisons);
     }
 
     // Get deliveries by status
     @GetMapping("/by-statut")
-    public ResponseEntity<List<Livraison>> getLivraisonsByStatut(@RequestParam StatutLivraison statut) {
-        List<Livraison> livraisons = livraisonService.getLivraisonsByStatut(statut);
+    public ResponseEntity<List<LivraisonDTO>> getLivraisonsByStatut(@RequestParam StatutLivraison statut) {
+        List<LivraisonDTO> livraisons = livraisonService.getLivraisonsByStatut(statut);
         return ResponseEntity.ok(livraisons);
     }
 
     // Get deliveries between dates
     @GetMapping("/by-date-range")
-    public ResponseEntity<List<Livraison>> getLivraisonsByDateRange(
+    public ResponseEntity<List<LivraisonDTO>> getLivraisonsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
         
-        List<Livraison> livraisons = livraisonService.getLivraisonsByDateRange(start, end);
+        List<LivraisonDTO> livraisons = livraisonService.getLivraisonsByDateRange(start, end);
         return ResponseEntity.ok(livraisons);
     }
 
     // Get upcoming deliveries
     @GetMapping("/upcoming")
-    public ResponseEntity<List<Livraison>> getUpcomingLivraisons(
+    public ResponseEntity<List<LivraisonDTO>> getUpcomingLivraisons(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from) {
         
         LocalDateTime fromDate = from != null ? from : LocalDateTime.now();
-        List<Livraison> livraisons = livraisonService.getUpcomingLivraisons(fromDate);
+        List<LivraisonDTO> livraisons = livraisonService.getUpcomingLivraisons(fromDate);
         return ResponseEntity.ok(livraisons);
     }
 
@@ -1,8 +1,13 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementBatchRequestDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementBatchResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.PaiementProcessingService;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.PaiementService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -13,29 +18,38 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/paiements")
 public class PaiementController {
 
     private final PaiementService paiementService;
+    private final PaiementProcessingService paiementProcessingService;
 
     @Autowired
-    public PaiementController(PaiementService paiementService) {
+    public PaiementController(PaiementService paiementService, PaiementProcessingService paiementProcessingService) {
         this.paiementService = paiementService;
+        this.paiementProcessingService = paiementProcessingService;
     }
 
     // Get all payments
     @GetMapping
-    public ResponseEntity<List<Paiement>> getAllPaiements() {
-        List<Paiement> paiements = paiementService.getAllPaiements();
+    public ResponseEntity<List<PaiementDTO>> getAllPaiements() {
+        List<PaiementDTO> paiements = paiementService.getAllPaiements();
         return ResponseEntity.ok(paiements);
     }
 
+    // Get one page of payments (keyset pagination)
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<PaiementDTO>> getPaiementsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(paiementService.getPaiementsPage(cursor, limit));
+    }
+
     // Get payment by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Paiement> getPaiementById(@PathVariable Long id) {
+    public ResponseEntity<PaiementDTO> getPaiementById(@PathVariable Long id) {
         return paiementService.getPaiementById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -43,43 +57,25 @@ public class PaiementController {
 
     // Create a new payment
     @PostMapping
-    public ResponseEntity<Paiement> createPaiement(@Valid @RequestBody Paiement paiement) {
+    public ResponseEntity<PaiementDTO> createPaiement(@Valid @RequestBody Paiement paiement) {
         if (paiement.getId() != null && paiementService.existsById(paiement.getId())) {
             return ResponseEntity.badRequest().build();
         }
         Paiement savedPaiement = paiementService.savePaiement(paiement);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedPaiement);
+        return ResponseEntity.status(HttpStatus.CREATED).body(PaiementDTO.of(savedPaiement));
     }
 
     // Update an existing payment
     @PutMapping("/{id}")
-    public ResponseEntity<Paiement> updatePaiement(
+    public ResponseEntity<PaiementDTO> updatePaiement(
             @PathVariable Long id,
             @Valid @RequestBody Paiement paiementDetails) {
         
-        Optional<Paiement> existingPaiementOptional = paiementService.getPaiementById(id);
-
-        if (existingPaiementOptional.isEmpty()) {
+        Paiement updatedPaiement = paiementService.updatePaiement(id, paiementDetails);
+        if (updatedPaiement == null) {
             return ResponseEntity.notFound().build();
         }
-
-        Paiement existingPaiement = existingPaiementOptional.get();
-
-        if (paiementDetails.getDate() != null) {
-            existingPaiement.setDate(paiementDetails.getDate());
-        }
-        if (paiementDetails.getMontantPaye() != null) {
-            existingPaiement.setMontantPaye(paiementDetails.getMontantPaye());
-        }
-        if (paiementDetails.getMode() != null) {
-            existingPaiement.setMode(paiementDetails.getMode());
-        }
-        if (paiementDetails.getStatut() != null) {
-            existingPaiement.setStatut(paiementDetails.getStatut());
-        }
-
-        Paiement updatedPaiement = paiementService.savePaiement(existingPaiement);
-        return ResponseEntity.ok(updatedPaiement);
+        return ResponseEntity.ok(PaiementDTO.of(updatedPaiement));
     }
 
     // Delete a payment
@@ -94,7 +90,7 @@ public class PaiementController {
 
     // Update payment status
     @PatchMapping("/{id}/statut")
-    public ResponseEntity<Paiement> updatePaiementStatut(
+    public ResponseEntity<PaiementDTO> updatePaiementStatut(
             @PathVariable Long id,
             @RequestParam StatutPaiement statut) {
         
@@ -102,57 +98,64 @@ public class PaiementController {
         if (updatedPaiement == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(updatedPaiement);
+        return ResponseEntity.ok(PaiementDTO.of(updatedPaiement));
     }
 
     // Process a payment
     @PostMapping("/{id}/process")
-    public ResponseEntity<Paiement> processPaiement(@PathVariable Long id) {
-        Paiement processedPaiement = paiementService.processPaiement(id);
+    public ResponseEntity<PaiementDTO> processPaiement(@PathVariable Long id) {
+        Paiement processedPaiement = paiementProcessingService.processPaiement(id);
         if (processedPaiement == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(processedPaiement);
+        return ResponseEntity.ok(PaiementDTO.of(processedPaiement));
+    }
+
+    // Process many payments concurrently (end of day settlement)
+    @PostMapping("/process-batch")
+    public ResponseEntity<PaiementBatchResultDTO> processPaiementsBatch(
+            @Valid @RequestBody PaiementBatchRequestDTO request) {
+        return ResponseEntity.ok(paiementProcessingService.processPaiementsBatch(request.getIds()));
     }
 
     // Get payments by order ID
     @GetMapping("/by-commande/{commandeId}")
-    public ResponseEntity<List<Paiement>> getPaiementsByCommande(@PathVariable Long commandeId) {
-        List<Paiement> paiements = paiementService.getPaiementsByCommandeId(commandeId);
+    public ResponseEntity<List<PaiementDTO>> getPaiementsByCommande(@PathVariable Long commandeId) {
+        List<PaiementDTO> paiements = paiementService.getPaiementsByCommandeId(commandeId);
         return ResponseEntity.ok(paiements);
     }
 
     // Get payments by payment method
     @GetMapping("/by-mode")
-    public ResponseEntity<List<Paiement>> getPaiementsByMode(@RequestParam ModePaiement mode) {
-        List<Paiement> paiements = paiementService.getPaiementsByMode(mode);
+    public ResponseEntity<List<PaiementDTO>> getPaiementsByMode(@RequestParam ModePaiement mode) {
+        List<PaiementDTO> paiements = paiementService.getPaiementsByMode(mode);
         return ResponseEntity.ok(paiements);
     }
 
     // Get payments by status
     @GetMapping("/by-statut")
-    public ResponseEntity<List<Paiement>> getPaiementsByStatut(@RequestParam StatutPaiement statut) {
-        List<Paiement> paiements = paiementService.getPaiementsByStatut(statut);
+    public ResponseEntity<List<PaiementDTO>> getPaiementsByStatut(@RequestParam StatutPaiement statut) {
+        List<PaiementDTO> paiements = paiementService.getPaiementsByStatut(statut);
         return ResponseEntity.ok(paiements);
     }
 
     // Get payments between dates
     @GetMapping("/by-date-range")
-    public ResponseEntity<List<Paiement>> getPaiementsByDateRange(
+    public ResponseEntity<List<PaiementDTO>> getPaiementsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
         
-        List<Paiement> paiements = paiementService.getPaiementsByDateRange(start, end);
+        List<PaiementDTO> paiements = paiementService.getPaiementsByDateRange(start, end);
         return ResponseEntity.ok(paiements);
     }
 
     // Get recent payments
     @GetMapping("/recent")
-    public ResponseEntity<List<Paiement>> getRecentPaiements(
+    public ResponseEntity<List<PaiementDTO>> getRecentPaiements(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
         
         LocalDateTime fromDate = since != null ? since : LocalDateTime.now().minusDays(30);
-        List<Paiement> paiements = paiementService.getRecentPaiements(fromDate);
+        List<PaiementDTO> paiements = paiementService.getRecentPaiements(fromDate);
         return ResponseEntity.ok(paiements);
     }
 }
\ No newline at end of file
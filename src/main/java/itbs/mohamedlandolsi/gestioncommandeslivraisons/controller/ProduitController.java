@@ -1,5 +1,7 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ProduitDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.ProduitService;
 import jakarta.validation.Valid;
@@ -22,34 +24,41 @@ public class ProduitController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Produit>> getAllProduits() {
+    public ResponseEntity<List<ProduitDTO>> getAllProduits() {
         return ResponseEntity.ok(produitService.getAllProduits());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDTO<ProduitDTO>> getProduitsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(produitService.getProduitsPage(cursor, limit));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Produit> getProduitById(@PathVariable Long id) {
+    public ResponseEntity<ProduitDTO> getProduitById(@PathVariable Long id) {
         return produitService.getProduitById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<Produit> createProduit(@Valid @RequestBody Produit produit) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(produitService.saveProduit(produit));
+    public ResponseEntity<ProduitDTO> createProduit(@Valid @RequestBody Produit produit) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(ProduitDTO.of(produitService.saveProduit(produit)));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Produit> updateProduit(@PathVariable Long id, @Valid @RequestBody Produit produit) {
-        if (!produitService.getProduitById(id).isPresent()) {
+    public ResponseEntity<ProduitDTO> updateProduit(@PathVariable Long id, @Valid @RequestBody Produit produit) {
+        if (!produitService.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
         produit.setId(id);
-        return ResponseEntity.ok(produitService.saveProduit(produit));
+        return ResponseEntity.ok(ProduitDTO.of(produitService.saveProduit(produit)));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduit(@PathVariable Long id) {
-        if (!produitService.getProduitById(id).isPresent()) {
+        if (!produitService.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
         produitService.deleteProduit(id);
@@ -57,7 +66,7 @@ public class ProduitController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Produit>> searchProduits(@RequestParam String nom) {
+    public ResponseEntity<List<ProduitDTO>> searchProduits(@RequestParam String nom) {
         return ResponseEntity.ok(produitService.searchProduitsByNom(nom));
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.RevenuTotalDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.RevenuJournalier;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.RevenuJournalierService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/revenus")
+public class RevenuController {
+
+    private final RevenuJournalierService revenuJournalierService;
+
+    @Autowired
+    public RevenuController(RevenuJournalierService revenuJournalierService) {
+        this.revenuJournalierService = revenuJournalierService;
+    }
+
+    // Get the daily revenue between two days (inclusive), optionally for one payment mode or status
+    @GetMapping
+    public ResponseEntity<List<RevenuJournalier>> getRevenus(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) ModePaiement mode,
+            @RequestParam(required = false) StatutPaiement statut) {
+        return ResponseEntity.ok(revenuJournalierService.getRevenus(start, end, mode, statut));
+    }
+
+    // Get the revenue between two days (inclusive) per payment mode and status
+    @GetMapping("/totaux")
+    public ResponseEntity<List<RevenuTotalDTO>> getTotaux(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+        return ResponseEntity.ok(revenuJournalierService.getTotaux(start, end));
+    }
+
+    // Rebuild the daily revenue from the payments
+    @PostMapping("/backfill")
+    public ResponseEntity<Map<String, Integer>> backfill() {
+        return ResponseEntity.ok(Map.of("lignes", revenuJournalierService.backfill()));
+    }
+}
@@ -1,5 +1,6 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.controller;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.TransporteurDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.TransporteurService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,14 +24,14 @@ public class TransporteurController {
 
     // Get all transporters
     @GetMapping
-    public ResponseEntity<List<Transporteur>> getAllTransporteurs() {
-        List<Transporteur> transporteurs = transporteurService.getAllTransporteurs();
+    public ResponseEntity<List<TransporteurDTO>> getAllTransporteurs() {
+        List<TransporteurDTO> transporteurs = transporteurService.getAllTransporteurs();
         return ResponseEntity.ok(transporteurs);
     }
 
     // Get transporter by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Transporteur> getTransporteurById(@PathVariable Long id) {
+    public ResponseEntity<TransporteurDTO> getTransporteurById(@PathVariable Long id) {
         return transporteurService.getTransporteurById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -38,17 +39,17 @@ public class TransporteurController {
 
     // Create a new transporter
     @PostMapping
-    public ResponseEntity<Transporteur> createTransporteur(@Valid @RequestBody Transporteur transporteur) {
+    public ResponseEntity<TransporteurDTO> createTransporteur(@Valid @RequestBody Transporteur transporteur) {
         if (transporteur.getId() != null && transporteurService.existsById(transporteur.getId())) {
             return ResponseEntity.badRequest().build();
         }
         Transporteur savedTransporteur = transporteurService.saveTransporteur(transporteur);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedTransporteur);
+        return ResponseEntity.status(HttpStatus.CREATED).body(TransporteurDTO.of(savedTransporteur));
     }
 
     // Update an existing transporter
     @PutMapping("/{id}")
-    public ResponseEntity<Transporteur> updateTransporteur(
+    public ResponseEntity<TransporteurDTO> updateTransporteur(
             @PathVariable Long id,
             @Valid @RequestBody Transporteur transporteur) {
         
@@ -57,7 +58,7 @@ public class TransporteurController {
         }
         transporteur.setId(id);
         Transporteur updatedTransporteur = transporteurService.saveTransporteur(transporteur);
-        return ResponseEntity.ok(updatedTransporteur);
+        return ResponseEntity.ok(TransporteurDTO.of(updatedTransporteur));
     }
 
     // Delete a transporter
@@ -72,15 +73,15 @@ public class TransporteurController {
 
     // Get transporters by name
     @GetMapping("/by-nom")
-    public ResponseEntity<List<Transporteur>> getTransporteursByNom(@RequestParam String nom) {
-        List<Transporteur> transporteurs = transporteurService.getTransporteursByNom(nom);
+    public ResponseEntity<List<TransporteurDTO>> getTransporteursByNom(@RequestParam String nom) {
+        List<TransporteurDTO> transporteurs = transporteurService.getTransporteursByNom(nom);
         return ResponseEntity.ok(transporteurs);
     }
 
     // Search transporters
     @GetMapping("/search")
-    public ResponseEntity<List<Transporteur>> searchTransporteurs(@RequestParam String query) {
-        List<Transporteur> transporteurs = transporteurService.searchTransporteurs(query);
+    public ResponseEntity<List<TransporteurDTO>> searchTransporteurs(@RequestParam String query) {
+        List<TransporteurDTO> transporteurs = transporteurService.searchTransporteurs(query);
         return ResponseEntity.ok(transporteurs);
     }
 }
\ No newline at end of file
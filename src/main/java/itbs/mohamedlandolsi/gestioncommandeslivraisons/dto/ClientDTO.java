@@ -0,0 +1,32 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Client as returned by the API, without its orders (see /api/commandes/by-client/{id})
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientDTO {
+
+    private Long id;
+
+    private String nom;
+
+    private String email;
+
+    private String adresse;
+
+    private String ville;
+
+    private String codePostal;
+
+    public static ClientDTO of(Client client) {
+        return new ClientDTO(client.getId(), client.getNom(), client.getEmail(), client.getAdresse(),
+                client.getVille(), client.getCodePostal());
+    }
+}
@@ -0,0 +1,45 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeBatchResultDTO {
+
+    private int total;
+
+    private int acceptees;
+
+    private int rejetees;
+
+    private List<Resultat> resultats = new ArrayList<>();
+
+    public void addSucces(int index, Long commandeId) {
+        resultats.add(new Resultat(index, commandeId, true, null));
+        acceptees++;
+    }
+
+    public void addEchec(int index, String erreur) {
+        resultats.add(new Resultat(index, null, false, erreur));
+        rejetees++;
+    }
+
+    /**
+     * Outcome for one order of the batch, identified by its position in the request
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resultat {
+        private int index;
+        private Long commandeId; // Null when the order was rejected
+        private boolean succes;
+        private String erreur;
+    }
+}
@@ -0,0 +1,42 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order as returned by the API, with its lines. Built while the lines can still be loaded,
+ * that is inside the transaction that read the order or from an order that was just saved.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeDTO {
+
+    private Long id;
+
+    private Long clientId;
+
+    private LocalDateTime date;
+
+    private StatutCommande statut;
+
+    private BigDecimal montantTotal;
+
+    private List<LigneCommandeDTO> lignesCommande;
+
+    public static CommandeDTO of(Commande commande) {
+        return new CommandeDTO(commande.getId(),
+                commande.getClient() != null ? commande.getClient().getId() : null,
+                commande.getDate(), commande.getStatut(), commande.getMontantTotal(),
+                commande.getLignesCommande() != null
+                        ? commande.getLignesCommande().stream().map(LigneCommandeDTO::of).toList()
+                        : List.of());
+    }
+}
@@ -0,0 +1,39 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the order export: an order line with its order and client email.
+ * Orders without lines produce a single row whose line fields are null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeExportLigneDTO {
+
+    private Long commandeId;
+
+    private LocalDateTime date;
+
+    private StatutCommande statut;
+
+    private BigDecimal montantTotal;
+
+    private String clientEmail;
+
+    private Long ligneId;
+
+    private Long produitId;
+
+    private String produitNom;
+
+    private Integer quantite;
+
+    private BigDecimal prixUnitaire;
+}
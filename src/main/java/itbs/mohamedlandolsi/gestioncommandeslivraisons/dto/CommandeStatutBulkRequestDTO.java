@@ -0,0 +1,22 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeStatutBulkRequestDTO {
+
+    @NotEmpty(message = "La liste des commandes ne peut pas être vide.")
+    private List<Long> ids;
+
+    @NotNull(message = "Le statut cible ne peut pas être nul.")
+    private StatutCommande statut;
+}
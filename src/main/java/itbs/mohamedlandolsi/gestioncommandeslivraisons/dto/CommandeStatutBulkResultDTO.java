@@ -0,0 +1,21 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeStatutBulkResultDTO {
+
+    private StatutCommande statut;
+
+    private List<Long> modifiees;
+
+    private Map<Long, String> rejetees; // Order ID -> reason
+}
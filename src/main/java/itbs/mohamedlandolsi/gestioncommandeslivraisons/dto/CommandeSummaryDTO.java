@@ -0,0 +1,31 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight view of an order for list screens, selected column by column
+ * instead of loading the full entity graph
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeSummaryDTO {
+
+    private Long id;
+
+    private LocalDateTime date;
+
+    private StatutCommande statut;
+
+    private BigDecimal montantTotal;
+
+    private Long clientId;
+
+    private String clientNom;
+}
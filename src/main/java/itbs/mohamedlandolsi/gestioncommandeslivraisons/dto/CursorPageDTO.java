@@ -0,0 +1,44 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> items;
+
+    private int limit;
+
+    private String nextCursor; // Null on the last page
+
+    /**
+     * Builds a page from rows fetched with {@code limit + 1} as the query limit:
+     * the extra row only tells whether another page follows and is not returned
+     * @param rows rows fetched from the repository, in cursor order
+     * @param limit requested page size
+     * @param cursorOf encodes the cursor pointing just after a given row
+     * @return the page
+     */
+    public static <T> CursorPageDTO<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, limit, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPageDTO<>(items, limit, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * @param mapper converts one item, typically an entity into its response DTO
+     * @return the same page with converted items
+     */
+    public <R> CursorPageDTO<R> map(Function<T, R> mapper) {
+        return new CursorPageDTO<>(items.stream().map(mapper).toList(), limit, nextCursor);
+    }
+}
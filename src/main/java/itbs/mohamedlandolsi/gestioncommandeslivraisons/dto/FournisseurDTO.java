@@ -0,0 +1,32 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Supplier as returned by the API, without its products
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FournisseurDTO {
+
+    private Long id;
+
+    private String nom;
+
+    private String email;
+
+    private String telephone;
+
+    private String adresse;
+
+    private Double note;
+
+    public static FournisseurDTO of(Fournisseur fournisseur) {
+        return new FournisseurDTO(fournisseur.getId(), fournisseur.getNom(), fournisseur.getEmail(),
+                fournisseur.getTelephone(), fournisseur.getAdresse(), fournisseur.getNote());
+    }
+}
@@ -0,0 +1,31 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LigneCommandeDTO {
+
+    private Long id;
+
+    private Long commandeId;
+
+    private Long produitId;
+
+    private Integer quantite;
+
+    private BigDecimal prixUnitaire;
+
+    public static LigneCommandeDTO of(LigneCommande ligne) {
+        return new LigneCommandeDTO(ligne.getId(),
+                ligne.getCommande() != null ? ligne.getCommande().getId() : null,
+                ligne.getProduit() != null ? ligne.getProduit().getId() : null,
+                ligne.getQuantite(), ligne.getPrixUnitaire());
+    }
+}
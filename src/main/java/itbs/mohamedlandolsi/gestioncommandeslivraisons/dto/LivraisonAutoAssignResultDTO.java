@@ -0,0 +1,19 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivraisonAutoAssignResultDTO {
+
+    private int assignees;
+
+    private int nonAssignees; // No carrier available
+
+    private Map<Long, Integer> parTransporteur; // Carrier ID -> deliveries assigned by this run
+}
@@ -0,0 +1,38 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LivraisonDTO {
+
+    private Long id;
+
+    private Long commandeId;
+
+    private Long transporteurId; // Null while unassigned
+
+    private LocalDateTime dateLivraison;
+
+    private String adresseLivraison;
+
+    private BigDecimal cout;
+
+    private StatutLivraison statut;
+
+    public static LivraisonDTO of(Livraison livraison) {
+        return new LivraisonDTO(livraison.getId(),
+                livraison.getCommande() != null ? livraison.getCommande().getId() : null,
+                livraison.getTransporteur() != null ? livraison.getTransporteur().getId() : null,
+                livraison.getDateLivraison(), livraison.getAdresseLivraison(), livraison.getCout(),
+                livraison.getStatut());
+    }
+}
@@ -0,0 +1,17 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaiementBatchRequestDTO {
+
+    @NotEmpty(message = "La liste des paiements ne peut pas être vide.")
+    private List<Long> ids;
+}
@@ -0,0 +1,25 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaiementBatchResultDTO {
+
+    private int effectues;
+
+    private int echecs;
+
+    private int ignores; // Not found, not EN_ATTENTE, gateway unreachable or changed meanwhile
+
+    private long dureeMs;
+
+    private double paiementsParSeconde; // Gateway calls completed per second over the whole batch
+
+    private List<PaiementResultatDTO> resultats; // One entry per requested ID, in request order
+}
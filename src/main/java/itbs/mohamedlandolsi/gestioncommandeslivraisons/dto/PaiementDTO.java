@@ -0,0 +1,34 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaiementDTO {
+
+    private Long id;
+
+    private Long commandeId;
+
+    private LocalDateTime date;
+
+    private StatutPaiement statut;
+
+    private ModePaiement mode;
+
+    private Double montantPaye;
+
+    public static PaiementDTO of(Paiement paiement) {
+        return new PaiementDTO(paiement.getId(),
+                paiement.getCommande() != null ? paiement.getCommande().getId() : null,
+                paiement.getDate(), paiement.getStatut(), paiement.getMode(), paiement.getMontantPaye());
+    }
+}
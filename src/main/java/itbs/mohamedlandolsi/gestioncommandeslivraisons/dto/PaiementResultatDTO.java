@@ -0,0 +1,20 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaiementResultatDTO {
+
+    private Long id;
+
+    private StatutPaiement statut; // Status after processing, null if the payment does not exist
+
+    private String reference; // Gateway transaction reference when charged
+
+    private String motif; // Why the payment was declined or left untouched
+}
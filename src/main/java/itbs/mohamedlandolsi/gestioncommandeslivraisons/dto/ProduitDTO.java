@@ -0,0 +1,36 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProduitDTO {
+
+    private Long id;
+
+    private String nom;
+
+    private String description;
+
+    private BigDecimal prix;
+
+    private Integer stock;
+
+    private Integer stockReserve;
+
+    private int stockDisponible;
+
+    private Long fournisseurId;
+
+    public static ProduitDTO of(Produit produit) {
+        return new ProduitDTO(produit.getId(), produit.getNom(), produit.getDescription(), produit.getPrix(),
+                produit.getStock(), produit.getStockReserve(), produit.getStockDisponible(),
+                produit.getFournisseur() != null ? produit.getFournisseur().getId() : null);
+    }
+}
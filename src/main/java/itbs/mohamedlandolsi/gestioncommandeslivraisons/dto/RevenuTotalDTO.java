@@ -0,0 +1,23 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenuTotalDTO {
+
+    private ModePaiement mode;
+
+    private StatutPaiement statut;
+
+    private Long nombre;
+
+    private BigDecimal montant;
+}
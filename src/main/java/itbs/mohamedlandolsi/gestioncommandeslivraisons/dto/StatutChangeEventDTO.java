@@ -0,0 +1,49 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatutChangeEventDTO {
+
+    public static final String COMMANDE = "commande";
+    public static final String LIVRAISON = "livraison";
+
+    private String type; // "commande" or "livraison", also the SSE event name
+
+    private Long id;
+
+    private Long commandeId;
+
+    private Long clientId;
+
+    private Long transporteurId; // Null for orders and unassigned deliveries
+
+    private String ancienStatut;
+
+    private String nouveauStatut;
+
+    private LocalDateTime date;
+
+    public static StatutChangeEventDTO of(Commande commande, Commande.StatutCommande ancienStatut) {
+        return new StatutChangeEventDTO(COMMANDE, commande.getId(), commande.getId(),
+                commande.getClient() != null ? commande.getClient().getId() : null, null,
+                ancienStatut != null ? ancienStatut.name() : null, commande.getStatut().name(), LocalDateTime.now());
+    }
+
+    public static StatutChangeEventDTO of(Livraison livraison, Livraison.StatutLivraison ancienStatut) {
+        Commande commande = livraison.getCommande();
+        return new StatutChangeEventDTO(LIVRAISON, livraison.getId(),
+                commande != null ? commande.getId() : null,
+                commande != null && commande.getClient() != null ? commande.getClient().getId() : null,
+                livraison.getTransporteur() != null ? livraison.getTransporteur().getId() : null,
+                ancienStatut != null ? ancienStatut.name() : null, livraison.getStatut().name(), LocalDateTime.now());
+    }
+}
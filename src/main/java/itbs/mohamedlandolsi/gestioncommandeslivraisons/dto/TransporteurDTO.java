@@ -0,0 +1,28 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.dto;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Carrier as returned by the API, without its deliveries (see /api/livraisons/by-transporteur/{id})
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransporteurDTO {
+
+    private Long id;
+
+    private String nom;
+
+    private String telephone;
+
+    private Double note;
+
+    public static TransporteurDTO of(Transporteur transporteur) {
+        return new TransporteurDTO(transporteur.getId(), transporteur.getNom(), transporteur.getTelephone(),
+                transporteur.getNote());
+    }
+}
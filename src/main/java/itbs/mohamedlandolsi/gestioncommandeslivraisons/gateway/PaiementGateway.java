@@ -0,0 +1,38 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.gateway;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+
+/**
+ * Payment service provider that charges the payments. Calls may block for the duration of a
+ * network round trip, so callers must not hold a database transaction or connection around them.
+ */
+public interface PaiementGateway {
+
+    /**
+     * What the provider needs to charge one payment
+     */
+    record Demande(Long paiementId, Double montant, ModePaiement mode) {
+    }
+
+    /**
+     * Provider answer: the transaction reference when accepted, the reason otherwise
+     */
+    record Reponse(boolean accepte, String reference, String motif) {
+
+        public static Reponse acceptee(String reference) {
+            return new Reponse(true, reference, null);
+        }
+
+        public static Reponse refusee(String motif) {
+            return new Reponse(false, null, motif);
+        }
+    }
+
+    /**
+     * Charges one payment
+     * @param demande payment to charge
+     * @return the provider answer
+     * @throws RuntimeException if the provider could not be reached; the payment was not charged
+     */
+    Reponse charger(Demande demande);
+}
@@ -0,0 +1,51 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.gateway;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the payment provider. Each call sleeps between half and one and a half
+ * times the configured latency, then declines the payment with the configured probability.
+ * Payments without a positive amount are always declined.
+ */
+@Component
+public class SimulatedPaiementGateway implements PaiementGateway {
+
+    private final long latencyMillis;
+    private final double failureRate;
+
+    @Autowired
+    public SimulatedPaiementGateway(
+            @Value("${paiement.gateway.latency-ms:200}") long latencyMillis,
+            @Value("${paiement.gateway.failure-rate:0.05}") double failureRate) {
+        if (latencyMillis < 0 || failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Invalid simulated gateway settings: latency " + latencyMillis
+                    + " ms, failure rate " + failureRate);
+        }
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public Reponse charger(Demande demande) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis / 2 + random.nextLong(latencyMillis + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the payment gateway", e);
+            }
+        }
+        if (demande.montant() == null || demande.montant() <= 0) {
+            return Reponse.refusee("Invalid amount: " + demande.montant());
+        }
+        if (random.nextDouble() < failureRate) {
+            return Reponse.refusee("Declined by the issuer (simulated)");
+        }
+        return Reponse.acceptee("SIM-" + demande.paiementId() + "-" + Long.toHexString(random.nextLong() & Long.MAX_VALUE));
+    }
+}
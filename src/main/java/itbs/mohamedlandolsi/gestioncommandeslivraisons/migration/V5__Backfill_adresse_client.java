@@ -0,0 +1,52 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.migration;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.AdresseParser;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Fills client.ville and client.code_postal (added by V4) for the existing clients. Written in
+ * Java because the parsing is the one applied by ClientService on every save. Spring Boot hands
+ * the JavaMigration beans to Flyway, which derives the version from the class name.
+ */
+@Component
+public class V5__Backfill_adresse_client extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE client SET ville = ?, code_postal = ? WHERE id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            int pending = 0;
+            try (ResultSet rows = select.executeQuery("SELECT id, adresse FROM client WHERE adresse IS NOT NULL")) {
+                while (rows.next()) {
+                    AdresseParser.Adresse adresse = AdresseParser.parse(rows.getString(2));
+                    if (adresse.ville() == null && adresse.codePostal() == null) {
+                        continue;
+                    }
+                    update.setString(1, adresse.ville());
+                    update.setString(2, adresse.codePostal());
+                    update.setLong(3, rows.getLong(1));
+                    update.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -11,6 +12,10 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_client_email", columnList = "email"), // Stored lower-cased, see ClientService
+        @Index(name = "idx_client_ville", columnList = "ville"),
+        @Index(name = "idx_client_code_postal", columnList = "code_postal")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +33,14 @@ public class Client {
 
     private String adresse;
 
+    // Parsed from adresse on every save (AdresseParser), for indexed lookups
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String ville;
+
+    @Column(length = 10)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String codePostal;
+
     @OneToMany(mappedBy = "client", cascade = CascadeType.ALL)
     @JsonManagedReference("client-commandes") // Explicitly named to match Commande.client
     private List<Commande> commandes;
@@ -13,15 +13,22 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+// Created by the Flyway migrations in db/migration, declared here so the mapping documents them
+@Table(indexes = {
+        @Index(name = "idx_commande_date_id", columnList = "date, id"), // Keyset pagination, date ranges
+        @Index(name = "idx_commande_statut_date", columnList = "statut, date"),
+        @Index(name = "idx_commande_client_date", columnList = "client_id, date")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Commande {
+    // Pooled sequence (table-backed on MySQL) so that inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commande_seq")
+    @SequenceGenerator(name = "commande_seq", sequenceName = "commande_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     @JsonBackReference("client-commandes")
     private Client client;
@@ -38,13 +45,8 @@ public class Commande {
     @JsonManagedReference("commande-lignes")
     private List<LigneCommande> lignesCommande;
 
-    @OneToOne(mappedBy = "commande", cascade = CascadeType.ALL)
-    @JsonBackReference("livraison-commande")
-    private Livraison livraison;
-
-    @OneToOne(mappedBy = "commande", cascade = CascadeType.ALL)
-    @JsonBackReference("commande-paiement")
-    private Paiement paiement;
+    // The delivery and the payment reference the order but are not mapped here: an inverse one-to-one
+    // cannot be lazy, so it cost two SELECTs per loaded order. CommandeService deletes them with the order.
 
     public enum StatutCommande {
         EN_ATTENTE, VALIDEE, EN_PREPARATION, EXPEDIEE, LIVREE, ANNULEE
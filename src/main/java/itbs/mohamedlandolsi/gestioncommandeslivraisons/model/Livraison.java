@@ -1,7 +1,6 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,6 +10,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_livraison_statut_date", columnList = "statut, dateLivraison"),
+        @Index(name = "idx_livraison_date", columnList = "dateLivraison"),
+        @Index(name = "idx_livraison_transporteur_statut", columnList = "transporteur_id, statut")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,12 +22,11 @@ public class Livraison {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "commande_id", nullable = false)
-    @JsonManagedReference("livraison-commande")
     private Commande commande;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "transporteur_id")
     @JsonBackReference("transporteur-livraisons")
     private Transporteur transporteur;
@@ -1,6 +1,6 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.model;
 
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,6 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_paiement_date", columnList = "date"),
+        @Index(name = "idx_paiement_statut_date", columnList = "statut, date"),
+        @Index(name = "idx_paiement_mode", columnList = "mode")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,9 +21,8 @@ public class Paiement {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "commande_id", nullable = false)
-    @JsonManagedReference("commande-paiement")
     private Commande commande;
 
     private LocalDateTime date = LocalDateTime.now();
@@ -32,6 +35,15 @@ public class Paiement {
 
     private Double montantPaye;
 
+    // Claim held by a payment processing run while the gateway call is in flight; only set by PaiementRepository
+    @Column(insertable = false, updatable = false)
+    @JsonIgnore
+    private String traitementJeton;
+
+    @Column(insertable = false, updatable = false)
+    @JsonIgnore
+    private LocalDateTime traitementDebut;
+
     public enum StatutPaiement {
         EN_ATTENTE, EFFECTUE, ECHEC, REMBOURSE
     }
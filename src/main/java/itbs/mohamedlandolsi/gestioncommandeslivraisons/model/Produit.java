@@ -1,6 +1,7 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -32,9 +33,21 @@ public class Produit {
     @NotNull(message = "Le stock est obligatoire")
     @Positive(message = "Le stock doit être positif")
     private Integer stock;
+
+    // Units held by orders not yet delivered; only changed by the conditional updates of ProduitRepository
+    @Column(nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer stockReserve = 0;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fournisseur_id")
     @JsonBackReference
     private Fournisseur fournisseur;
-}
\ No newline at end of file
+
+    /**
+     * @return stock that can still be promised to new orders
+     */
+    public int getStockDisponible() {
+        return stock - (stockReserve != null ? stockReserve : 0);
+    }
+}
@@ -0,0 +1,46 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry recording the stock held for one product of an order.
+ * Created when the order is placed, consumed on delivery and released on cancellation.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_reservation_commande_statut", columnList = "commande_id, statut"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_stock_seq")
+    @SequenceGenerator(name = "reservation_stock_seq", sequenceName = "reservation_stock_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "commande_id", nullable = false)
+    @JsonIgnore
+    private Commande commande;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "produit_id", nullable = false)
+    @JsonIgnore
+    private Produit produit;
+
+    private Integer quantite;
+
+    @Enumerated(EnumType.STRING)
+    private StatutReservation statut = StatutReservation.RESERVEE;
+
+    private LocalDateTime dateCreation = LocalDateTime.now();
+
+    public enum StatutReservation {
+        RESERVEE, CONSOMMEE, LIBEREE
+    }
+}
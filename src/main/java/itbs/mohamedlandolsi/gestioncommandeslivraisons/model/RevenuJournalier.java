@@ -0,0 +1,48 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.model;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Number and amount of the payments of one day, for one payment mode and one status.
+ * Maintained incrementally on every payment change; never written through JPA.
+ */
+@Entity
+@IdClass(RevenuJournalier.Cle.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenuJournalier {
+    @Id
+    private LocalDate jour;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private ModePaiement mode;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private StatutPaiement statut;
+
+    private long nombre;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal montant;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Cle implements Serializable {
+        private LocalDate jour;
+        private ModePaiement mode;
+        private StatutPaiement statut;
+    }
+}
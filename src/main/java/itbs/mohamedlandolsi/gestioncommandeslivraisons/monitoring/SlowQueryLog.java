@@ -0,0 +1,60 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Production SQL log: statements slower than the threshold are logged as warnings, and a small
+ * random sample of the others at INFO, each with the repository or service method that ran it.
+ * Bound parameter values are never written. The logger goes through an async appender
+ * (logback-spring.xml), so the JDBC threads do not wait on the console.
+ */
+public class SlowQueryLog implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final long thresholdMs;
+    private final double sampleRate;
+
+    /**
+     * @param thresholdMs execution time from which a statement is always logged
+     * @param sampleRate share of the faster statements that are logged, between 0 and 1
+     */
+    public SlowQueryLog(long thresholdMs, double sampleRate) {
+        this.thresholdMs = thresholdMs;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedMs = execInfo.getElapsedTime();
+        if (elapsedMs >= thresholdMs) {
+            if (log.isWarnEnabled()) {
+                log.warn("Slow SQL ({} ms{}) from {}: {}", elapsedMs, batch(execInfo), SqlCaller.current(),
+                        sql(queryInfoList));
+            }
+        } else if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("Sampled SQL ({} ms{}) from {}: {}", elapsedMs, batch(execInfo), SqlCaller.current(),
+                    sql(queryInfoList));
+        }
+    }
+
+    private static String batch(ExecutionInfo execInfo) {
+        return execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "";
+    }
+
+    private static String sql(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+    }
+}
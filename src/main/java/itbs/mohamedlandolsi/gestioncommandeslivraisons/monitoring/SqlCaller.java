@@ -0,0 +1,36 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring;
+
+/**
+ * The innermost repository or service method running on the current thread, set by
+ * SqlStatementAspect, so that a logged statement can be traced back to its caller.
+ */
+public final class SqlCaller {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private SqlCaller() {
+    }
+
+    /**
+     * @param caller method about to run, as Class.method
+     * @return the previous caller, to be given back to {@link #exit}
+     */
+    static String enter(String caller) {
+        String previous = CURRENT.get();
+        CURRENT.set(caller);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static String current() {
+        String caller = CURRENT.get();
+        return caller != null ? caller : "unknown";
+    }
+}
@@ -0,0 +1,71 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the SQL statements of each public service method, including those of the services it
+ * calls, so that a route over its budget can be traced to the method doing the queries. Also
+ * tells {@link SqlCaller} which repository or service method is running, for the SQL log.
+ * Runs outside the transaction, so the statements flushed on commit are counted too.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementAspect {
+
+    private static final String REPOSITORY_PACKAGE = "itbs.mohamedlandolsi.gestioncommandeslivraisons.repository";
+
+    private final SqlStatementMetrics sqlStatementMetrics;
+    // Repository proxy class to the application interface it implements
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SqlStatementAspect(SqlStatementMetrics sqlStatementMetrics) {
+        this.sqlStatementMetrics = sqlStatementMetrics;
+    }
+
+    @Around("within(itbs.mohamedlandolsi.gestioncommandeslivraisons.service..*) "
+            + "&& @within(org.springframework.stereotype.Service)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        String previousCaller = SqlCaller.enter(operation);
+        SqlStatementCounter.Snapshot start = SqlStatementCounter.snapshot();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sqlStatementMetrics.record("service", operation, SqlStatementCounter.snapshot().since(start));
+            SqlCaller.exit(previousCaller);
+        }
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object trackRepositoryCaller(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), SqlStatementAspect::repositoryName);
+        String previousCaller = SqlCaller.enter(repository + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SqlCaller.exit(previousCaller);
+        }
+    }
+
+    // findById and save are declared by Spring Data; the application interface names the entity
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> type : proxyClass.getInterfaces()) {
+            if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
@@ -0,0 +1,48 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Counts the SQL statements run by each thread and the time spent executing them. Registered on
+ * the proxied DataSource (see SqlMonitoringConfig); the filter and the aspect read the counts
+ * before and after a request or a service call. A JDBC batch counts as one statement, since it is
+ * one round trip.
+ */
+public final class SqlStatementCounter implements QueryExecutionListener {
+
+    // Statements, execution nanos, start of the statement in flight
+    private static final ThreadLocal<long[]> TOTALS = ThreadLocal.withInitial(() -> new long[3]);
+
+    /**
+     * Cumulative counts of the current thread; only the difference between two snapshots is meaningful
+     * @param statements statements executed
+     * @param nanos time spent executing them
+     */
+    public record Snapshot(long statements, long nanos) {
+
+        public Snapshot since(Snapshot start) {
+            return new Snapshot(statements - start.statements, nanos - start.nanos);
+        }
+    }
+
+    public static Snapshot snapshot() {
+        long[] totals = TOTALS.get();
+        return new Snapshot(totals[0], totals[1]);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        TOTALS.get()[2] = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long[] totals = TOTALS.get();
+        totals[0]++;
+        totals[1] += System.nanoTime() - totals[2];
+    }
+}
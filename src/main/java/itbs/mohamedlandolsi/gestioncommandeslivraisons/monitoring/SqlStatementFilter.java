@@ -0,0 +1,58 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements run while serving each HTTP request, by route, and logs a warning
+ * when a request goes over the statement budget: usually an N+1 loading pattern. Statements run
+ * on other threads (streamed exports, payment gateway workers) are not attributed to the request.
+ */
+@Component
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementFilter.class);
+
+    private final SqlStatementMetrics sqlStatementMetrics;
+    private final int statementBudget;
+
+    @Autowired
+    public SqlStatementFilter(
+            SqlStatementMetrics sqlStatementMetrics,
+            @Value("${sql.monitoring.statement-budget:30}") int statementBudget) {
+        this.sqlStatementMetrics = sqlStatementMetrics;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.Snapshot start = SqlStatementCounter.snapshot();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatementCounter.Snapshot executed = SqlStatementCounter.snapshot().since(start);
+            // The route template, not the URI, so that IDs do not create a meter each
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String operation = request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN");
+            sqlStatementMetrics.record("http", operation, executed);
+            if (executed.statements() > statementBudget) {
+                log.warn("{} {} ran {} SQL statements ({} ms), over the budget of {}", request.getMethod(),
+                        request.getRequestURI(), executed.statements(),
+                        TimeUnit.NANOSECONDS.toMillis(executed.nanos()), statementBudget);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the SQL statements of each HTTP route and service method to Actuator:
+ * /actuator/metrics/sql.requetes (statements per call) and /actuator/metrics/sql.duree
+ * (database time per call), tagged with source (http or service) and operation.
+ */
+@Component
+public class SqlStatementMetrics {
+
+    public static final String REQUETES = "sql.requetes";
+    public static final String DUREE = "sql.duree";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public SqlStatementMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String source, String operation, SqlStatementCounter.Snapshot executed) {
+        DistributionSummary.builder(REQUETES)
+                .baseUnit("statements")
+                .tags("source", source, "operation", operation)
+                .register(meterRegistry)
+                .record(executed.statements());
+        Timer.builder(DUREE)
+                .tags("source", source, "operation", operation)
+                .register(meterRegistry)
+                .record(executed.nanos(), TimeUnit.NANOSECONDS);
+    }
+}
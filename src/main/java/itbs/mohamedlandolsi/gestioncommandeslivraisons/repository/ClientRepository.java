@@ -1,15 +1,41 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
+    @ReadOnlyQuery
+    @Override
+    List<Client> findAll();
+
+    @ReadOnlyQuery
     List<Client> findByNomContainingIgnoreCase(String query);
-    List<Client> findByAdresseContainingIgnoreCase(String query);
-    Optional<Client> findByEmailIgnoreCase(String email);
+    // ville and codePostal are parsed and normalized at write time (AdresseParser), so both lookups use an index
+    @ReadOnlyQuery
+    List<Client> findByVilleOrderByIdAsc(String ville);
+    @ReadOnlyQuery
+    List<Client> findByCodePostalStartingWithOrderByIdAsc(String codePostalPrefix);
+    // Emails are stored lower-cased (ClientService), so the lookup is an equality on idx_client_email
+    @ReadOnlyQuery
+    Optional<Client> findByEmail(String email);
+
+    // Keyset pagination on id
+    @ReadOnlyQuery
+    List<Client> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Name search index: (id, nom) rows read through a cursor at startup
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.id, c.nom FROM Client c ORDER BY c.id")
+    Stream<Object[]> streamIdAndNom();
 }
\ No newline at end of file
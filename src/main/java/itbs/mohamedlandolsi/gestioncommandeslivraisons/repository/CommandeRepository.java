@@ -1,17 +1,110 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeExportLigneDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeSummaryDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CommandeRepository extends JpaRepository<Commande, Long> {
-    List<Commande> findByClientId(Long clientId);
+    @ReadOnlyQuery
+    @EntityGraph(attributePaths = "lignesCommande")
+    @Override
+    List<Commande> findAll();
+
+    // Explicit queries on a foreign key: the derived ones outer join the parent and filter on its ID, which bypasses the index
+    @ReadOnlyQuery
+    @EntityGraph(attributePaths = "lignesCommande")
+    @Query("SELECT c FROM Commande c WHERE c.client.id = :clientId")
+    List<Commande> findByClientId(@Param("clientId") Long clientId);
+    @ReadOnlyQuery
+    @EntityGraph(attributePaths = "lignesCommande")
     List<Commande> findByStatut(StatutCommande status);
+    @ReadOnlyQuery
+    @EntityGraph(attributePaths = "lignesCommande")
     List<Commande> findByDateBetween(LocalDateTime start, LocalDateTime end);
+    @ReadOnlyQuery
+    @EntityGraph(attributePaths = "lignesCommande")
     List<Commande> findByDateAfterOrderByDateDesc(LocalDateTime fromDate);
+
+    // Keyset pagination on (date, id), newest first. No entity graph on the pages: a fetched collection
+    // cannot be limited in SQL, so their lines are batch-fetched (default_batch_fetch_size).
+    @ReadOnlyQuery
+    List<Commande> findAllByOrderByDateDescIdDesc(Limit limit);
+
+    // The leading c.date <= :date gives the index a range; the OR alone is read as a full scan
+    @ReadOnlyQuery
+    @Query("SELECT c FROM Commande c WHERE c.date <= :date AND (c.date < :date OR c.id < :id) " +
+           "ORDER BY c.date DESC, c.id DESC")
+    List<Commande> findPageBefore(@Param("date") LocalDateTime date, @Param("id") Long id, Limit limit);
+
+    // Supplier order history: the orders with at least one line of the supplier's products, newest first.
+    // Date bounds and the keyset position (c.date < :fin OR c.id < :beforeId) are applied by the database.
+    @ReadOnlyQuery
+    @Query("SELECT DISTINCT c FROM Commande c JOIN c.lignesCommande l " +
+           "WHERE l.produit.fournisseur.id = :fournisseurId AND c.date >= :debut AND c.date <= :fin " +
+           "AND (c.date < :fin OR c.id < :beforeId) ORDER BY c.date DESC, c.id DESC")
+    List<Commande> findPageByFournisseur(@Param("fournisseurId") Long fournisseurId,
+                                         @Param("debut") LocalDateTime debut,
+                                         @Param("fin") LocalDateTime fin,
+                                         @Param("beforeId") Long beforeId,
+                                         Limit limit);
+
+    // Summary projections: only the listed columns, client name joined in the same query
+    String SUMMARY_SELECT = "SELECT new itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeSummaryDTO(" +
+            "c.id, c.date, c.statut, c.montantTotal, cl.id, cl.nom) FROM Commande c JOIN c.client cl ";
+
+    @Query(SUMMARY_SELECT + "WHERE c.statut = :statut ORDER BY c.date DESC")
+    List<CommandeSummaryDTO> findSummariesByStatut(@Param("statut") StatutCommande statut);
+
+    @Query(SUMMARY_SELECT + "WHERE cl.id = :clientId ORDER BY c.date DESC")
+    List<CommandeSummaryDTO> findSummariesByClientId(@Param("clientId") Long clientId);
+
+    @Query(SUMMARY_SELECT + "WHERE c.date > :fromDate ORDER BY c.date DESC")
+    List<CommandeSummaryDTO> findSummariesByDateAfter(@Param("fromDate") LocalDateTime fromDate);
+
+    // Bulk status transitions: lock the eligible rows, then move them with one guarded UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id FROM Commande c WHERE c.id IN :ids AND c.statut IN :statuts ORDER BY c.id")
+    List<Long> lockIdsByIdInAndStatutIn(@Param("ids") Collection<Long> ids,
+                                        @Param("statuts") Collection<StatutCommande> statuts);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Commande c SET c.statut = :statut WHERE c.id IN :ids AND c.statut IN :sources")
+    int updateStatutByIdInAndStatutIn(@Param("ids") Collection<Long> ids,
+                                      @Param("sources") Collection<StatutCommande> sources,
+                                      @Param("statut") StatutCommande statut);
+
+    @Query("SELECT c.id, c.statut FROM Commande c WHERE c.id IN :ids")
+    List<Object[]> findStatutsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT c.id FROM Commande c WHERE c.client.id = :clientId ORDER BY c.id")
+    List<Long> findIdsByClientId(@Param("clientId") Long clientId);
+
+    // Export: one flat row per order line, read through a server-side cursor.
+    // Rows of the same order are contiguous thanks to the ORDER BY.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeExportLigneDTO(" +
+           "c.id, c.date, c.statut, c.montantTotal, cl.email, l.id, p.id, p.nom, l.quantite, l.prixUnitaire) " +
+           "FROM Commande c JOIN c.client cl LEFT JOIN c.lignesCommande l LEFT JOIN l.produit p " +
+           "WHERE c.date BETWEEN :start AND :end ORDER BY c.date, c.id, l.id")
+    Stream<CommandeExportLigneDTO> streamExportByDateBetween(@Param("start") LocalDateTime start,
+                                                             @Param("end") LocalDateTime end);
 }
\ No newline at end of file
@@ -1,12 +1,27 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface FournisseurRepository extends JpaRepository<Fournisseur, Long> {
+    @ReadOnlyQuery
+    @Override
+    List<Fournisseur> findAll();
+
+    @ReadOnlyQuery
     List<Fournisseur> findByNomContainingIgnoreCase(String nom);
-}
+
+    // Name search index: (id, nom) rows read through a cursor at startup
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT f.id, f.nom FROM Fournisseur f ORDER BY f.id")
+    Stream<Object[]> streamIdAndNom();
+}
\ No newline at end of file
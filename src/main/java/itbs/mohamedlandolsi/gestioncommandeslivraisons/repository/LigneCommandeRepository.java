@@ -1,17 +1,38 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface LigneCommandeRepository extends JpaRepository<LigneCommande, Long> {
-    List<LigneCommande> findByCommandeId(Long commandeId);
-    List<LigneCommande> findByProduitId(Long produitId);
-    void deleteByCommandeId(Long commandeId);
-    
-    // Find order lines by multiple product IDs
-    List<LigneCommande> findByProduitIdIn(List<Long> produitIds);
+    @ReadOnlyQuery
+    @Override
+    List<LigneCommande> findAll();
+
+    // Explicit queries on a foreign key: the derived ones outer join the parent and filter on its ID, which bypasses the index
+    @ReadOnlyQuery
+    @Query("SELECT l FROM LigneCommande l WHERE l.commande.id = :commandeId")
+    List<LigneCommande> findByCommandeId(@Param("commandeId") Long commandeId);
+    @ReadOnlyQuery
+    @Query("SELECT l FROM LigneCommande l WHERE l.produit.id = :produitId")
+    List<LigneCommande> findByProduitId(@Param("produitId") Long produitId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM LigneCommande l WHERE l.commande.id = :commandeId")
+    void deleteByCommandeId(@Param("commandeId") Long commandeId);
+
+    // Total quantity per product of an order, as (produitId, quantite) rows by ascending product ID
+    @Query("SELECT l.produit.id, SUM(l.quantite) FROM LigneCommande l WHERE l.commande.id = :commandeId " +
+           "GROUP BY l.produit.id ORDER BY l.produit.id")
+    List<Object[]> sumQuantitesByProduit(@Param("commandeId") Long commandeId);
+
+    // Keyset pagination on id
+    @ReadOnlyQuery
+    List<LigneCommande> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
\ No newline at end of file
@@ -2,17 +2,75 @@ package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface LivraisonRepository extends JpaRepository<Livraison, Long> {
-    List<Livraison> findByCommandeId(Long commandeId);
-    List<Livraison> findByTransporteurId(Long transporteurId);
+    @ReadOnlyQuery
+    @Override
+    List<Livraison> findAll();
+
+    // Explicit queries on a foreign key: the derived ones outer join the parent and filter on its ID, which bypasses the index.
+    // Not read-only: also checked by createLivraisonFromDTO before writing
+    @Query("SELECT l FROM Livraison l WHERE l.commande.id = :commandeId")
+    List<Livraison> findByCommandeId(@Param("commandeId") Long commandeId);
+    // Deleted with their order, which does not map them
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Livraison l WHERE l.commande.id = :commandeId")
+    void deleteByCommandeId(@Param("commandeId") Long commandeId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Livraison l WHERE l.commande.id IN (SELECT c.id FROM Commande c WHERE c.client.id = :clientId)")
+    void deleteByCommandeClientId(@Param("clientId") Long clientId);
+    @ReadOnlyQuery
+    @Query("SELECT l FROM Livraison l WHERE l.transporteur.id = :transporteurId")
+    List<Livraison> findByTransporteurId(@Param("transporteurId") Long transporteurId);
+    @ReadOnlyQuery
     List<Livraison> findByStatut(StatutLivraison statut);
+    @ReadOnlyQuery
     List<Livraison> findByDateLivraisonBetween(LocalDateTime start, LocalDateTime end);
+    @ReadOnlyQuery
     List<Livraison> findByDateLivraisonAfterOrderByDateLivraison(LocalDateTime fromDate);
+
+    // Carrier load counters: (transporteurId, dateLivraison) of every assigned delivery in the given statuses
+    @Query("SELECT l.transporteur.id, l.dateLivraison FROM Livraison l " +
+           "WHERE l.transporteur IS NOT NULL AND l.statut IN :statuts")
+    List<Object[]> findTransporteurAndDateByStatutIn(@Param("statuts") Collection<StatutLivraison> statuts);
+
+    List<Livraison> findByTransporteurIsNullAndStatutInOrderByIdAsc(Collection<StatutLivraison> statuts);
+
+    // Late delivery scheduler: (id, dateLivraison) of the deliveries in the given statuses due up to a time
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id, l.dateLivraison FROM Livraison l " +
+           "WHERE l.statut IN :statuts AND l.dateLivraison <= :until")
+    Stream<Object[]> streamIdAndDateDueBefore(@Param("statuts") Collection<StatutLivraison> statuts,
+                                              @Param("until") LocalDateTime until);
+
+    // Same, for the window the scheduler has not loaded yet
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id, l.dateLivraison FROM Livraison l " +
+           "WHERE l.statut IN :statuts AND l.dateLivraison > :after AND l.dateLivraison <= :until")
+    Stream<Object[]> streamIdAndDateDueBetween(@Param("statuts") Collection<StatutLivraison> statuts,
+                                               @Param("after") LocalDateTime after,
+                                               @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE Livraison l SET l.statut = :statut WHERE l.id IN :ids")
+    int updateStatutByIdIn(@Param("ids") Collection<Long> ids, @Param("statut") StatutLivraison statut);
+
+    // Keyset pagination on id
+    @ReadOnlyQuery
+    List<Livraison> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
\ No newline at end of file
@@ -3,17 +3,98 @@ package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PaiementRepository extends JpaRepository<Paiement, Long> {
-    List<Paiement> findByCommandeId(Long commandeId);
+    @ReadOnlyQuery
+    @Override
+    List<Paiement> findAll();
+
+    // Explicit queries on a foreign key: the derived ones outer join the parent and filter on its ID, which bypasses the index
+    @ReadOnlyQuery
+    @Query("SELECT p FROM Paiement p WHERE p.commande.id = :commandeId")
+    List<Paiement> findByCommandeId(@Param("commandeId") Long commandeId);
+    // Deleted with their order, which does not map them
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Paiement p WHERE p.commande.id = :commandeId")
+    void deleteByCommandeId(@Param("commandeId") Long commandeId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Paiement p WHERE p.commande.id IN (SELECT c.id FROM Commande c WHERE c.client.id = :clientId)")
+    void deleteByCommandeClientId(@Param("clientId") Long clientId);
+    @ReadOnlyQuery
     List<Paiement> findByMode(ModePaiement mode);
+    @ReadOnlyQuery
     List<Paiement> findByStatut(StatutPaiement statut);
+    @ReadOnlyQuery
     List<Paiement> findByDateBetween(LocalDateTime start, LocalDateTime end);
+    @ReadOnlyQuery
     List<Paiement> findByDateAfter(LocalDateTime fromDate);
+
+    // Keyset pagination on id
+    @ReadOnlyQuery
+    List<Paiement> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Bulk processing: id, statut, mode, montantPaye and claim token without loading the order graph
+    @Query("SELECT p.id, p.statut, p.mode, p.montantPaye, p.traitementJeton FROM Paiement p WHERE p.id IN :ids")
+    List<Object[]> findGatewayRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Claims the payments in the given status that hold no claim, or one taken before the expiration
+    @Modifying
+    @Query("UPDATE Paiement p SET p.traitementJeton = :jeton, p.traitementDebut = :debut " +
+           "WHERE p.id IN :ids AND p.statut = :statut AND (p.traitementJeton IS NULL OR p.traitementDebut < :expiration)")
+    int claimByIdInAndStatut(@Param("ids") Collection<Long> ids,
+                             @Param("statut") StatutPaiement statut,
+                             @Param("jeton") String jeton,
+                             @Param("debut") LocalDateTime debut,
+                             @Param("expiration") LocalDateTime expiration);
+
+    @Modifying
+    @Query("UPDATE Paiement p SET p.traitementJeton = NULL, p.traitementDebut = NULL " +
+           "WHERE p.id IN :ids AND p.traitementJeton = :jeton")
+    int releaseClaims(@Param("ids") Collection<Long> ids, @Param("jeton") String jeton);
+
+    @Query("SELECT p.id, p.statut FROM Paiement p WHERE p.id IN :ids")
+    List<Object[]> findStatutsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Payment changes lock the row first, so that the revenue rollup sees each change exactly once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Paiement p WHERE p.id = :id")
+    Optional<Paiement> lockById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Paiement p WHERE p.commande.id = :commandeId")
+    Optional<Paiement> lockByCommandeId(@Param("commandeId") Long commandeId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Paiement p WHERE p.commande.client.id = :clientId ORDER BY p.id")
+    List<Paiement> lockByCommandeClientId(@Param("clientId") Long clientId);
+
+    // id, date, mode, montantPaye of the payments still in the given status and claimed by the run, locked in ID order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id, p.date, p.mode, p.montantPaye FROM Paiement p WHERE p.id IN :ids AND p.statut = :statut " +
+           "AND p.traitementJeton = :jeton ORDER BY p.id")
+    List<Object[]> lockRevenuRowsByIdInAndStatut(@Param("ids") Collection<Long> ids,
+                                                 @Param("statut") StatutPaiement statut,
+                                                 @Param("jeton") String jeton);
+
+    @Modifying
+    @Query("UPDATE Paiement p SET p.statut = :statut, p.traitementJeton = NULL, p.traitementDebut = NULL " +
+           "WHERE p.id IN :ids AND p.statut = :attendu AND p.traitementJeton = :jeton")
+    int updateStatutByIdInAndStatut(@Param("ids") Collection<Long> ids,
+                                    @Param("attendu") StatutPaiement attendu,
+                                    @Param("jeton") String jeton,
+                                    @Param("statut") StatutPaiement statut);
 }
\ No newline at end of file
@@ -1,15 +1,60 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProduitRepository extends JpaRepository<Produit, Long> {
+    @ReadOnlyQuery
+    @Override
+    List<Produit> findAll();
+
+    @ReadOnlyQuery
     List<Produit> findByNomContainingIgnoreCase(String nom);
     
-    // Find products by supplier ID
-    List<Produit> findByFournisseurId(Long fournisseurId);
+    // Find products by supplier ID. Explicit query: the derived one outer joins the supplier and bypasses the index
+    @ReadOnlyQuery
+    @Query("SELECT p FROM Produit p WHERE p.fournisseur.id = :fournisseurId")
+    List<Produit> findByFournisseurId(@Param("fournisseurId") Long fournisseurId);
+
+    // Keyset pagination on id
+    @ReadOnlyQuery
+    List<Produit> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Stock reservations: each statement is a single conditional update, returning 0 when refused
+    @Modifying
+    @Query("UPDATE Produit p SET p.stockReserve = p.stockReserve + :quantite " +
+           "WHERE p.id = :id AND p.stock - p.stockReserve >= :quantite")
+    int reserveStock(@Param("id") Long id, @Param("quantite") int quantite);
+
+    @Modifying
+    @Query("UPDATE Produit p SET p.stockReserve = p.stockReserve - :quantite " +
+           "WHERE p.id = :id AND p.stockReserve >= :quantite")
+    int releaseStock(@Param("id") Long id, @Param("quantite") int quantite);
+
+    // Stock movements outside of orders, as single statements: stock reserved by orders is never removed
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Produit p SET p.stock = p.stock - :quantite " +
+           "WHERE p.id = :id AND p.stock - :quantite >= p.stockReserve")
+    int reduceStock(@Param("id") Long id, @Param("quantite") int quantite);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Produit p SET p.stock = p.stock + :quantite WHERE p.id = :id")
+    int addStock(@Param("id") Long id, @Param("quantite") int quantite);
+
+    // Name search index: (id, nom) rows read through a cursor at startup
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.nom FROM Produit p ORDER BY p.id")
+    Stream<Object[]> streamIdAndNom();
 }
\ No newline at end of file
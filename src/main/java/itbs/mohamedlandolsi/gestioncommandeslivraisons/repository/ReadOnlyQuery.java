@@ -0,0 +1,25 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Loads the entities returned by a repository method read-only: Hibernate keeps no snapshot of
+ * their state and skips them when flushing, which roughly halves the heap held per entity and
+ * removes the dirty check at the end of the transaction. Changes made to these entities are
+ * silently ignored, so only put it on methods that read paths alone call, never on a lookup
+ * whose result a service modifies and saves.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+public @interface ReadOnlyQuery {
+}
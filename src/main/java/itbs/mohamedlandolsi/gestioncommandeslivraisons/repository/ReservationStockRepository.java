@@ -0,0 +1,38 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.ReservationStock;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.ReservationStock.StatutReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservationStockRepository extends JpaRepository<ReservationStock, Long> {
+    // Explicit query on the foreign key: the derived one outer joins the order and bypasses the index
+    @Query("SELECT r FROM ReservationStock r WHERE r.commande.id = :commandeId")
+    List<ReservationStock> findByCommandeId(@Param("commandeId") Long commandeId);
+
+    boolean existsByCommandeId(Long commandeId);
+
+    // Locks the entries so that two concurrent releases or deliveries cannot apply them twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservationStock r WHERE r.commande.id IN :commandeIds AND r.statut = :statut " +
+           "ORDER BY r.produit.id")
+    List<ReservationStock> lockByCommandeIdInAndStatut(@Param("commandeIds") Collection<Long> commandeIds,
+                                                       @Param("statut") StatutReservation statut);
+
+    @Modifying
+    @Query("UPDATE ReservationStock r SET r.statut = :statut WHERE r.id IN :ids")
+    int updateStatutByIdIn(@Param("ids") Collection<Long> ids, @Param("statut") StatutReservation statut);
+
+    @Modifying
+    @Query("DELETE FROM ReservationStock r WHERE r.commande.id IN :commandeIds")
+    int deleteByCommandeIdIn(@Param("commandeIds") Collection<Long> commandeIds);
+}
@@ -0,0 +1,32 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.RevenuTotalDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.RevenuJournalier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenuJournalierRepository extends JpaRepository<RevenuJournalier, RevenuJournalier.Cle> {
+
+    // Null mode or statut match everything; rows whose payments all moved away are skipped
+    @Query("SELECT r FROM RevenuJournalier r WHERE r.jour BETWEEN :start AND :end AND r.nombre <> 0 " +
+           "AND (:mode IS NULL OR r.mode = :mode) AND (:statut IS NULL OR r.statut = :statut) " +
+           "ORDER BY r.jour, r.mode, r.statut")
+    List<RevenuJournalier> findByJourBetween(@Param("start") LocalDate start,
+                                             @Param("end") LocalDate end,
+                                             @Param("mode") ModePaiement mode,
+                                             @Param("statut") StatutPaiement statut);
+
+    @Query("SELECT new itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.RevenuTotalDTO(" +
+           "r.mode, r.statut, SUM(r.nombre), SUM(r.montant)) FROM RevenuJournalier r " +
+           "WHERE r.jour BETWEEN :start AND :end GROUP BY r.mode, r.statut HAVING SUM(r.nombre) <> 0 " +
+           "ORDER BY r.mode, r.statut")
+    List<RevenuTotalDTO> findTotauxByJourBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
@@ -1,12 +1,23 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.repository;
 
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransporteurRepository extends JpaRepository<Transporteur, Long> {
+    @ReadOnlyQuery
     List<Transporteur> findByNomContainingIgnoreCase(String nom);
+
+    // Name search index: (id, nom) rows read through a cursor at startup
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id, t.nom FROM Transporteur t ORDER BY t.id")
+    Stream<Object[]> streamIdAndNom();
 }
\ No newline at end of file
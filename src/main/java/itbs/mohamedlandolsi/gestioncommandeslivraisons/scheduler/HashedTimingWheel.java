@@ -0,0 +1,105 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.scheduler;
+
+import java.util.*;
+
+/**
+ * Hashed timing wheel: a ring of slots, one per tick, where a deadline is stored in the slot of
+ * its tick. Scheduling and canceling are O(1) and each advance only visits the slots of the ticks
+ * that elapsed. The wheel covers one turn ahead of the current tick; later deadlines are refused
+ * and must be scheduled again once the wheel gets close enough.
+ * @param <K> key of the scheduled entries, scheduling a key again replaces its deadline
+ */
+public class HashedTimingWheel<K> {
+
+    private final long tickMillis;
+    private final List<Map<K, Long>> slots;
+    // Key to deadline tick, to find the slot of an entry when it is canceled or rescheduled
+    private final Map<K, Long> deadlines = new HashMap<>();
+    // Last tick whose slot has been expired
+    private long currentTick;
+
+    /**
+     * @param tickMillis duration of one tick
+     * @param wheelSize number of slots, i.e. number of ticks covered ahead of the current one
+     * @param startMillis time the wheel starts at, in epoch milliseconds
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules a key, replacing its previous deadline. A deadline already past expires at the next advance.
+     * @param deadlineMillis time the key expires at, in epoch milliseconds
+     * @return false if the deadline is beyond the wheel's horizon and the key was not scheduled
+     */
+    public synchronized boolean schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Rounded up so that an entry never expires before its deadline
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        if (tick > currentTick + slots.size()) {
+            return false;
+        }
+        slot(tick).put(key, tick);
+        deadlines.put(key, tick);
+        return true;
+    }
+
+    /**
+     * @return true if the key was scheduled
+     */
+    public synchronized boolean cancel(K key) {
+        Long tick = deadlines.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        slot(tick).remove(key);
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward and removes the entries that expired
+     * @param nowMillis current time in epoch milliseconds, earlier times than the last advance are ignored
+     * @return keys whose deadline is at or before nowMillis
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<K> expired = new ArrayList<>();
+        // After a pause longer than a turn, every slot is visited once
+        for (long tick = Math.max(currentTick + 1, targetTick - slots.size() + 1); tick <= targetTick; tick++) {
+            Iterator<Map.Entry<K, Long>> entries = slot(tick).entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<K, Long> entry = entries.next();
+                if (entry.getValue() <= targetTick) {
+                    expired.add(entry.getKey());
+                    deadlines.remove(entry.getKey());
+                    entries.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    /**
+     * @return latest deadline the wheel accepts, in epoch milliseconds
+     */
+    public synchronized long getHorizonMillis() {
+        return (currentTick + slots.size()) * tickMillis;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    private Map<K, Long> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
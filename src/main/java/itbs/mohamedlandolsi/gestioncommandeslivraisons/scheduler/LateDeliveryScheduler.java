@@ -0,0 +1,221 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.scheduler;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.TransporteurAssignmentService;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.TransporteurAssignmentService.LoadKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Moves active deliveries to RETARDEE once their dateLivraison has passed. Due dates sit in a
+ * hashed timing wheel, so a tick only looks at the deliveries that just became late instead of
+ * scanning the table. The wheel is filled from the database one window at a time as it turns, and
+ * {@link #schedule(Livraison)} keeps it in step with deliveries created or rescheduled in between.
+ */
+@Component
+public class LateDeliveryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LateDeliveryScheduler.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    // Locks the late deliveries that are still active and due, and reads what their load counter needs
+    private static final String LOCK_OVERDUE_SQL = "SELECT id, transporteur_id, date_livraison FROM livraison "
+            + "WHERE id IN (:ids) AND statut IN (:statuts) AND date_livraison <= :now ORDER BY id FOR UPDATE";
+    private static final String FIND_RESCHEDULED_SQL = "SELECT id, date_livraison FROM livraison "
+            + "WHERE id IN (:ids) AND statut IN (:statuts) AND date_livraison > :now";
+
+    private final LivraisonRepository livraisonRepository;
+    private final TransporteurAssignmentService transporteurAssignmentService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final long tickMillis;
+    private final int wheelSize;
+
+    // Not synchronized: a virtual thread blocked on JDBC inside a monitor would pin its carrier thread
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile HashedTimingWheel<Long> wheel;
+    // Deliveries due up to this date have been read into the wheel
+    private LocalDateTime loadedUntil;
+
+    @Autowired
+    public LateDeliveryScheduler(
+            LivraisonRepository livraisonRepository,
+            TransporteurAssignmentService transporteurAssignmentService,
+            NamedParameterJdbcTemplate jdbcTemplate,
+            @Value("${livraison.retard.tick-ms:60000}") long tickMillis,
+            @Value("${livraison.retard.wheel-size:1440}") int wheelSize) {
+        this.livraisonRepository = livraisonRepository;
+        this.transporteurAssignmentService = transporteurAssignmentService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.wheel = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts a new wheel and loads the active deliveries due within its horizon, including those already late
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reload() {
+        sweepLock.lock();
+        try {
+            HashedTimingWheel<Long> reloaded = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+            LocalDateTime horizon = toDate(reloaded.getHorizonMillis());
+            int loaded;
+            try (Stream<Object[]> rows = livraisonRepository.streamIdAndDateDueBefore(
+                    TransporteurAssignmentService.ACTIVE_STATUSES, horizon)) {
+                loaded = scheduleAll(reloaded, rows);
+            }
+            wheel = reloaded;
+            loadedUntil = horizon;
+            log.info("Loaded {} deliveries due before {} into the late delivery wheel", loaded, horizon);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${livraison.retard.tick-ms:60000}",
+            initialDelayString = "${livraison.retard.tick-ms:60000}")
+    @Transactional
+    public void tick() {
+        tick(LocalDateTime.now());
+    }
+
+    /**
+     * Flags the deliveries due at or before now and loads those entering the wheel's horizon
+     * @return number of deliveries moved to RETARDEE
+     */
+    @Transactional
+    public int tick(LocalDateTime now) {
+        sweepLock.lock();
+        try {
+            List<Long> expired = wheel.advance(toMillis(now));
+            int flagged = 0;
+            for (int from = 0; from < expired.size(); from += BATCH_SIZE) {
+                flagged += flagLate(expired.subList(from, Math.min(from + BATCH_SIZE, expired.size())), now);
+            }
+            if (flagged > 0) {
+                log.info("Flagged {} late deliveries", flagged);
+            }
+
+            LocalDateTime horizon = toDate(wheel.getHorizonMillis());
+            if (horizon.isAfter(loadedUntil)) {
+                try (Stream<Object[]> rows = livraisonRepository.streamIdAndDateDueBetween(
+                        TransporteurAssignmentService.ACTIVE_STATUSES, loadedUntil, horizon)) {
+                    scheduleAll(wheel, rows);
+                }
+                loadedUntil = horizon;
+            }
+            return flagged;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Puts a saved delivery on the wheel, or takes it off if it is no longer active or has no date.
+     * Inside a transaction, this happens once it commits.
+     */
+    public void schedule(Livraison livraison) {
+        Long id = livraison.getId();
+        LocalDateTime dateLivraison = livraison.getDateLivraison();
+        boolean due = dateLivraison != null && TransporteurAssignmentService.ACTIVE_STATUSES.contains(livraison.getStatut());
+        afterCommit(() -> {
+            if (due) {
+                // Beyond the horizon, the delivery is read from the database when the wheel gets there
+                wheel.schedule(id, toMillis(dateLivraison));
+            } else {
+                wheel.cancel(id);
+            }
+        });
+    }
+
+    public void cancel(Long livraisonId) {
+        afterCommit(() -> wheel.cancel(livraisonId));
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    private int flagLate(List<Long> ids, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("statuts", TransporteurAssignmentService.ACTIVE_STATUSES.stream().map(Enum::name).toList())
+                .addValue("now", now);
+        List<Long> late = new ArrayList<>();
+        jdbcTemplate.query(LOCK_OVERDUE_SQL, params, rs -> {
+            late.add(rs.getLong("id"));
+            Long transporteurId = rs.getObject("transporteur_id", Long.class);
+            if (transporteurId != null) {
+                // RETARDEE is not an active status: the delivery leaves its carrier's load
+                LocalDateTime dateLivraison = rs.getObject("date_livraison", LocalDateTime.class);
+                transporteurAssignmentService.track(new LoadKey(transporteurId, dateLivraison.toLocalDate()), null);
+            }
+        });
+        if (!late.isEmpty()) {
+            livraisonRepository.updateStatutByIdIn(late, StatutLivraison.RETARDEE);
+        }
+
+        // A wheel entry can be older than the delivery's date, e.g. when a reload read it before a reschedule
+        if (late.size() < ids.size()) {
+            jdbcTemplate.query(FIND_RESCHEDULED_SQL, params, rs -> {
+                wheel.schedule(rs.getLong("id"), toMillis(rs.getObject("date_livraison", LocalDateTime.class)));
+            });
+        }
+        return late.size();
+    }
+
+    private static int scheduleAll(HashedTimingWheel<Long> target, Stream<Object[]> rows) {
+        int count = 0;
+        for (Iterator<Object[]> it = rows.iterator(); it.hasNext(); ) {
+            Object[] row = it.next();
+            if (target.schedule((Long) row[0], toMillis((LocalDateTime) row[1]))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long toMillis(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDate(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
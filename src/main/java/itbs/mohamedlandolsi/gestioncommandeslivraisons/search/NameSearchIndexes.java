@@ -0,0 +1,84 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.search;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.FournisseurRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.TransporteurRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Trigram indexes over the names of products, clients, suppliers and carriers.
+ * They are loaded once the application is ready and kept up to date by the services once a save or delete commits.
+ */
+@Component
+public class NameSearchIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(NameSearchIndexes.class);
+
+    private final NgramIndex produits = new NgramIndex("produits");
+    private final NgramIndex clients = new NgramIndex("clients");
+    private final NgramIndex fournisseurs = new NgramIndex("fournisseurs");
+    private final NgramIndex transporteurs = new NgramIndex("transporteurs");
+
+    private final ProduitRepository produitRepository;
+    private final ClientRepository clientRepository;
+    private final FournisseurRepository fournisseurRepository;
+    private final TransporteurRepository transporteurRepository;
+
+    @Autowired
+    public NameSearchIndexes(
+            ProduitRepository produitRepository,
+            ClientRepository clientRepository,
+            FournisseurRepository fournisseurRepository,
+            TransporteurRepository transporteurRepository) {
+        this.produitRepository = produitRepository;
+        this.clientRepository = clientRepository;
+        this.fournisseurRepository = fournisseurRepository;
+        this.transporteurRepository = transporteurRepository;
+    }
+
+    public NgramIndex produits() {
+        return produits;
+    }
+
+    public NgramIndex clients() {
+        return clients;
+    }
+
+    public NgramIndex fournisseurs() {
+        return fournisseurs;
+    }
+
+    public NgramIndex transporteurs() {
+        return transporteurs;
+    }
+
+    /**
+     * Loads every index from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildAll() {
+        rebuild(produits, produitRepository::streamIdAndNom);
+        rebuild(clients, clientRepository::streamIdAndNom);
+        rebuild(fournisseurs, fournisseurRepository::streamIdAndNom);
+        rebuild(transporteurs, transporteurRepository::streamIdAndNom);
+    }
+
+    private void rebuild(NgramIndex index, Supplier<Stream<Object[]>> rows) {
+        long start = System.nanoTime();
+        try (Stream<Object[]> stream = rows.get()) {
+            index.rebuild(stream.iterator());
+        }
+        log.info("Indexed {} {} names in {} ms", index.size(), index.getName(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,343 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.search;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram inverted index over the names of one entity type. A query of three
+ * characters or more is answered by intersecting the posting lists of its trigrams and checking
+ * the candidates against the indexed names, which gives the same rows as
+ * {@code LIKE '%query%'} without scanning the table. Names are compared lowercased and without
+ * accents, as the MySQL collation does.
+ */
+public class NgramIndex {
+
+    public static final int GRAM_SIZE = 3;
+
+    // Identifiers loaded per query when turning matches into entities
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final String name;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    public NgramIndex(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes or re-indexes a name
+     * @param id entity ID
+     * @param value name, null removes the entity from the index
+     */
+    public void put(Long id, String value) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            if (value != null) {
+                addUnlocked(id, normalize(value));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@link #put} once the current transaction commits, right away outside of one. A rolled back
+     * save leaves the index as it was.
+     */
+    public void putAfterCommit(Long id, String value) {
+        afterCommit(() -> put(id, value));
+    }
+
+    /**
+     * {@link #remove} once the current transaction commits, right away outside of one
+     */
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Replaces the whole content of the index
+     * @param rows (id, name) pairs, preferably by ascending ID so that posting lists are appended to
+     */
+    public void rebuild(Iterator<Object[]> rows) {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            postings.clear();
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                if (row[0] != null && row[1] != null) {
+                    addUnlocked((Long) row[0], normalize((String) row[1]));
+                }
+            }
+            postings.values().forEach(PostingList::trim);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param query raw query
+     * @return true if the query is long enough to be answered by the index
+     */
+    public static boolean isIndexable(String query) {
+        return query != null && normalize(query).length() >= GRAM_SIZE;
+    }
+
+    /**
+     * Finds the entities whose name contains the query
+     * @param query raw query of at least {@link #GRAM_SIZE} characters
+     * @return matching IDs, ascending
+     */
+    public List<Long> findIds(String query) {
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.length() < GRAM_SIZE) {
+            throw new IllegalArgumentException("Query must contain at least " + GRAM_SIZE + " characters");
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>();
+            for (String gram : grams(normalizedQuery)) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            // Intersect from the rarest trigram, then drop candidates whose trigrams are not contiguous
+            List<Long> result = new ArrayList<>();
+            PostingList rarest = lists.get(0);
+            for (int i = 0; i < rarest.size(); i++) {
+                long id = rarest.get(i);
+                boolean inAll = true;
+                for (int j = 1; j < lists.size() && inAll; j++) {
+                    inAll = lists.get(j).contains(id);
+                }
+                if (inAll && names.get(id).contains(normalizedQuery)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches entities by name, best matches first. Short queries, which have no trigram,
+     * go to the fallback query instead of the index.
+     * @param query raw query
+     * @param loader loads entities by ID
+     * @param fallback substring query run by the database
+     * @param nameOf name of an entity
+     * @return matching entities ranked by {@link #matchRank(String, String)}, then by name length
+     */
+    public <T> List<T> search(String query, Function<List<Long>, List<T>> loader,
+                              Function<String, List<T>> fallback, Function<T, String> nameOf) {
+        if (query == null) {
+            return List.of();
+        }
+        List<T> rows;
+        if (isIndexable(query)) {
+            List<Long> ids = findIds(query);
+            rows = new ArrayList<>(ids.size());
+            for (int start = 0; start < ids.size(); start += LOAD_CHUNK_SIZE) {
+                rows.addAll(loader.apply(ids.subList(start, Math.min(start + LOAD_CHUNK_SIZE, ids.size()))));
+            }
+        } else {
+            rows = fallback.apply(query);
+        }
+        return rank(rows, query, nameOf);
+    }
+
+    /**
+     * Keeps the entities whose current name contains the query and orders them by match quality.
+     * The check also guards against an index entry left behind by a rolled back write.
+     */
+    static <T> List<T> rank(List<T> rows, String query, Function<T, String> nameOf) {
+        String normalizedQuery = normalize(query);
+        List<Ranked<T>> ranked = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            String value = nameOf.apply(row);
+            if (value != null) {
+                String normalizedName = normalize(value);
+                int rank = matchRank(normalizedName, normalizedQuery);
+                if (rank >= 0) {
+                    ranked.add(new Ranked<>(row, rank, normalizedName.length()));
+                }
+            }
+        }
+        ranked.sort(Comparator.<Ranked<T>>comparingInt(Ranked::rank).thenComparingInt(Ranked::length));
+        List<T> result = new ArrayList<>(ranked.size());
+        ranked.forEach(entry -> result.add(entry.row()));
+        return result;
+    }
+
+    /**
+     * Match quality of a normalized name: 0 equal, 1 prefix, 2 start of a word, 3 anywhere else
+     * @return the rank, -1 if the name does not contain the query
+     */
+    static int matchRank(String normalizedName, String normalizedQuery) {
+        if (normalizedName.equals(normalizedQuery)) {
+            return 0;
+        }
+        if (normalizedName.startsWith(normalizedQuery)) {
+            return 1;
+        }
+        int position = normalizedName.indexOf(normalizedQuery);
+        if (position < 0) {
+            return -1;
+        }
+        while (position > 0) {
+            if (!Character.isLetterOrDigit(normalizedName.charAt(position - 1))) {
+                return 2;
+            }
+            position = normalizedName.indexOf(normalizedQuery, position + 1);
+        }
+        return 3;
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private void addUnlocked(long id, String normalized) {
+        names.put(id, normalized);
+        for (String gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+
+    private void removeUnlocked(long id) {
+        String previous = names.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private record Ranked<T>(T row, int rank, int length) {
+    }
+
+    /**
+     * Sorted array of IDs. IDs mostly arrive in ascending order, so adding is usually an append.
+     */
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                position = -position - 1;
+                System.arraycopy(ids, position, ids, position + 1, size - position);
+                ids[position] = id;
+            } else {
+                ids[size] = id;
+            }
+            size++;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        // Releases the spare capacity left by a bulk load
+        void trim() {
+            ids = Arrays.copyOf(ids, Math.max(size, 1));
+        }
+    }
+}
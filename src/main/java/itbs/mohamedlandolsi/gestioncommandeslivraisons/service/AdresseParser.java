@@ -0,0 +1,118 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the city and the postal code from a free-text address, so that they can be stored
+ * in their own indexed columns. Handles the usual French and Tunisian layouts, with the parts
+ * separated by commas or line breaks: "12 rue de la Paix, 75002 Paris", "1053 Tunis",
+ * "Sousse 4000", optionally followed by a country. Cities are normalized the postal way:
+ * upper case, no accents, single spaces.
+ */
+public final class AdresseParser {
+
+    // 4 digits (Tunisia, Belgium, Switzerland) or 5 digits (France, Morocco, Algeria); street numbers are shorter
+    private static final Pattern CODE_POSTAL = Pattern.compile("(?<![\\d-])(\\d{4,5})(?![\\d-])");
+    private static final Pattern CEDEX = Pattern.compile("\\s+CEDEX(\\s+\\d+)?$");
+    private static final Pattern SEPARATORS = Pattern.compile("[,;\\n\\r]+");
+    private static final Set<String> PAYS = Set.of("FRANCE", "TUNISIE", "TUNISIA", "BELGIQUE", "SUISSE",
+            "MAROC", "ALGERIE", "LUXEMBOURG");
+
+    public record Adresse(String ville, String codePostal) {
+    }
+
+    private AdresseParser() {
+    }
+
+    /**
+     * @param adresse free-text address, may be null
+     * @return the city and the postal code, each null when not found
+     */
+    public static Adresse parse(String adresse) {
+        if (adresse == null || adresse.isBlank()) {
+            return new Adresse(null, null);
+        }
+        List<String> parties = new ArrayList<>();
+        for (String partie : SEPARATORS.split(adresse)) {
+            String normalisee = normalize(partie);
+            if (!normalisee.isEmpty()) {
+                parties.add(normalisee);
+            }
+        }
+        if (!parties.isEmpty() && PAYS.contains(parties.get(parties.size() - 1))) {
+            parties.remove(parties.size() - 1);
+        }
+
+        // The postal code sits in one of the last parts, next to the city
+        for (int i = parties.size() - 1; i >= 0; i--) {
+            Matcher matcher = CODE_POSTAL.matcher(parties.get(i));
+            String codePostal = null;
+            int debut = 0;
+            int fin = 0;
+            while (matcher.find()) {
+                codePostal = matcher.group(1);
+                debut = matcher.start();
+                fin = matcher.end();
+            }
+            if (codePostal == null) {
+                continue;
+            }
+            String partie = parties.get(i);
+            String apres = partie.substring(fin).trim();
+            String avant = partie.substring(0, debut).trim();
+            String ville;
+            if (!apres.isEmpty()) {
+                ville = apres;
+            } else if (!avant.isEmpty() && !containsDigit(avant)) {
+                ville = avant;
+            } else if (i + 1 < parties.size()) {
+                ville = parties.get(i + 1);
+            } else {
+                ville = null;
+            }
+            return new Adresse(cleanVille(ville), codePostal);
+        }
+
+        // No postal code: after a street part, a last part without digits is taken as the city
+        if (parties.size() > 1) {
+            return new Adresse(cleanVille(parties.get(parties.size() - 1)), null);
+        }
+        return new Adresse(null, null);
+    }
+
+    /**
+     * Normalizes a city the way it is stored, for exact lookups
+     * @param ville city as typed by the user
+     * @return upper case city without accents, or null if blank
+     */
+    public static String normalizeVille(String ville) {
+        if (ville == null) {
+            return null;
+        }
+        String normalisee = normalize(ville);
+        return normalisee.isEmpty() ? null : normalisee;
+    }
+
+    private static String cleanVille(String ville) {
+        if (ville == null) {
+            return null;
+        }
+        String nettoyee = CEDEX.matcher(ville).replaceFirst("").trim();
+        return nettoyee.isEmpty() || containsDigit(nettoyee) ? null : nettoyee;
+    }
+
+    private static String normalize(String value) {
+        String sansAccents = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sansAccents.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    private static boolean containsDigit(String value) {
+        return value.chars().anyMatch(Character::isDigit);
+    }
+}
@@ -1,58 +1,130 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ClientDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.search.NameSearchIndexes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class ClientService {
 
     private final ClientRepository clientRepository;
+    private final CommandeRepository commandeRepository;
+    private final LivraisonRepository livraisonRepository;
+    private final PaiementRepository paiementRepository;
+    private final NameSearchIndexes nameSearchIndexes;
+    private final RevenuJournalierService revenuJournalierService;
+    private final StockReservationService stockReservationService;
 
     @Autowired
-    public ClientService(ClientRepository clientRepository) {
+    public ClientService(
+            ClientRepository clientRepository,
+            CommandeRepository commandeRepository,
+            LivraisonRepository livraisonRepository,
+            PaiementRepository paiementRepository,
+            NameSearchIndexes nameSearchIndexes,
+            RevenuJournalierService revenuJournalierService,
+            StockReservationService stockReservationService) {
         this.clientRepository = clientRepository;
+        this.commandeRepository = commandeRepository;
+        this.livraisonRepository = livraisonRepository;
+        this.paiementRepository = paiementRepository;
+        this.nameSearchIndexes = nameSearchIndexes;
+        this.revenuJournalierService = revenuJournalierService;
+        this.stockReservationService = stockReservationService;
     }
 
-    public List<Client> getAllClients() {
-        return clientRepository.findAll();
+    public List<ClientDTO> getAllClients() {
+        return clientRepository.findAll().stream().map(ClientDTO::of).toList();
     }
 
-    public Optional<Client> getClientById(Long id) {
-        return clientRepository.findById(id);
+    public CursorPageDTO<ClientDTO> getClientsPage(String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        Long afterId = CursorCodec.decodeId(cursor);
+        List<Client> rows = clientRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize, client -> CursorCodec.encodeId(client.getId())).map(ClientDTO::of);
     }
 
+    public Optional<ClientDTO> getClientById(Long id) {
+        return clientRepository.findById(id).map(ClientDTO::of);
+    }
+
+    @Transactional
     public Client saveClient(Client client) {
-        return clientRepository.save(client);
+        client.setEmail(normalizeEmail(client.getEmail()));
+        AdresseParser.Adresse adresse = AdresseParser.parse(client.getAdresse());
+        client.setVille(adresse.ville());
+        client.setCodePostal(adresse.codePostal());
+        Client saved = clientRepository.save(client);
+        nameSearchIndexes.clients().putAfterCommit(saved.getId(), saved.getNom());
+        return saved;
     }
 
+    @Transactional
     public void deleteClient(Long id) {
+        // The client's orders, their deliveries and their payments are deleted with it.
+        // Stock still reserved by the orders is given back and their ledger entries go first.
+        stockReservationService.deleteForCommandes(commandeRepository.findIdsByClientId(id));
+        revenuJournalierService.untrackClient(id);
+        livraisonRepository.deleteByCommandeClientId(id);
+        paiementRepository.deleteByCommandeClientId(id);
         clientRepository.deleteById(id);
+        nameSearchIndexes.clients().removeAfterCommit(id);
     }
 
+    @Transactional
     public boolean existsById(Long id) {
         return clientRepository.existsById(id);
     }
 
-    public List<Client> searchClientsByName(String query) {
-        return clientRepository.findByNomContainingIgnoreCase(query);
+    public List<ClientDTO> searchClientsByName(String query) {
+        return nameSearchIndexes.clients().search(query, clientRepository::findAllById,
+                clientRepository::findByNomContainingIgnoreCase, Client::getNom).stream().map(ClientDTO::of).toList();
+    }
+
+    /**
+     * Clients whose address is in the given city (case and accents ignored)
+     * @param city city name
+     * @return matching clients by ascending ID
+     */
+    public List<ClientDTO> getClientsByCity(String city) {
+        String ville = AdresseParser.normalizeVille(city);
+        return ville != null
+                ? clientRepository.findByVilleOrderByIdAsc(ville).stream().map(ClientDTO::of).toList()
+                : List.of();
     }
 
-    public List<Client> getClientsByCity(String city) {
-        // Assuming client address contains city information
-        return clientRepository.findByAdresseContainingIgnoreCase(city);
+    /**
+     * Clients whose postal code starts with the given digits ("75" for all of Paris, "75002" for one code)
+     * @param postalCode postal code or prefix
+     * @return matching clients by ascending ID
+     */
+    public List<ClientDTO> getClientsByPostalCode(String postalCode) {
+        String prefix = postalCode != null ? postalCode.trim() : "";
+        return prefix.isEmpty() ? List.of()
+                : clientRepository.findByCodePostalStartingWithOrderByIdAsc(prefix).stream().map(ClientDTO::of).toList();
     }
 
-    public List<Client> getClientsByPostalCode(String postalCode) {
-        // Assuming client address contains postal code
-        return clientRepository.findByAdresseContainingIgnoreCase(postalCode);
+    public Optional<ClientDTO> getClientByEmail(String email) {
+        return clientRepository.findByEmail(normalizeEmail(email)).map(ClientDTO::of);
     }
 
-    public Optional<Client> getClientByEmail(String email) {
-        return clientRepository.findByEmailIgnoreCase(email);
+    // Case-insensitive lookups go through the index on the stored, normalized email
+    private static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
     }
 }
\ No newline at end of file
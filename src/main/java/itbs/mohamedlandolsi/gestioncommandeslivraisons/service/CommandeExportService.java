@@ -0,0 +1,134 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeExportLigneDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders of a period as CSV or NDJSON. Rows are read through a database cursor
+ * and written as they arrive, so memory use does not depend on the size of the period.
+ */
+@Service
+public class CommandeExportService {
+
+    public enum ExportFormat {
+        CSV, NDJSON
+    }
+
+    private static final String CSV_HEADER =
+            "commande_id,date,statut,montant_total,client_email,ligne_id,produit_id,produit_nom,quantite,prix_unitaire";
+
+    private final CommandeRepository commandeRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CommandeExportService(CommandeRepository commandeRepository, ObjectMapper objectMapper) {
+        this.commandeRepository = commandeRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the orders placed between two dates, with their lines and client email
+     * @param start start of the period (inclusive)
+     * @param end end of the period (inclusive)
+     * @param format output format
+     * @param outputStream destination, left open
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public void exportCommandes(LocalDateTime start, LocalDateTime end, ExportFormat format,
+                                OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        try (Stream<CommandeExportLigneDTO> rows = commandeRepository.streamExportByDateBetween(start, end)) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(rows.iterator(), writer);
+            } else {
+                writeNdjson(rows.iterator(), writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Iterator<CommandeExportLigneDTO> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            CommandeExportLigneDTO row = rows.next();
+            writer.write(String.join(",",
+                    csv(row.getCommandeId()), csv(row.getDate()), csv(row.getStatut()), csv(row.getMontantTotal()),
+                    csv(row.getClientEmail()), csv(row.getLigneId()), csv(row.getProduitId()),
+                    csv(row.getProduitNom()), csv(row.getQuantite()), csv(row.getPrixUnitaire())));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes one JSON object per order. Lines of the same order arrive next to each other,
+     * so only the order being written is held in memory.
+     */
+    private void writeNdjson(Iterator<CommandeExportLigneDTO> rows, Writer writer) throws IOException {
+        Map<String, Object> current = null;
+        while (rows.hasNext()) {
+            CommandeExportLigneDTO row = rows.next();
+            if (current == null || !row.getCommandeId().equals(current.get("id"))) {
+                if (current != null) {
+                    writeJsonLine(current, writer);
+                }
+                current = new LinkedHashMap<>();
+                current.put("id", row.getCommandeId());
+                current.put("date", row.getDate());
+                current.put("statut", row.getStatut());
+                current.put("montantTotal", row.getMontantTotal());
+                current.put("clientEmail", row.getClientEmail());
+                current.put("lignes", new ArrayList<Map<String, Object>>());
+            }
+            if (row.getLigneId() != null) {
+                Map<String, Object> ligne = new LinkedHashMap<>();
+                ligne.put("id", row.getLigneId());
+                ligne.put("produitId", row.getProduitId());
+                ligne.put("produitNom", row.getProduitNom());
+                ligne.put("quantite", row.getQuantite());
+                ligne.put("prixUnitaire", row.getPrixUnitaire());
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> lignes = (List<Map<String, Object>>) current.get("lignes");
+                lignes.add(ligne);
+            }
+        }
+        if (current != null) {
+            writeJsonLine(current, writer);
+        }
+    }
+
+    private void writeJsonLine(Map<String, Object> commande, Writer writer) throws IOException {
+        writer.write(objectMapper.writeValueAsString(commande));
+        writer.write('\n');
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -1,15 +1,28 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeBatchResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeStatutBulkResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeSummaryDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.StatutChangeEventDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.exception.CommandeValidationException;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
-import jakarta.transaction.Transactional;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,44 +30,206 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@Transactional(readOnly = true)
 public class CommandeService {
 
+    /**
+     * Upper bound on the number of orders accepted by {@link #saveCommandesBatch(List)}
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Allowed status transitions. LIVREE and ANNULEE are final states.
+     */
+    private static final Map<StatutCommande, Set<StatutCommande>> ALLOWED_TRANSITIONS = new EnumMap<>(Map.of(
+            StatutCommande.EN_ATTENTE, EnumSet.of(StatutCommande.VALIDEE, StatutCommande.ANNULEE),
+            StatutCommande.VALIDEE, EnumSet.of(StatutCommande.EN_PREPARATION, StatutCommande.ANNULEE),
+            StatutCommande.EN_PREPARATION, EnumSet.of(StatutCommande.EXPEDIEE, StatutCommande.ANNULEE),
+            StatutCommande.EXPEDIEE, EnumSet.of(StatutCommande.LIVREE),
+            StatutCommande.LIVREE, EnumSet.noneOf(StatutCommande.class),
+            StatutCommande.ANNULEE, EnumSet.noneOf(StatutCommande.class)));
+
     private final CommandeRepository commandeRepository;
     private final ClientRepository clientRepository;
+    private final LivraisonRepository livraisonRepository;
+    private final PaiementRepository paiementRepository;
     private final ProduitService produitService;
     private final LigneCommandeService ligneCommandeService;
+    private final StockReservationService stockReservationService;
+    private final RevenuJournalierService revenuJournalierService;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
 
     @Autowired
     public CommandeService(
             CommandeRepository commandeRepository, 
             ClientRepository clientRepository,
+            LivraisonRepository livraisonRepository,
+            PaiementRepository paiementRepository,
             ProduitService produitService,
-            LigneCommandeService ligneCommandeService) {
+            LigneCommandeService ligneCommandeService,
+            StockReservationService stockReservationService,
+            RevenuJournalierService revenuJournalierService,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
         this.commandeRepository = commandeRepository;
         this.clientRepository = clientRepository;
+        this.livraisonRepository = livraisonRepository;
+        this.paiementRepository = paiementRepository;
         this.produitService = produitService;
         this.ligneCommandeService = ligneCommandeService;
+        this.stockReservationService = stockReservationService;
+        this.revenuJournalierService = revenuJournalierService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    public List<CommandeDTO> getAllCommandes() {
+        return commandeRepository.findAll().stream().map(CommandeDTO::of).toList();
     }
 
-    public List<Commande> getAllCommandes() {
-        return commandeRepository.findAll();
+    /**
+     * Returns one page of orders, newest first, using keyset pagination on (date, id)
+     * so that deep pages cost the same as the first one
+     * @param cursor cursor returned with the previous page, null for the first page
+     * @param limit page size, null for the default
+     * @return the page and the cursor of the next one
+     */
+    public CursorPageDTO<CommandeDTO> getCommandesPage(String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        CursorCodec.DateIdCursor position = CursorCodec.decodeDateAndId(cursor);
+        List<Commande> rows = position == null
+                ? commandeRepository.findAllByOrderByDateDescIdDesc(Limit.of(pageSize + 1))
+                : commandeRepository.findPageBefore(position.date(), position.id(), Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize,
+                commande -> CursorCodec.encodeDateAndId(commande.getDate(), commande.getId())).map(CommandeDTO::of);
     }
 
-    public Optional<Commande> getCommandeById(Long id) {
-        return commandeRepository.findById(id);
+    public Optional<CommandeDTO> getCommandeById(Long id) {
+        return commandeRepository.findById(id).map(CommandeDTO::of);
     }
 
     /**
-     * Creates a new order with comprehensive validation workflow
+     * Creates a new order with comprehensive validation workflow.
+     * The stock of the ordered products is reserved until the order is delivered or canceled.
      * @param commande the order to validate and save
      * @return saved order
-     * @throws CommandeValidationException if validation fails
-     * @throws IllegalStateException if stock is insufficient
+     * @throws CommandeValidationException if validation fails or stock is insufficient
      */
     @Transactional
     public Commande saveCommande(Commande commande) {
+        // An updated order gives back what it held before claiming its new quantities
+        if (commande.getId() != null) {
+            stockReservationService.releaseForCommandes(List.of(commande.getId()));
+        }
+
         validateFullOrder(commande);
+        prepareForSave(commande);
+
+        // Reserve the stock; the in-memory check above can be overtaken by a concurrent order.
+        // Delivered and canceled orders no longer hold any stock.
+        boolean holdsStock = commande.getStatut() != StatutCommande.LIVREE
+                && commande.getStatut() != StatutCommande.ANNULEE;
+        Map<Long, Integer> productQuantities = aggregateQuantities(commande.getLignesCommande());
+        if (holdsStock) {
+            reserveStock(productQuantities);
+        }
         
+        // Save the order
+        Commande saved = commandeRepository.save(commande);
+        if (holdsStock) {
+            stockReservationService.recordReservations(saved, productQuantities);
+        }
+        return saved;
+    }
+
+    /**
+     * Reserves stock for an order with atomic conditional updates
+     * @param productQuantities total quantity requested per product ID
+     * @throws CommandeValidationException if a product no longer has enough available stock
+     */
+    private void reserveStock(Map<Long, Integer> productQuantities) {
+        List<Long> shortProducts = stockReservationService.tryReserve(productQuantities);
+        if (!shortProducts.isEmpty()) {
+            String productList = produitService.getProduitsByIds(shortProducts).stream()
+                    .map(Produit::getNom)
+                    .collect(Collectors.joining(", "));
+            throw new CommandeValidationException("Insufficient stock for products: " + productList);
+        }
+    }
+
+    /**
+     * Creates many orders at once. Each order goes through the same checks as
+     * {@link #saveCommande(Commande)}, but clients and products are loaded once for the whole
+     * batch and the valid orders are inserted with JDBC batching. Invalid orders are reported
+     * and skipped without affecting the others. Stock is reserved order by order, so an order
+     * losing a race with a concurrent one is rejected instead of overselling.
+     * @param commandes the orders to create
+     * @return per-order outcome, in request order
+     * @throws IllegalArgumentException if the batch exceeds {@link #MAX_BATCH_SIZE}
+     */
+    @Transactional
+    public CommandeBatchResultDTO saveCommandesBatch(List<Commande> commandes) {
+        if (commandes.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_BATCH_SIZE + " orders");
+        }
+
+        // Load every referenced client and product with one query each
+        Map<Long, Client> clients = clientRepository.findAllById(collectClientIds(commandes)).stream()
+                .collect(Collectors.toMap(Client::getId, client -> client));
+        Map<Long, Produit> produits = produitService.getProduitsByIds(collectProduitIds(commandes)).stream()
+                .collect(Collectors.toMap(Produit::getId, produit -> produit));
+
+        // Stock left once the orders accepted earlier in the batch are accounted for
+        Map<Long, Integer> stockRestant = new HashMap<>();
+        produits.values().forEach(produit -> stockRestant.put(produit.getId(), produit.getStockDisponible()));
+
+        Map<Integer, String> erreurs = new HashMap<>();
+        List<Commande> valides = new ArrayList<>();
+        List<Map<Long, Integer>> reservations = new ArrayList<>();
+        for (int i = 0; i < commandes.size(); i++) {
+            Commande commande = commandes.get(i);
+            try {
+                Map<Long, Integer> productQuantities = validateOrderForBatch(commande, clients, produits, stockRestant);
+                prepareForSave(commande);
+                valides.add(commande);
+                reservations.add(productQuantities);
+            } catch (CommandeValidationException e) {
+                erreurs.put(i, e.getMessage());
+            }
+        }
+
+        // Insert chunk by chunk so each flush maps onto full JDBC batches
+        for (int start = 0; start < valides.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, valides.size());
+            commandeRepository.saveAll(valides.subList(start, end));
+            for (int i = start; i < end; i++) {
+                stockReservationService.recordReservations(valides.get(i), reservations.get(i));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        CommandeBatchResultDTO result = new CommandeBatchResultDTO();
+        result.setTotal(commandes.size());
+        for (int i = 0; i < commandes.size(); i++) {
+            if (erreurs.containsKey(i)) {
+                result.addEchec(i, erreurs.get(i));
+            } else {
+                result.addSucces(i, commandes.get(i).getId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fills in the defaults and computed fields of an order before it is persisted
+     * @param commande the validated order
+     */
+    private void prepareForSave(Commande commande) {
         // Set initial status if not already set
         if (commande.getStatut() == null) {
             commande.setStatut(StatutCommande.EN_ATTENTE);
@@ -70,9 +245,70 @@ public class CommandeService {
             BigDecimal total = calculateOrderTotal(commande.getLignesCommande());
             commande.setMontantTotal(total);
         }
-        
-        // Save the order
-        return commandeRepository.save(commande);
+    }
+
+    /**
+     * Validates one order of a batch against clients and products loaded up front
+     * @param commande the order to validate
+     * @param clients clients referenced by the batch, by ID
+     * @param produits products referenced by the batch, by ID
+     * @param stockRestant remaining stock per product, decremented when the order is accepted
+     * @return quantity reserved per product ID
+     * @throws CommandeValidationException if validation fails
+     */
+    private Map<Long, Integer> validateOrderForBatch(Commande commande, Map<Long, Client> clients,
+                                       Map<Long, Produit> produits, Map<Long, Integer> stockRestant) {
+        if (commande == null) {
+            throw new CommandeValidationException("Order is empty");
+        }
+        if (commande.getId() != null) {
+            throw new CommandeValidationException("Order ID must not be set when creating orders in batch");
+        }
+
+        if (commande.getClient() == null || commande.getClient().getId() == null) {
+            throw new CommandeValidationException("Client information is required");
+        }
+        Long clientId = commande.getClient().getId();
+        Client client = clients.get(clientId);
+        if (client == null) {
+            throw new CommandeValidationException("Client with ID " + clientId + " does not exist");
+        }
+        commande.setClient(client);
+
+        validateOrderLines(commande);
+
+        Map<Long, Integer> productQuantities = aggregateQuantities(commande.getLignesCommande());
+        List<String> insufficientStockProducts = findInsufficientStock(productQuantities, produits, stockRestant);
+        if (!insufficientStockProducts.isEmpty()) {
+            throw new CommandeValidationException(
+                    "Insufficient stock for products: " + String.join(", ", insufficientStockProducts));
+        }
+
+        // Reserve in the database, then point the lines at the loaded products and claim the stock
+        reserveStock(productQuantities);
+        for (LigneCommande ligne : commande.getLignesCommande()) {
+            ligne.setProduit(produits.get(ligne.getProduit().getId()));
+        }
+        productQuantities.forEach((produitId, quantite) -> stockRestant.merge(produitId, -quantite, Integer::sum));
+        return productQuantities;
+    }
+
+    private Set<Long> collectClientIds(List<Commande> commandes) {
+        return commandes.stream()
+                .filter(commande -> commande != null && commande.getClient() != null)
+                .map(commande -> commande.getClient().getId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Long> collectProduitIds(List<Commande> commandes) {
+        return commandes.stream()
+                .filter(commande -> commande != null && commande.getLignesCommande() != null)
+                .flatMap(commande -> commande.getLignesCommande().stream())
+                .filter(ligne -> ligne != null && ligne.getProduit() != null)
+                .map(ligne -> ligne.getProduit().getId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
     }
     
     /**
@@ -154,14 +390,58 @@ public class CommandeService {
     }
 
     /**
-     * Validates that there is enough stock for all products in the order
+     * Validates that there is enough stock for all products in the order.
+     * All the products are loaded with a single query and checked in memory.
      * @param lignesCommande the order items to validate
      * @throws CommandeValidationException if stock is insufficient
      */
     private void validateStockForOrder(List<LigneCommande> lignesCommande) {
+        Map<Long, Integer> productQuantities = aggregateQuantities(lignesCommande);
+        
+        Map<Long, Produit> produits = produitService.getProduitsByIds(productQuantities.keySet()).stream()
+                .collect(Collectors.toMap(Produit::getId, produit -> produit));
+        Map<Long, Integer> stockDisponible = new HashMap<>();
+        produits.values().forEach(produit -> stockDisponible.put(produit.getId(), produit.getStockDisponible()));
+        
+        // Check stock availability for each product
+        List<String> insufficientStockProducts = findInsufficientStock(productQuantities, produits, stockDisponible);
+        
+        if (!insufficientStockProducts.isEmpty()) {
+            String productList = String.join(", ", insufficientStockProducts);
+            throw new CommandeValidationException("Insufficient stock for products: " + productList);
+        }
+    }
+    
+    /**
+     * Compares the requested quantities with the available stock of already loaded products
+     * @param productQuantities total quantity requested per product ID
+     * @param produits the loaded products, by ID
+     * @param stockDisponible stock available per product ID
+     * @return names of the products that cannot be supplied (or their ID if unknown)
+     */
+    private List<String> findInsufficientStock(Map<Long, Integer> productQuantities,
+                                               Map<Long, Produit> produits, Map<Long, Integer> stockDisponible) {
+        List<String> insufficientStockProducts = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : productQuantities.entrySet()) {
+            Produit produit = produits.get(entry.getKey());
+            if (produit == null) {
+                insufficientStockProducts.add("ID: " + entry.getKey());
+            } else if (stockDisponible.get(produit.getId()) < entry.getValue()) {
+                insufficientStockProducts.add(produit.getNom());
+            }
+        }
+        return insufficientStockProducts;
+    }
+
+    /**
+     * Aggregates the ordered quantities by product
+     * @param lignesCommande the order items
+     * @return total quantity per product ID
+     * @throws CommandeValidationException if a line has no product
+     */
+    private Map<Long, Integer> aggregateQuantities(List<LigneCommande> lignesCommande) {
         Map<Long, Integer> productQuantities = new HashMap<>();
         
-        // Aggregate quantities by product
         for (LigneCommande ligne : lignesCommande) {
             if (ligne.getProduit() == null || ligne.getProduit().getId() == null) {
                 throw new CommandeValidationException("Product information is missing");
@@ -171,28 +451,9 @@ public class CommandeService {
             productQuantities.put(produitId, 
                     productQuantities.getOrDefault(produitId, 0) + ligne.getQuantite());
         }
-        
-        // Check stock availability for each product
-        List<String> insufficientStockProducts = new ArrayList<>();
-        
-        for (Map.Entry<Long, Integer> entry : productQuantities.entrySet()) {
-            Long produitId = entry.getKey();
-            Integer totalQuantity = entry.getValue();
-            
-            if (!produitService.hasEnoughStock(produitId, totalQuantity)) {
-                String productName = produitService.getProduitById(produitId)
-                    .map(p -> p.getNom())
-                    .orElse("ID: " + produitId);
-                insufficientStockProducts.add(productName);
-            }
-        }
-        
-        if (!insufficientStockProducts.isEmpty()) {
-            String productList = String.join(", ", insufficientStockProducts);
-            throw new CommandeValidationException("Insufficient stock for products: " + productList);
-        }
+        return productQuantities;
     }
-    
+
     /**
      * Calculates the total amount of the order
      * @param lignesCommande the order items
@@ -204,10 +465,17 @@ public class CommandeService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    @Transactional
     public void deleteCommande(Long id) {
+        stockReservationService.deleteForCommandes(List.of(id));
+        // The delivery and the payment are deleted with the order
+        revenuJournalierService.untrackCommande(id);
+        livraisonRepository.deleteByCommandeId(id);
+        paiementRepository.deleteByCommandeId(id);
         commandeRepository.deleteById(id);
     }
 
+    @Transactional
     public boolean existsById(Long id) {
         return commandeRepository.existsById(id);
     }
@@ -220,7 +488,7 @@ public class CommandeService {
      * @throws CommandeValidationException if status transition is not allowed
      */
     @Transactional
-    public Commande updateCommandeStatus(Long id, StatutCommande statut) {
+    public CommandeDTO updateCommandeStatus(Long id, StatutCommande statut) {
         Optional<Commande> commandeOpt = commandeRepository.findById(id);
         if (commandeOpt.isEmpty()) {
             throw new CommandeValidationException("Order with ID " + id + " not found");
@@ -235,7 +503,9 @@ public class CommandeService {
         // Process special status change logic
         processStatusChange(commande, oldStatus, statut);
         
-        return commandeRepository.save(commande);
+        Commande saved = commandeRepository.save(commande);
+        eventPublisher.publishEvent(StatutChangeEventDTO.of(saved, oldStatus));
+        return CommandeDTO.of(saved);
     }
     
     /**
@@ -263,7 +533,8 @@ public class CommandeService {
                 // Update shipping information
                 break;
             case LIVREE:
-                // Mark delivery as completed
+                // Reserved stock leaves the warehouse
+                stockReservationService.consumeForCommandes(List.of(commande.getId()));
                 break;
             default:
                 // Default handling
@@ -285,8 +556,8 @@ public class CommandeService {
      * @param commande the canceled order
      */
     private void handleOrderCancellation(Commande commande) {
-        // Implement cancellation logic
-        // This is a placeholder for actual cancellation handling
+        // Give the reserved stock back to the other orders
+        stockReservationService.releaseForCommandes(List.of(commande.getId()));
     }
     
     /**
@@ -296,46 +567,96 @@ public class CommandeService {
      * @throws CommandeValidationException if transition is not allowed
      */
     private void validateStatusTransition(StatutCommande oldStatus, StatutCommande newStatus) {
-        // Define allowed transitions using a map for clarity and maintainability
-        Map<StatutCommande, Set<StatutCommande>> allowedTransitions = new HashMap<>();
-        
-        allowedTransitions.put(StatutCommande.EN_ATTENTE, 
-                new HashSet<>(Arrays.asList(StatutCommande.VALIDEE, StatutCommande.ANNULEE)));
-        
-        allowedTransitions.put(StatutCommande.VALIDEE, 
-                new HashSet<>(Arrays.asList(StatutCommande.EN_PREPARATION, StatutCommande.ANNULEE)));
-        
-        allowedTransitions.put(StatutCommande.EN_PREPARATION, 
-                new HashSet<>(Arrays.asList(StatutCommande.EXPEDIEE, StatutCommande.ANNULEE)));
-        
-        allowedTransitions.put(StatutCommande.EXPEDIEE, 
-                new HashSet<>(Arrays.asList(StatutCommande.LIVREE)));
-        
-        // LIVREE and ANNULEE are final states
-        allowedTransitions.put(StatutCommande.LIVREE, Collections.emptySet());
-        allowedTransitions.put(StatutCommande.ANNULEE, Collections.emptySet());
-        
-        // Check if transition is allowed
-        if (!allowedTransitions.containsKey(oldStatus) || 
-                !allowedTransitions.get(oldStatus).contains(newStatus)) {
+        if (!isTransitionAllowed(oldStatus, newStatus)) {
             throw new CommandeValidationException(
                     "Status transition from " + oldStatus + " to " + newStatus + " is not allowed");
         }
     }
 
-    public List<Commande> getCommandesByClientId(Long clientId) {
-        return commandeRepository.findByClientId(clientId);
+    private boolean isTransitionAllowed(StatutCommande oldStatus, StatutCommande newStatus) {
+        return oldStatus != null && ALLOWED_TRANSITIONS.get(oldStatus).contains(newStatus);
+    }
+
+    /**
+     * Moves many orders to the same status. The transition rules are applied by the database:
+     * the orders whose current status may lead to the target are locked, then moved with a
+     * single conditional UPDATE. The others are reported with the reason they were rejected.
+     * @param ids order IDs
+     * @param statut target status
+     * @return the IDs that moved and the rejected ones
+     * @throws IllegalArgumentException if more than {@link #MAX_BATCH_SIZE} orders are given
+     */
+    @Transactional
+    public CommandeStatutBulkResultDTO updateCommandesStatus(List<Long> ids, StatutCommande statut) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Cannot update more than " + MAX_BATCH_SIZE + " orders at once");
+        }
+
+        Set<StatutCommande> sources = ALLOWED_TRANSITIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().contains(statut))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(StatutCommande.class)));
+
+        List<Long> modifiees = new ArrayList<>();
+        if (!requested.isEmpty() && !sources.isEmpty()) {
+            modifiees = commandeRepository.lockIdsByIdInAndStatutIn(requested, sources);
+            if (!modifiees.isEmpty()) {
+                commandeRepository.updateStatutByIdInAndStatutIn(modifiees, sources, statut);
+                if (statut == StatutCommande.ANNULEE) {
+                    stockReservationService.releaseForCommandes(modifiees);
+                } else if (statut == StatutCommande.LIVREE) {
+                    stockReservationService.consumeForCommandes(modifiees);
+                }
+            }
+        }
+
+        // Explain every rejection with a single extra query
+        Map<Long, String> rejetees = new LinkedHashMap<>();
+        Set<Long> notMoved = new LinkedHashSet<>(requested);
+        modifiees.forEach(notMoved::remove);
+        if (!notMoved.isEmpty()) {
+            Map<Long, StatutCommande> currentStatuses = new HashMap<>();
+            for (Object[] row : commandeRepository.findStatutsByIdIn(notMoved)) {
+                currentStatuses.put((Long) row[0], (StatutCommande) row[1]);
+            }
+            for (Long id : notMoved) {
+                StatutCommande current = currentStatuses.get(id);
+                rejetees.put(id, current == null
+                        ? "Order with ID " + id + " not found"
+                        : "Status transition from " + current + " to " + statut + " is not allowed");
+            }
+        }
+
+        return new CommandeStatutBulkResultDTO(statut, modifiees, rejetees);
+    }
+
+    public List<CommandeDTO> getCommandesByClientId(Long clientId) {
+        return commandeRepository.findByClientId(clientId).stream().map(CommandeDTO::of).toList();
+    }
+
+    public List<CommandeDTO> getCommandesByStatus(StatutCommande status) {
+        return commandeRepository.findByStatut(status).stream().map(CommandeDTO::of).toList();
+    }
+
+    public List<CommandeDTO> getCommandesByDateRange(LocalDateTime start, LocalDateTime end) {
+        return commandeRepository.findByDateBetween(start, end).stream().map(CommandeDTO::of).toList();
+    }
+
+    public List<CommandeDTO> getRecentCommandes(LocalDateTime fromDate) {
+        return commandeRepository.findByDateAfterOrderByDateDesc(fromDate).stream().map(CommandeDTO::of).toList();
     }
 
-    public List<Commande> getCommandesByStatus(StatutCommande status) {
-        return commandeRepository.findByStatut(status);
+    public List<CommandeSummaryDTO> getCommandeSummariesByClientId(Long clientId) {
+        return commandeRepository.findSummariesByClientId(clientId);
     }
 
-    public List<Commande> getCommandesByDateRange(LocalDateTime start, LocalDateTime end) {
-        return commandeRepository.findByDateBetween(start, end);
+    public List<CommandeSummaryDTO> getCommandeSummariesByStatus(StatutCommande status) {
+        return commandeRepository.findSummariesByStatut(status);
     }
 
-    public List<Commande> getRecentCommandes(LocalDateTime fromDate) {
-        return commandeRepository.findByDateAfterOrderByDateDesc(fromDate);
+    public List<CommandeSummaryDTO> getRecentCommandeSummaries(LocalDateTime fromDate) {
+        return commandeRepository.findSummariesByDateAfter(fromDate);
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors used by the keyset-paginated list endpoints.
+ * A cursor holds the sort key of the last row of the previous page, either the ID alone
+ * or a date and an ID.
+ */
+public final class CursorCodec {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Validates the requested page size
+     * @param limit requested size, null for the default
+     * @return the page size to use
+     * @throws IllegalArgumentException if the size is out of range
+     */
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    public static String encodeId(Long id) {
+        return encode(String.valueOf(id));
+    }
+
+    public static String encodeDateAndId(LocalDateTime date, Long id) {
+        return encode(date + SEPARATOR + id);
+    }
+
+    /**
+     * @param cursor cursor received from the client, may be null
+     * @return the ID held by the cursor, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Long decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(decode(cursor));
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    /**
+     * @param cursor cursor received from the client, may be null
+     * @return the date and ID held by the cursor, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static DateIdCursor decodeDateAndId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String value = decode(cursor);
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw invalidCursor();
+        }
+        try {
+            return new DateIdCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static IllegalArgumentException invalidCursor() {
+        return new IllegalArgumentException("Invalid pagination cursor");
+    }
+
+    public record DateIdCursor(LocalDateTime date, Long id) {
+    }
+}
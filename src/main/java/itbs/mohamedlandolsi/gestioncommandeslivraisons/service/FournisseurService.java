@@ -1,42 +1,50 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.FournisseurDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.FournisseurRepository;
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LigneCommandeRepository;
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.search.NameSearchIndexes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class FournisseurService {
 
+    // Bounds used when the history is not limited in time (within the DATETIME range of MySQL)
+    private static final LocalDateTime DEBUT_HISTORIQUE = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime FIN_HISTORIQUE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final FournisseurRepository fournisseurRepository;
-    private final ProduitRepository produitRepository;
-    private final LigneCommandeRepository ligneCommandeRepository;
+    private final CommandeRepository commandeRepository;
+    private final NameSearchIndexes nameSearchIndexes;
 
     @Autowired
     public FournisseurService(
             FournisseurRepository fournisseurRepository,
-            ProduitRepository produitRepository,
-            LigneCommandeRepository ligneCommandeRepository) {
+            CommandeRepository commandeRepository,
+            NameSearchIndexes nameSearchIndexes) {
         this.fournisseurRepository = fournisseurRepository;
-        this.produitRepository = produitRepository;
-        this.ligneCommandeRepository = ligneCommandeRepository;
+        this.commandeRepository = commandeRepository;
+        this.nameSearchIndexes = nameSearchIndexes;
     }
 
     /**
      * Get all suppliers
      * @return list of all suppliers
      */
-    public List<Fournisseur> getAllFournisseurs() {
-        return fournisseurRepository.findAll();
+    public List<FournisseurDTO> getAllFournisseurs() {
+        return fournisseurRepository.findAll().stream().map(FournisseurDTO::of).toList();
     }
 
     /**
@@ -44,8 +52,18 @@ public class FournisseurService {
      * @param id supplier ID
      * @return supplier if found
      */
-    public Optional<Fournisseur> getFournisseurById(Long id) {
-        return fournisseurRepository.findById(id);
+    public Optional<FournisseurDTO> getFournisseurById(Long id) {
+        return fournisseurRepository.findById(id).map(FournisseurDTO::of);
+    }
+
+    /**
+     * Checks that a supplier exists before it is updated or deleted, on the primary database
+     * @param id supplier ID
+     * @return true if the supplier exists
+     */
+    @Transactional
+    public boolean existsById(Long id) {
+        return fournisseurRepository.existsById(id);
     }
 
     /**
@@ -53,80 +71,61 @@ public class FournisseurService {
      * @param fournisseur supplier to save
      * @return saved supplier
      */
+    @Transactional
     public Fournisseur saveFournisseur(Fournisseur fournisseur) {
-        return fournisseurRepository.save(fournisseur);
+        Fournisseur saved = fournisseurRepository.save(fournisseur);
+        nameSearchIndexes.fournisseurs().putAfterCommit(saved.getId(), saved.getNom());
+        return saved;
     }
 
     /**
      * Delete a supplier by ID
      * @param id supplier ID
      */
+    @Transactional
     public void deleteFournisseur(Long id) {
         fournisseurRepository.deleteById(id);
+        nameSearchIndexes.fournisseurs().removeAfterCommit(id);
     }
 
     /**
-     * Search suppliers by name
+     * Search suppliers by name through the trigram index, best matches first
      * @param nom name to search
      * @return matching suppliers
      */
-    public List<Fournisseur> searchFournisseursByNom(String nom) {
-        return fournisseurRepository.findByNomContainingIgnoreCase(nom);
+    public List<FournisseurDTO> searchFournisseursByNom(String nom) {
+        return nameSearchIndexes.fournisseurs().search(nom, fournisseurRepository::findAllById,
+                fournisseurRepository::findByNomContainingIgnoreCase, Fournisseur::getNom)
+                .stream().map(FournisseurDTO::of).toList();
     }
 
     /**
-     * Gets all orders for a specific supplier by tracking products from this supplier
+     * Gets one page of the orders containing products from a supplier, newest first.
+     * The orders are found, deduplicated, filtered by date and sorted by a single query.
      * @param fournisseurId supplier ID
-     * @return list of orders containing products from this supplier
+     * @param debut start date (inclusive), null for no lower bound
+     * @param fin end date (inclusive), null for no upper bound
+     * @param cursor cursor returned with the previous page, null for the first page
+     * @param limit page size, null for the default
+     * @return the page of orders
+     * @throws IllegalArgumentException if the cursor or the page size is invalid
      */
-    public List<Commande> getOrderHistoryByFournisseur(Long fournisseurId) {
-        // First get all products from this supplier
-        List<Produit> produitsDuFournisseur = produitRepository.findByFournisseurId(fournisseurId);
-        
-        if (produitsDuFournisseur.isEmpty()) {
-            return new ArrayList<>();
+    public CursorPageDTO<CommandeDTO> getOrderHistory(Long fournisseurId, LocalDateTime debut, LocalDateTime fin,
+                                                      String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        LocalDateTime borneDebut = debut != null ? debut : DEBUT_HISTORIQUE;
+        LocalDateTime borneFin = fin != null ? fin : FIN_HISTORIQUE;
+        Long beforeId = Long.MAX_VALUE;
+        // The next page starts just after the last order of the previous one
+        CursorCodec.DateIdCursor position = CursorCodec.decodeDateAndId(cursor);
+        if (position != null && !position.date().isAfter(borneFin)) {
+            borneFin = position.date();
+            beforeId = position.id();
         }
-        
-        // Get IDs of these products
-        List<Long> productIds = produitsDuFournisseur.stream()
-                .map(Produit::getId)
-                .collect(Collectors.toList());
-        
-        // Get all order lines containing these products
-        List<LigneCommande> lignesCommande = ligneCommandeRepository.findByProduitIdIn(productIds);
-        
-        // Extract unique orders
-        Set<Commande> commandes = new HashSet<>();
-        for (LigneCommande ligne : lignesCommande) {
-            if (ligne.getCommande() != null) {
-                commandes.add(ligne.getCommande());
-            }
-        }
-        
-        // Convert to list and sort by date descending
-        return commandes.stream()
-                .sorted(Comparator.comparing(Commande::getDate).reversed())
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Gets order history for a supplier within a date range
-     * @param fournisseurId supplier ID
-     * @param debut start date
-     * @param fin end date
-     * @return filtered list of orders
-     */
-    public List<Commande> getOrderHistoryByDateRange(Long fournisseurId, LocalDateTime debut, LocalDateTime fin) {
-        List<Commande> allOrders = getOrderHistoryByFournisseur(fournisseurId);
-        
-        return allOrders.stream()
-                .filter(commande -> {
-                    LocalDateTime orderDate = commande.getDate();
-                    return orderDate != null && 
-                           (orderDate.isEqual(debut) || orderDate.isAfter(debut)) &&
-                           (orderDate.isEqual(fin) || orderDate.isBefore(fin));
-                })
-                .collect(Collectors.toList());
+        List<Commande> rows = commandeRepository.findPageByFournisseur(
+                fournisseurId, borneDebut, borneFin, beforeId, Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize,
+                commande -> CursorCodec.encodeDateAndId(commande.getDate(), commande.getId())).map(CommandeDTO::of);
     }
 
     /**
@@ -135,6 +134,7 @@ public class FournisseurService {
      * @param note new rating (0-5)
      * @return updated supplier
      */
+    @Transactional
     public Fournisseur updateFournisseurRating(Long fournisseurId, Double note) {
         if (note < 0 || note > 5) {
             throw new IllegalArgumentException("Rating must be between 0 and 5");
@@ -1,14 +1,19 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LigneCommandeDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LigneCommandeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class LigneCommandeService {
 
     private final LigneCommandeRepository ligneCommandeRepository;
@@ -18,34 +23,46 @@ public class LigneCommandeService {
         this.ligneCommandeRepository = ligneCommandeRepository;
     }
 
-    public List<LigneCommande> getAllLignesCommande() {
-        return ligneCommandeRepository.findAll();
+    public List<LigneCommandeDTO> getAllLignesCommande() {
+        return ligneCommandeRepository.findAll().stream().map(LigneCommandeDTO::of).toList();
     }
 
-    public Optional<LigneCommande> getLigneCommandeById(Long id) {
-        return ligneCommandeRepository.findById(id);
+    public CursorPageDTO<LigneCommandeDTO> getLignesCommandePage(String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        Long afterId = CursorCodec.decodeId(cursor);
+        List<LigneCommande> rows = ligneCommandeRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize, ligne -> CursorCodec.encodeId(ligne.getId())).map(LigneCommandeDTO::of);
     }
 
+    public Optional<LigneCommandeDTO> getLigneCommandeById(Long id) {
+        return ligneCommandeRepository.findById(id).map(LigneCommandeDTO::of);
+    }
+
+    @Transactional
     public LigneCommande saveLigneCommande(LigneCommande ligneCommande) {
         return ligneCommandeRepository.save(ligneCommande);
     }
 
+    @Transactional
     public void deleteLigneCommande(Long id) {
         ligneCommandeRepository.deleteById(id);
     }
 
+    @Transactional
     public boolean existsById(Long id) {
         return ligneCommandeRepository.existsById(id);
     }
 
-    public List<LigneCommande> getLignesCommandeByCommandeId(Long commandeId) {
-        return ligneCommandeRepository.findByCommandeId(commandeId);
+    public List<LigneCommandeDTO> getLignesCommandeByCommandeId(Long commandeId) {
+        return ligneCommandeRepository.findByCommandeId(commandeId).stream().map(LigneCommandeDTO::of).toList();
     }
 
-    public List<LigneCommande> getLignesCommandeByProduitId(Long produitId) {
-        return ligneCommandeRepository.findByProduitId(produitId);
+    public List<LigneCommandeDTO> getLignesCommandeByProduitId(Long produitId) {
+        return ligneCommandeRepository.findByProduitId(produitId).stream().map(LigneCommandeDTO::of).toList();
     }
 
+    @Transactional
     public void deleteAllByCommandeId(Long commandeId) {
         ligneCommandeRepository.deleteByCommandeId(commandeId);
     }
@@ -1,57 +1,84 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonAutoAssignResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonRequestDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.StatutChangeEventDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
-import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LigneCommandeRepository;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.TransporteurRepository;
-import jakarta.transaction.Transactional;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.scheduler.LateDeliveryScheduler;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.TransporteurAssignmentService.LoadKey;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
+@Transactional(readOnly = true)
 public class LivraisonService {
 
     private final LivraisonRepository livraisonRepository;
     private final TransporteurRepository transporteurRepository;
-    private final ProduitService produitService;
     private final CommandeRepository commandeRepository;
     private final LigneCommandeRepository ligneCommandeRepository;
+    private final StockReservationService stockReservationService;
+    private final TransporteurAssignmentService transporteurAssignmentService;
+    private final LateDeliveryScheduler lateDeliveryScheduler;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public LivraisonService(
             LivraisonRepository livraisonRepository,
             TransporteurRepository transporteurRepository,
-            ProduitService produitService,
             CommandeRepository commandeRepository,
-            LigneCommandeRepository ligneCommandeRepository) {
+            LigneCommandeRepository ligneCommandeRepository,
+            StockReservationService stockReservationService,
+            TransporteurAssignmentService transporteurAssignmentService,
+            LateDeliveryScheduler lateDeliveryScheduler,
+            ApplicationEventPublisher eventPublisher) {
         this.livraisonRepository = livraisonRepository;
         this.transporteurRepository = transporteurRepository;
-        this.produitService = produitService;
         this.commandeRepository = commandeRepository;
         this.ligneCommandeRepository = ligneCommandeRepository;
+        this.stockReservationService = stockReservationService;
+        this.transporteurAssignmentService = transporteurAssignmentService;
+        this.lateDeliveryScheduler = lateDeliveryScheduler;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Livraison> getAllLivraisons() {
-        return livraisonRepository.findAll();
+    public List<LivraisonDTO> getAllLivraisons() {
+        return livraisonRepository.findAll().stream().map(LivraisonDTO::of).toList();
     }
 
-    public Optional<Livraison> getLivraisonById(Long id) {
-        return livraisonRepository.findById(id);
+    public CursorPageDTO<LivraisonDTO> getLivraisonsPage(String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        Long afterId = CursorCodec.decodeId(cursor);
+        List<Livraison> rows = livraisonRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize, livraison -> CursorCodec.encodeId(livraison.getId())).map(LivraisonDTO::of);
     }
 
+    public Optional<LivraisonDTO> getLivraisonById(Long id) {
+        return livraisonRepository.findById(id).map(LivraisonDTO::of);
+    }
+
+    @Transactional
     public Livraison saveLivraison(Livraison livraison) {
         return livraisonRepository.save(livraison);
     }
@@ -81,13 +108,24 @@ public class LivraisonService {
         livraison.setCout(dto.getCout());
         livraison.setStatut(dto.getStatut() != null ? dto.getStatut() : StatutLivraison.EN_ATTENTE);
 
-        return livraisonRepository.save(livraison);
+        // Without an explicit carrier, the least loaded one for that day is picked
+        if (transporteur == null && TransporteurAssignmentService.ACTIVE_STATUSES.contains(livraison.getStatut())) {
+            transporteurAssignmentService.assign(livraison);
+        } else {
+            transporteurAssignmentService.track(null, transporteurAssignmentService.keyOf(livraison));
+        }
+
+        Livraison saved = livraisonRepository.save(livraison);
+        lateDeliveryScheduler.schedule(saved);
+        return saved;
     }
 
     @Transactional
     public Livraison updateLivraisonFromDTO(Long id, LivraisonRequestDTO dto) {
         Livraison livraison = livraisonRepository.findById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Livraison non trouvée avec ID: " + id));
+        LoadKey loadBefore = transporteurAssignmentService.keyOf(livraison);
+        StatutLivraison oldStatus = livraison.getStatut();
 
         if (dto.getCommandeId() != null) {
             Commande commande = commandeRepository.findById(dto.getCommandeId())
@@ -113,20 +151,29 @@ public class LivraisonService {
             livraison.setCout(dto.getCout());
         }
         if (dto.getStatut() != null) {
-            StatutLivraison oldStatus = livraison.getStatut();
             livraison.setStatut(dto.getStatut());
             if (dto.getStatut() == StatutLivraison.LIVREE && oldStatus != StatutLivraison.LIVREE) {
                 updateStockOnDelivery(livraison);
             }
         }
 
-        return livraisonRepository.save(livraison);
+        transporteurAssignmentService.track(loadBefore, transporteurAssignmentService.keyOf(livraison));
+        lateDeliveryScheduler.schedule(livraison);
+        Livraison saved = livraisonRepository.save(livraison);
+        publishStatutChange(saved, oldStatus);
+        return saved;
     }
 
+    @Transactional
     public void deleteLivraison(Long id) {
-        livraisonRepository.deleteById(id);
+        livraisonRepository.findById(id).ifPresent(livraison -> {
+            transporteurAssignmentService.track(transporteurAssignmentService.keyOf(livraison), null);
+            livraisonRepository.delete(livraison);
+            lateDeliveryScheduler.cancel(id);
+        });
     }
 
+    @Transactional
     public boolean existsById(Long id) {
         return livraisonRepository.existsById(id);
     }
@@ -139,6 +186,7 @@ public class LivraisonService {
         }
 
         Livraison livraison = livraisonOpt.get();
+        LoadKey loadBefore = transporteurAssignmentService.keyOf(livraison);
         StatutLivraison oldStatus = livraison.getStatut();
         livraison.setStatut(statut);
 
@@ -146,7 +194,18 @@ public class LivraisonService {
             updateStockOnDelivery(livraison);
         }
 
-        return livraisonRepository.save(livraison);
+        transporteurAssignmentService.track(loadBefore, transporteurAssignmentService.keyOf(livraison));
+        lateDeliveryScheduler.schedule(livraison);
+        Livraison saved = livraisonRepository.save(livraison);
+        publishStatutChange(saved, oldStatus);
+        return saved;
+    }
+
+    // Subscribers of /api/evenements are notified once the transaction commits
+    private void publishStatutChange(Livraison livraison, StatutLivraison oldStatus) {
+        if (livraison.getStatut() != oldStatus) {
+            eventPublisher.publishEvent(StatutChangeEventDTO.of(livraison, oldStatus));
+        }
     }
 
     private void updateStockOnDelivery(Livraison livraison) {
@@ -155,19 +214,27 @@ public class LivraisonService {
             throw new IllegalStateException("No command associated with this delivery");
         }
 
-        List<LigneCommande> lignesCommande = ligneCommandeRepository.findByCommandeId(commande.getId());
-
-        for (LigneCommande ligne : lignesCommande) {
-            Produit produit = ligne.getProduit();
-            if (produit != null) {
-                produitService.reduceStock(produit.getId(), ligne.getQuantite());
+        // An order already delivered, e.g. through PATCH /api/commandes/{id}/statut, gave its stock up then.
+        // Only orders placed before the reservation ledger existed are decremented from their lines.
+        if (commande.getStatut() != Commande.StatutCommande.LIVREE
+                && stockReservationService.consumeForCommandes(List.of(commande.getId())).isEmpty()
+                && !stockReservationService.hasReservations(commande.getId())) {
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (Object[] row : ligneCommandeRepository.sumQuantitesByProduit(commande.getId())) {
+                quantities.put((Long) row[0], ((Number) row[1]).intValue());
             }
+            stockReservationService.decrementStock(quantities);
         }
 
+        Commande.StatutCommande oldCommandeStatus = commande.getStatut();
         commande.setStatut(Commande.StatutCommande.LIVREE);
         commandeRepository.save(commande);
+        if (oldCommandeStatus != Commande.StatutCommande.LIVREE) {
+            eventPublisher.publishEvent(StatutChangeEventDTO.of(commande, oldCommandeStatus));
+        }
     }
 
+    @Transactional
     public Livraison assignTransporteur(Long livraisonId, Long transporteurId) {
         Optional<Livraison> livraisonOpt = livraisonRepository.findById(livraisonId);
         Optional<Transporteur> transporteurOpt = transporteurRepository.findById(transporteurId);
@@ -177,27 +244,51 @@ public class LivraisonService {
         }
 
         Livraison livraison = livraisonOpt.get();
+        LoadKey loadBefore = transporteurAssignmentService.keyOf(livraison);
         livraison.setTransporteur(transporteurOpt.get());
+        transporteurAssignmentService.track(loadBefore, transporteurAssignmentService.keyOf(livraison));
         return livraisonRepository.save(livraison);
     }
 
-    public List<Livraison> getLivraisonsByCommandeId(Long commandeId) {
-        return livraisonRepository.findByCommandeId(commandeId);
+    /**
+     * Assigns a carrier to every active delivery that has none, spreading them by load and rating
+     * @return number of deliveries assigned, per carrier
+     */
+    @Transactional
+    public LivraisonAutoAssignResultDTO autoAssignUnassigned() {
+        List<Livraison> livraisons = livraisonRepository.findByTransporteurIsNullAndStatutInOrderByIdAsc(
+                TransporteurAssignmentService.ACTIVE_STATUSES);
+        Map<Long, Integer> parTransporteur = new TreeMap<>();
+        int nonAssignees = 0;
+        for (Livraison livraison : livraisons) {
+            Optional<Long> transporteurId = transporteurAssignmentService.assign(livraison);
+            if (transporteurId.isPresent()) {
+                parTransporteur.merge(transporteurId.get(), 1, Integer::sum);
+            } else {
+                nonAssignees++;
+            }
+        }
+        livraisonRepository.saveAll(livraisons);
+        return new LivraisonAutoAssignResultDTO(livraisons.size() - nonAssignees, nonAssignees, parTransporteur);
+    }
+
+    public List<LivraisonDTO> getLivraisonsByCommandeId(Long commandeId) {
+        return livraisonRepository.findByCommandeId(commandeId).stream().map(LivraisonDTO::of).toList();
     }
 
-    public List<Livraison> getLivraisonsByTransporteurId(Long transporteurId) {
-        return livraisonRepository.findByTransporteurId(transporteurId);
+    public List<LivraisonDTO> getLivraisonsByTransporteurId(Long transporteurId) {
+        return livraisonRepository.findByTransporteurId(transporteurId).stream().map(LivraisonDTO::of).toList();
     }
 
-    public List<Livraison> getLivraisonsByStatut(StatutLivraison statut) {
-        return livraisonRepository.findByStatut(statut);
+    public List<LivraisonDTO> getLivraisonsByStatut(StatutLivraison statut) {
+        return livraisonRepository.findByStatut(statut).stream().map(LivraisonDTO::of).toList();
     }
 
-    public List<Livraison> getLivraisonsByDateRange(LocalDateTime start, LocalDateTime end) {
-        return livraisonRepository.findByDateLivraisonBetween(start, end);
+    public List<LivraisonDTO> getLivraisonsByDateRange(LocalDateTime start, LocalDateTime end) {
+        return livraisonRepository.findByDateLivraisonBetween(start, end).stream().map(LivraisonDTO::of).toList();
     }
 
-    public List<Livraison> getUpcomingLivraisons(LocalDateTime fromDate) {
-        return livraisonRepository.findByDateLivraisonAfterOrderByDateLivraison(fromDate);
+    public List<LivraisonDTO> getUpcomingLivraisons(LocalDateTime fromDate) {
+        return livraisonRepository.findByDateLivraisonAfterOrderByDateLivraison(fromDate).stream().map(LivraisonDTO::of).toList();
     }
 }
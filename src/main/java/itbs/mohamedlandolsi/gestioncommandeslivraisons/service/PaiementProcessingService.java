@@ -0,0 +1,250 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementBatchResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementResultatDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.gateway.PaiementGateway;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Charges payments through the {@link PaiementGateway}. The payments are first claimed with a
+ * guarded UPDATE ({@link PaiementService#claimEnAttente}), so concurrent runs never send the same
+ * payment twice. Gateway calls are made outside of any transaction; the outcomes are written
+ * afterwards by {@link PaiementService#updateStatutsEnAttente}, which also keeps the revenue rollup in step.
+ */
+@Service
+public class PaiementProcessingService {
+
+    public static final int MAX_BATCH_SIZE = 10000;
+    // IN lists sent to the database
+    private static final int CHUNK_SIZE = 500;
+
+    private final PaiementService paiementService;
+    private final PaiementRepository paiementRepository;
+    private final PaiementGateway paiementGateway;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService gatewayExecutor;
+    private final Timer batchTimer;
+    private final Duration claimTimeout;
+
+    @Autowired
+    public PaiementProcessingService(
+            PaiementService paiementService,
+            PaiementRepository paiementRepository,
+            PaiementGateway paiementGateway,
+            MeterRegistry meterRegistry,
+            @Value("${paiement.batch.parallelism:16}") int parallelism,
+            @Value("${paiement.batch.claim-timeout-ms:900000}") long claimTimeoutMillis,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.paiementService = paiementService;
+        this.paiementRepository = paiementRepository;
+        this.paiementGateway = paiementGateway;
+        this.meterRegistry = meterRegistry;
+        // Shared by all the batches: bounds the number of calls in flight towards the gateway
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("paiement-gateway-", 1).factory()
+                : runnable -> {
+                    Thread thread = new Thread(runnable, "paiement-gateway-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        this.gatewayExecutor = Executors.newFixedThreadPool(parallelism, threadFactory);
+        this.batchTimer = meterRegistry.timer("paiements.batch");
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+    }
+
+    /**
+     * Charges one payment through the gateway. Only an EN_ATTENTE payment that this call manages
+     * to claim is sent; one already processed, or being charged by a concurrent run, is returned
+     * unchanged, so that a retried or concurrent call never charges twice.
+     * @param id payment ID
+     * @return the payment, EFFECTUE or ECHEC after the call, or null if it does not exist
+     */
+    public Paiement processPaiement(Long id) {
+        String jeton = UUID.randomUUID().toString();
+        List<Object[]> rows = paiementService.claimEnAttente(List.of(id), jeton, claimExpiration());
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        Object[] row = rows.get(0);
+        if (jeton.equals(row[4])) {
+            PaiementGateway.Reponse reponse;
+            try {
+                reponse = charger(new PaiementGateway.Demande(id, (Double) row[3], (ModePaiement) row[2]));
+            } catch (RuntimeException e) {
+                // Not charged: the payment can be processed again right away
+                paiementService.releaseClaims(List.of(id), jeton);
+                throw e;
+            }
+            // Not written if the claim expired during the call and another run took the payment over
+            return paiementService.updateStatutEnAttente(id,
+                    reponse.accepte() ? StatutPaiement.EFFECTUE : StatutPaiement.ECHEC, jeton);
+        }
+        return paiementService.getPaiementCourant(id).orElse(null);
+    }
+
+    /**
+     * Charges many payments, typically the end of day settlement. The EN_ATTENTE payments are
+     * claimed first, a chunk per short transaction; those held by a concurrent run are reported and
+     * left to it. The gateway calls run concurrently on a bounded pool and no transaction is open
+     * while they are in flight; the outcomes are then written with a few UPDATEs guarded on
+     * EN_ATTENTE, so a payment changed by someone else in the meantime is reported instead of overwritten.
+     * @param ids payment IDs
+     * @return one result per payment and the throughput of the batch
+     * @throws IllegalArgumentException if more than {@link #MAX_BATCH_SIZE} payments are given
+     */
+    public PaiementBatchResultDTO processPaiementsBatch(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Cannot process more than " + MAX_BATCH_SIZE + " payments at once");
+        }
+        long start = System.nanoTime();
+
+        Map<Long, PaiementResultatDTO> resultats = new LinkedHashMap<>();
+        for (Long id : requested) {
+            resultats.put(id, new PaiementResultatDTO(id, null, null, "Payment with ID " + id + " not found"));
+        }
+        String jeton = UUID.randomUUID().toString();
+        LocalDateTime expiration = claimExpiration();
+        List<PaiementGateway.Demande> demandes = new ArrayList<>();
+        for (List<Long> chunk : chunks(requested)) {
+            for (Object[] row : paiementService.claimEnAttente(chunk, jeton, expiration)) {
+                Long id = (Long) row[0];
+                StatutPaiement statut = (StatutPaiement) row[1];
+                if (jeton.equals(row[4])) {
+                    demandes.add(new PaiementGateway.Demande(id, (Double) row[3], (ModePaiement) row[2]));
+                } else if (statut == StatutPaiement.EN_ATTENTE) {
+                    resultats.put(id, new PaiementResultatDTO(id, statut, null,
+                            "Payment with ID " + id + " is already being processed"));
+                } else {
+                    resultats.put(id, new PaiementResultatDTO(id, statut, null,
+                            "Only EN_ATTENTE payments are processed, this one is " + statut));
+                }
+            }
+        }
+
+        Map<Long, Future<PaiementGateway.Reponse>> appels = new LinkedHashMap<>();
+        for (PaiementGateway.Demande demande : demandes) {
+            appels.put(demande.paiementId(), gatewayExecutor.submit(() -> charger(demande)));
+        }
+        List<Long> acceptes = new ArrayList<>();
+        List<Long> refuses = new ArrayList<>();
+        List<Long> nonDebites = new ArrayList<>();
+        for (Map.Entry<Long, Future<PaiementGateway.Reponse>> appel : appels.entrySet()) {
+            Long id = appel.getKey();
+            try {
+                PaiementGateway.Reponse reponse = appel.getValue().get();
+                (reponse.accepte() ? acceptes : refuses).add(id);
+                resultats.put(id, new PaiementResultatDTO(id,
+                        reponse.accepte() ? StatutPaiement.EFFECTUE : StatutPaiement.ECHEC,
+                        reponse.reference(), reponse.motif()));
+            } catch (ExecutionException e) {
+                // Not charged: the payment stays EN_ATTENTE and its claim is given back for the next run
+                nonDebites.add(id);
+                resultats.put(id, new PaiementResultatDTO(id, StatutPaiement.EN_ATTENTE, null,
+                        "Payment gateway error: " + e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                // Calls may have gone through: the claims are left to expire rather than given back
+                Thread.currentThread().interrupt();
+                appels.values().forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Interrupted while processing the payments", e);
+            }
+        }
+        int traites = acceptes.size() + refuses.size();
+        for (List<Long> chunk : chunks(nonDebites)) {
+            paiementService.releaseClaims(chunk, jeton);
+        }
+
+        int effectues = applyStatut(acceptes, StatutPaiement.EFFECTUE, jeton, resultats);
+        int echecs = applyStatut(refuses, StatutPaiement.ECHEC, jeton, resultats);
+
+        long dureeNanos = System.nanoTime() - start;
+        batchTimer.record(dureeNanos, TimeUnit.NANOSECONDS);
+        double parSeconde = dureeNanos > 0 ? traites * 1e9 / dureeNanos : 0;
+        return new PaiementBatchResultDTO(effectues, echecs, requested.size() - effectues - echecs,
+                TimeUnit.NANOSECONDS.toMillis(dureeNanos), parSeconde, new ArrayList<>(resultats.values()));
+    }
+
+    // Writes the gateway outcome, one transaction per chunk, reporting the payments that left EN_ATTENTE
+    // or whose claim was taken over meanwhile
+    private int applyStatut(List<Long> ids, StatutPaiement statut, String jeton, Map<Long, PaiementResultatDTO> resultats) {
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            List<Long> moved = paiementService.updateStatutsEnAttente(chunk, statut, jeton);
+            updated += moved.size();
+            if (moved.size() < chunk.size()) {
+                Set<Long> notMoved = new LinkedHashSet<>(chunk);
+                moved.forEach(notMoved::remove);
+                for (Long id : notMoved) {
+                    resultats.get(id).setStatut(null);
+                    resultats.get(id).setMotif("Payment with ID " + id + " was deleted while being processed");
+                }
+                for (Object[] row : paiementRepository.findStatutsByIdIn(notMoved)) {
+                    Long id = (Long) row[0];
+                    StatutPaiement current = (StatutPaiement) row[1];
+                    PaiementResultatDTO resultat = resultats.get(id);
+                    resultat.setStatut(current);
+                    resultat.setMotif(current == StatutPaiement.EN_ATTENTE
+                            ? "The claim on payment with ID " + id + " expired while it was being charged, "
+                              + "its outcome is left to the run that took it over"
+                            : "Status changed to " + current + " while the payment was being processed");
+                }
+            }
+        }
+        return updated;
+    }
+
+    // Claims older than this belong to a run that died during its gateway calls
+    private LocalDateTime claimExpiration() {
+        return LocalDateTime.now().minus(claimTimeout);
+    }
+
+    private PaiementGateway.Reponse charger(PaiementGateway.Demande demande) {
+        long start = System.nanoTime();
+        String outcome = "erreur";
+        try {
+            PaiementGateway.Reponse reponse = paiementGateway.charger(demande);
+            outcome = reponse.accepte() ? "accepte" : "refuse";
+            return reponse;
+        } finally {
+            meterRegistry.timer("paiements.gateway.appels", "resultat", outcome)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gatewayExecutor.shutdownNow();
+    }
+}
@@ -1,85 +1,227 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.RevenuJournalierService.Ligne;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class PaiementService {
 
     private final PaiementRepository paiementRepository;
+    private final RevenuJournalierService revenuJournalierService;
 
     @Autowired
-    public PaiementService(PaiementRepository paiementRepository) {
+    public PaiementService(PaiementRepository paiementRepository, RevenuJournalierService revenuJournalierService) {
         this.paiementRepository = paiementRepository;
+        this.revenuJournalierService = revenuJournalierService;
     }
 
-    public List<Paiement> getAllPaiements() {
-        return paiementRepository.findAll();
+    public List<PaiementDTO> getAllPaiements() {
+        return paiementRepository.findAll().stream().map(PaiementDTO::of).toList();
     }
 
-    public Optional<Paiement> getPaiementById(Long id) {
-        return paiementRepository.findById(id);
+    public CursorPageDTO<PaiementDTO> getPaiementsPage(String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        Long afterId = CursorCodec.decodeId(cursor);
+        List<Paiement> rows = paiementRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize, paiement -> CursorCodec.encodeId(paiement.getId())).map(PaiementDTO::of);
+    }
+
+    public Optional<PaiementDTO> getPaiementById(Long id) {
+        return paiementRepository.findById(id).map(PaiementDTO::of);
     }
 
+    @Transactional
     public Paiement savePaiement(Paiement paiement) {
-        return paiementRepository.save(paiement);
+        Ligne avant = paiement.getId() != null
+                ? paiementRepository.lockById(paiement.getId()).map(Ligne::of).orElse(null)
+                : null;
+        Paiement savedPaiement = paiementRepository.save(paiement);
+        revenuJournalierService.track(avant, Ligne.of(savedPaiement));
+        return savedPaiement;
     }
 
+    /**
+     * Applies the non-null fields of the given payment to an existing one. The row is locked and
+     * read in the same transaction as the write, so a concurrent change is never overwritten with
+     * stale values and the revenue rollup moves from the current row.
+     * @param id payment ID
+     * @param details new values; null fields are left unchanged
+     * @return the updated payment, or null if it does not exist
+     */
+    @Transactional
+    public Paiement updatePaiement(Long id, Paiement details) {
+        Optional<Paiement> paiementOpt = paiementRepository.lockById(id);
+        if (paiementOpt.isEmpty()) {
+            return null;
+        }
+
+        Paiement paiement = paiementOpt.get();
+        Ligne avant = Ligne.of(paiement);
+        if (details.getDate() != null) {
+            paiement.setDate(details.getDate());
+        }
+        if (details.getMontantPaye() != null) {
+            paiement.setMontantPaye(details.getMontantPaye());
+        }
+        if (details.getMode() != null) {
+            paiement.setMode(details.getMode());
+        }
+        if (details.getStatut() != null) {
+            paiement.setStatut(details.getStatut());
+        }
+        Paiement savedPaiement = paiementRepository.save(paiement);
+        revenuJournalierService.track(avant, Ligne.of(savedPaiement));
+        return savedPaiement;
+    }
+
+    @Transactional
     public void deletePaiement(Long id) {
-        paiementRepository.deleteById(id);
+        paiementRepository.lockById(id).ifPresent(paiement -> {
+            revenuJournalierService.track(Ligne.of(paiement), null);
+            paiementRepository.delete(paiement);
+        });
     }
 
+    @Transactional
     public boolean existsById(Long id) {
         return paiementRepository.existsById(id);
     }
 
+    @Transactional
     public Paiement updatePaiementStatus(Long id, StatutPaiement statut) {
-        Optional<Paiement> paiementOpt = paiementRepository.findById(id);
+        Optional<Paiement> paiementOpt = paiementRepository.lockById(id);
         if (paiementOpt.isEmpty()) {
             return null;
         }
         
         Paiement paiement = paiementOpt.get();
+        Ligne avant = Ligne.of(paiement);
         paiement.setStatut(statut);
-        return paiementRepository.save(paiement);
+        Paiement savedPaiement = paiementRepository.save(paiement);
+        revenuJournalierService.track(avant, Ligne.of(savedPaiement));
+        return savedPaiement;
     }
 
-    public Paiement processPaiement(Long id) {
-        Optional<Paiement> paiementOpt = paiementRepository.findById(id);
-        if (paiementOpt.isEmpty()) {
-            return null;
+    /**
+     * Claims payments before their gateway call, in a short transaction of its own. Only the
+     * EN_ATTENTE payments that no other run holds, or whose claim is older than the expiration,
+     * are claimed, so a payment is never sent to the gateway by two runs at once.
+     * @param ids payment IDs
+     * @param jeton token identifying the run
+     * @param expiration claims taken before this date are considered abandoned
+     * @return id, statut, mode, montantPaye and claim token of the payments found; the claimed ones carry the token
+     */
+    @Transactional
+    public List<Object[]> claimEnAttente(Collection<Long> ids, String jeton, LocalDateTime expiration) {
+        paiementRepository.claimByIdInAndStatut(ids, StatutPaiement.EN_ATTENTE, jeton, LocalDateTime.now(), expiration);
+        return paiementRepository.findGatewayRowsByIdIn(ids);
+    }
+
+    /**
+     * Gives back the claims of payments that were not charged, so that the next run takes them
+     * @param ids payment IDs
+     * @param jeton token of the run that claimed them
+     */
+    @Transactional
+    public void releaseClaims(Collection<Long> ids, String jeton) {
+        if (!ids.isEmpty()) {
+            paiementRepository.releaseClaims(ids, jeton);
         }
-        
-        Paiement paiement = paiementOpt.get();
-        paiement.setStatut(StatutPaiement.EFFECTUE);
-        return paiementRepository.save(paiement);
     }
 
-    public List<Paiement> getPaiementsByCommandeId(Long commandeId) {
-        return paiementRepository.findByCommandeId(commandeId);
+    /**
+     * Moves payments out of EN_ATTENTE once the gateway answered, dropping their claim. The
+     * payments are locked first; those that already left EN_ATTENTE, or whose claim expired and
+     * was taken over by another run, are not touched.
+     * @param ids payment IDs
+     * @param statut new status
+     * @param jeton token of the run that claimed them
+     * @return the IDs of the payments that moved
+     */
+    @Transactional
+    public List<Long> updateStatutsEnAttente(Collection<Long> ids, StatutPaiement statut, String jeton) {
+        List<Object[]> rows = paiementRepository.lockRevenuRowsByIdInAndStatut(ids, StatutPaiement.EN_ATTENTE, jeton);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> moved = new ArrayList<>(rows.size());
+        List<Ligne> avant = new ArrayList<>(rows.size());
+        List<Ligne> apres = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            moved.add((Long) row[0]);
+            LocalDateTime date = (LocalDateTime) row[1];
+            ModePaiement mode = (ModePaiement) row[2];
+            Double montant = (Double) row[3];
+            Ligne ligne = Ligne.of(date, mode, StatutPaiement.EN_ATTENTE, montant);
+            if (ligne != null) {
+                avant.add(ligne);
+                apres.add(Ligne.of(date, mode, statut, montant));
+            }
+        }
+        paiementRepository.updateStatutByIdInAndStatut(moved, StatutPaiement.EN_ATTENTE, jeton, statut);
+        revenuJournalierService.track(avant, apres);
+        return moved;
+    }
+
+    /**
+     * Single payment version of {@link #updateStatutsEnAttente}. The payment is read back in the
+     * same transaction, from the primary database, so the caller gets the status just written.
+     * @param id payment ID
+     * @param statut new status
+     * @param jeton token of the run that claimed it
+     * @return the payment as stored, or null if it was deleted meanwhile
+     */
+    @Transactional
+    public Paiement updateStatutEnAttente(Long id, StatutPaiement statut, String jeton) {
+        updateStatutsEnAttente(List.of(id), statut, jeton);
+        return paiementRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Reads a payment from the primary database, for a caller that has just changed it or that
+     * reports its current status after a write. The replica may not have caught up yet.
+     * @param id payment ID
+     * @return the payment, if it exists
+     */
+    @Transactional
+    public Optional<Paiement> getPaiementCourant(Long id) {
+        return paiementRepository.findById(id);
+    }
+
+    public List<PaiementDTO> getPaiementsByCommandeId(Long commandeId) {
+        return paiementRepository.findByCommandeId(commandeId).stream().map(PaiementDTO::of).toList();
     }
 
-    public List<Paiement> getPaiementsByMode(ModePaiement mode) {
-        return paiementRepository.findByMode(mode);
+    public List<PaiementDTO> getPaiementsByMode(ModePaiement mode) {
+        return paiementRepository.findByMode(mode).stream().map(PaiementDTO::of).toList();
     }
 
-    public List<Paiement> getPaiementsByStatut(StatutPaiement statut) {
-        return paiementRepository.findByStatut(statut);
+    public List<PaiementDTO> getPaiementsByStatut(StatutPaiement statut) {
+        return paiementRepository.findByStatut(statut).stream().map(PaiementDTO::of).toList();
     }
 
-    public List<Paiement> getPaiementsByDateRange(LocalDateTime start, LocalDateTime end) {
-        return paiementRepository.findByDateBetween(start, end);
+    public List<PaiementDTO> getPaiementsByDateRange(LocalDateTime start, LocalDateTime end) {
+        return paiementRepository.findByDateBetween(start, end).stream().map(PaiementDTO::of).toList();
     }
 
-    public List<Paiement> getRecentPaiements(LocalDateTime fromDate) {
-        return paiementRepository.findByDateAfter(fromDate);
+    public List<PaiementDTO> getRecentPaiements(LocalDateTime fromDate) {
+        return paiementRepository.findByDateAfter(fromDate).stream().map(PaiementDTO::of).toList();
     }
 }
\ No newline at end of file
@@ -1,50 +1,113 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.config.CacheConfig;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ProduitDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
-import jakarta.transaction.Transactional;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.search.NameSearchIndexes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class ProduitService {
 
     private final ProduitRepository produitRepository;
+    private final NameSearchIndexes nameSearchIndexes;
 
     @Autowired
-    public ProduitService(ProduitRepository produitRepository) {
+    public ProduitService(ProduitRepository produitRepository, NameSearchIndexes nameSearchIndexes) {
         this.produitRepository = produitRepository;
+        this.nameSearchIndexes = nameSearchIndexes;
     }
 
-    public List<Produit> getAllProduits() {
-        return produitRepository.findAll();
+    public List<ProduitDTO> getAllProduits() {
+        return produitRepository.findAll().stream().map(ProduitDTO::of).toList();
     }
 
-    public Optional<Produit> getProduitById(Long id) {
-        return produitRepository.findById(id);
+    public CursorPageDTO<ProduitDTO> getProduitsPage(String cursor, Integer limit) {
+        int pageSize = CursorCodec.normalizeLimit(limit);
+        Long afterId = CursorCodec.decodeId(cursor);
+        List<Produit> rows = produitRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        return CursorPageDTO.of(rows, pageSize, produit -> CursorCodec.encodeId(produit.getId())).map(ProduitDTO::of);
     }
 
+    /**
+     * Reads a product through the catalog cache. The cached copy may lag behind concurrent
+     * reservations; stock decisions must use {@link #hasEnoughStock(Long, Integer)} or
+     * {@link #getProduitsByIds(Collection)}, which always read the database.
+     * @param id product ID
+     * @return the product, if it exists
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUITS, unless = "#result == null")
+    public Optional<ProduitDTO> getProduitById(Long id) {
+        return produitRepository.findById(id).map(ProduitDTO::of);
+    }
+
+    /**
+     * Checks that a product exists before it is updated or deleted. Reads the primary database, not the cache.
+     * @param id product ID
+     * @return true if the product exists
+     */
+    @Transactional
+    public boolean existsById(Long id) {
+        return produitRepository.existsById(id);
+    }
+
+    /**
+     * Loads several products in a single query, bypassing the cache. Stock decisions are taken on
+     * them, so they are read from the primary database, not the replica.
+     * @param ids product IDs
+     * @return the products found, in no particular order
+     */
+    @Transactional
+    public List<Produit> getProduitsByIds(Collection<Long> ids) {
+        return produitRepository.findAllById(ids);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUITS, key = "#produit.id", condition = "#produit.id != null")
     public Produit saveProduit(Produit produit) {
-        return produitRepository.save(produit);
+        Produit saved = produitRepository.save(produit);
+        nameSearchIndexes.produits().putAfterCommit(saved.getId(), saved.getNom());
+        return saved;
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUITS)
     public void deleteProduit(Long id) {
         produitRepository.deleteById(id);
+        nameSearchIndexes.produits().removeAfterCommit(id);
     }
 
-    public List<Produit> searchProduitsByNom(String nom) {
-        return produitRepository.findByNomContainingIgnoreCase(nom);
+    /**
+     * Searches products by name through the trigram index, best matches first
+     * @param nom part of the name
+     * @return matching products
+     */
+    public List<ProduitDTO> searchProduitsByNom(String nom) {
+        return nameSearchIndexes.produits().search(nom, produitRepository::findAllById,
+                produitRepository::findByNomContainingIgnoreCase, Produit::getNom)
+                .stream().map(ProduitDTO::of).toList();
     }
 
     /**
-     * Checks if there's sufficient stock for a product
+     * Checks if there's sufficient stock for a product. Reads the primary database, not the cache.
      * @param produitId product ID
      * @param quantite quantity needed
      * @return true if there is sufficient stock, false otherwise
      */
+    @Transactional
     public boolean hasEnoughStock(Long produitId, Integer quantite) {
         Optional<Produit> produitOpt = produitRepository.findById(produitId);
         if (produitOpt.isEmpty()) {
@@ -52,47 +115,48 @@ public class ProduitService {
         }
         
         Produit produit = produitOpt.get();
-        return produit.getStock() >= quantite;
+        return produit.getStockDisponible() >= quantite;
     }
     
     /**
-     * Reduces stock quantity when products are delivered
+     * Removes stock outside of an order, e.g. lost or returned goods. A single guarded UPDATE:
+     * the stock reserved by pending orders cannot be removed.
      * @param produitId product ID
-     * @param quantite quantity to reduce
+     * @param quantite quantity to remove
      * @return updated Product
-     * @throws IllegalStateException if not enough stock
+     * @throws IllegalStateException if the stock not reserved by orders is insufficient
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUITS, key = "#produitId")
     public Produit reduceStock(Long produitId, Integer quantite) {
-        Optional<Produit> produitOpt = produitRepository.findById(produitId);
-        if (produitOpt.isEmpty()) {
-            throw new IllegalArgumentException("Product not found: " + produitId);
-        }
-        
-        Produit produit = produitOpt.get();
-        if (produit.getStock() < quantite) {
+        checkQuantite(quantite);
+        if (produitRepository.reduceStock(produitId, quantite) == 0) {
+            Produit produit = produitRepository.findById(produitId)
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found: " + produitId));
             throw new IllegalStateException("Insufficient stock for product: " + produit.getNom());
         }
-        
-        produit.setStock(produit.getStock() - quantite);
-        return produitRepository.save(produit);
+        return produitRepository.findById(produitId).orElseThrow();
     }
     
     /**
-     * Adds stock quantity when new stock is received
+     * Adds stock quantity when new stock is received, with a single UPDATE
      * @param produitId product ID
      * @param quantite quantity to add
      * @return updated Product
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUITS, key = "#produitId")
     public Produit addStock(Long produitId, Integer quantite) {
-        Optional<Produit> produitOpt = produitRepository.findById(produitId);
-        if (produitOpt.isEmpty()) {
+        checkQuantite(quantite);
+        if (produitRepository.addStock(produitId, quantite) == 0) {
             throw new IllegalArgumentException("Product not found: " + produitId);
         }
-        
-        Produit produit = produitOpt.get();
-        produit.setStock(produit.getStock() + quantite);
-        return produitRepository.save(produit);
+        return produitRepository.findById(produitId).orElseThrow();
+    }
+
+    private static void checkQuantite(Integer quantite) {
+        if (quantite == null || quantite <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.RevenuTotalDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.RevenuJournalier;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.RevenuJournalierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Daily revenue rollup ({@link RevenuJournalier}), so that revenue over a date range is read from
+ * a few rows per day instead of summing the payments. Every payment change is applied as a delta
+ * (the old bucket loses the payment, the new one gains it) by an upsert in the caller's
+ * transaction; the caller holds a lock on the payment so that a change is never counted twice.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RevenuJournalierService {
+
+    // One statement per bucket, run as one JDBC batch in bucket order. MySQL takes the inserted row
+    // through an alias (VALUES(col) is deprecated since 8.0.20); H2, used by the tests, only knows VALUES(col).
+    private static final String UPSERT_SQL = "INSERT INTO revenu_journalier (jour, mode, statut, nombre, montant) "
+            + "VALUES (?, ?, ?, ?, ?) AS n "
+            + "ON DUPLICATE KEY UPDATE nombre = revenu_journalier.nombre + n.nombre, "
+            + "montant = revenu_journalier.montant + n.montant";
+    private static final String UPSERT_SQL_H2 = "INSERT INTO revenu_journalier (jour, mode, statut, nombre, montant) "
+            + "VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE nombre = nombre + VALUES(nombre), montant = montant + VALUES(montant)";
+    private static final String BACKFILL_SQL = "INSERT INTO revenu_journalier (jour, mode, statut, nombre, montant) "
+            + "SELECT CAST(p.date AS DATE), p.mode, p.statut, COUNT(*), "
+            + "COALESCE(SUM(CAST(p.montant_paye AS DECIMAL(19,2))), 0) FROM paiement p "
+            + "WHERE p.date IS NOT NULL AND p.mode IS NOT NULL AND p.statut IS NOT NULL "
+            + "GROUP BY CAST(p.date AS DATE), p.mode, p.statut";
+
+    private static final Comparator<RevenuJournalier.Cle> CLE_ORDER = Comparator
+            .comparing(RevenuJournalier.Cle::getJour)
+            .thenComparing(RevenuJournalier.Cle::getMode)
+            .thenComparing(RevenuJournalier.Cle::getStatut);
+
+    /**
+     * What a payment contributes to the rollup: its bucket and its amount rounded to the cent
+     */
+    public record Ligne(RevenuJournalier.Cle cle, BigDecimal montant) {
+
+        /**
+         * @return the contribution, or null for a payment that is not counted (no date, mode or status)
+         */
+        public static Ligne of(LocalDateTime date, ModePaiement mode, StatutPaiement statut, Double montant) {
+            if (date == null || mode == null || statut == null) {
+                return null;
+            }
+            BigDecimal arrondi = montant != null
+                    ? BigDecimal.valueOf(montant).setScale(2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+            return new Ligne(new RevenuJournalier.Cle(date.toLocalDate(), mode, statut), arrondi);
+        }
+
+        public static Ligne of(Paiement paiement) {
+            return of(paiement.getDate(), paiement.getMode(), paiement.getStatut(), paiement.getMontantPaye());
+        }
+    }
+
+    private record Delta(long nombre, BigDecimal montant) {
+
+        Delta plus(long autreNombre, BigDecimal autreMontant) {
+            return new Delta(nombre + autreNombre, montant.add(autreMontant));
+        }
+    }
+
+    private final RevenuJournalierRepository revenuJournalierRepository;
+    private final PaiementRepository paiementRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+
+    @Autowired
+    public RevenuJournalierService(
+            RevenuJournalierRepository revenuJournalierRepository,
+            PaiementRepository paiementRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.datasource.url}") String datasourceUrl) {
+        this.revenuJournalierRepository = revenuJournalierRepository;
+        this.paiementRepository = paiementRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = DatabaseDriver.fromJdbcUrl(datasourceUrl) == DatabaseDriver.H2 ? UPSERT_SQL_H2 : UPSERT_SQL;
+    }
+
+    public List<RevenuJournalier> getRevenus(LocalDate start, LocalDate end, ModePaiement mode, StatutPaiement statut) {
+        return revenuJournalierRepository.findByJourBetween(start, end, mode, statut);
+    }
+
+    public List<RevenuTotalDTO> getTotaux(LocalDate start, LocalDate end) {
+        return revenuJournalierRepository.findTotauxByJourBetween(start, end);
+    }
+
+    /**
+     * Moves one payment from its old bucket to its new one
+     * @param avant contribution before the change, null for a new payment
+     * @param apres contribution after the change, null for a deleted payment
+     */
+    @Transactional
+    public void track(Ligne avant, Ligne apres) {
+        track(avant != null ? List.of(avant) : List.of(), apres != null ? List.of(apres) : List.of());
+    }
+
+    /**
+     * Applies many payment changes at once, with one upsert per bucket touched
+     * @param avant contributions removed
+     * @param apres contributions added
+     */
+    @Transactional
+    public void track(Collection<Ligne> avant, Collection<Ligne> apres) {
+        SortedMap<RevenuJournalier.Cle, Delta> deltas = new TreeMap<>(CLE_ORDER);
+        for (Ligne ligne : avant) {
+            deltas.merge(ligne.cle(), new Delta(-1, ligne.montant().negate()),
+                    (delta, autre) -> delta.plus(autre.nombre(), autre.montant()));
+        }
+        for (Ligne ligne : apres) {
+            deltas.merge(ligne.cle(), new Delta(1, ligne.montant()),
+                    (delta, autre) -> delta.plus(autre.nombre(), autre.montant()));
+        }
+        deltas.values().removeIf(delta -> delta.nombre() == 0 && delta.montant().signum() == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((cle, delta) -> args.add(new Object[]{
+                Date.valueOf(cle.getJour()), cle.getMode().name(), cle.getStatut().name(),
+                delta.nombre(), delta.montant()}));
+        jdbcTemplate.batchUpdate(upsertSql, args);
+    }
+
+    /**
+     * Removes the payment of an order about to be deleted (the payment goes with the order)
+     * @param commandeId order ID
+     */
+    @Transactional
+    public void untrackCommande(Long commandeId) {
+        paiementRepository.lockByCommandeId(commandeId)
+                .ifPresent(paiement -> track(Ligne.of(paiement), null));
+    }
+
+    /**
+     * Removes the payments of a client about to be deleted with all their orders
+     * @param clientId client ID
+     */
+    @Transactional
+    public void untrackClient(Long clientId) {
+        List<Ligne> lignes = paiementRepository.lockByCommandeClientId(clientId).stream()
+                .map(Ligne::of)
+                .filter(Objects::nonNull)
+                .toList();
+        track(lignes, List.of());
+    }
+
+    /**
+     * Rebuilds the whole rollup from the payments. Meant as a one-off job (the V3 migration
+     * already ran it once) or to recover from changes made outside the application; it
+     * rewrites every row, so run it when payments are not being processed.
+     * @return the number of rollup rows written
+     */
+    @Transactional
+    public int backfill() {
+        jdbcTemplate.update("DELETE FROM revenu_journalier");
+        return jdbcTemplate.update(BACKFILL_SQL);
+    }
+}
@@ -0,0 +1,193 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.StatutChangeEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes order and delivery status changes to Server-Sent Events subscribers once the change is
+ * committed. Each subscriber has a bounded queue, so a slow client never blocks the transaction
+ * that published the change. When a queue is full the new events are dropped and the client is
+ * told how many it missed with an "overflow" event; a client that lets a whole queue worth of
+ * events drop is disconnected.
+ * <p>
+ * A send blocks while the client's socket is full. Each queue is drained by its own sender thread,
+ * taken from a pool that grows with the number of subscribers that have events pending, so
+ * blocked clients cannot hold back the others however many there are. Completing an emitter waits
+ * for its send in progress, so disconnected clients are completed on a separate pool.
+ */
+@Service
+public class StatutEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(StatutEventBroadcaster.class);
+
+    static final String OVERFLOW_EVENT = "overflow";
+    private static final Object HEARTBEAT = new Object();
+
+    /**
+     * Subscription filter, null fields match everything
+     */
+    public record Filtre(Long clientId, Long transporteurId, String statut) {
+
+        boolean matches(StatutChangeEventDTO event) {
+            return (clientId == null || clientId.equals(event.getClientId()))
+                    && (transporteurId == null || transporteurId.equals(event.getTransporteurId()))
+                    && (statut == null || statut.equalsIgnoreCase(event.getNouveauStatut()));
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Filtre filtre;
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Events dropped since the last successful send
+        private final AtomicInteger dropped = new AtomicInteger();
+
+        private Subscriber(SseEmitter emitter, Filtre filtre) {
+            this.emitter = emitter;
+            this.filtre = filtre;
+        }
+    }
+
+    private final int bufferSize;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService senders;
+    private final ExecutorService completers;
+    private final Counter droppedCounter;
+    private final Counter disconnectedCounter;
+
+    @Autowired
+    public StatutEventBroadcaster(
+            MeterRegistry meterRegistry,
+            @Value("${evenements.sse.buffer-size:256}") int bufferSize) {
+        this.bufferSize = bufferSize;
+        // At most one sender per subscriber with events pending, and one completer per disconnected subscriber
+        this.senders = Executors.newCachedThreadPool(daemonThreads("sse-sender-"));
+        this.completers = Executors.newCachedThreadPool(daemonThreads("sse-completer-"));
+        this.droppedCounter = meterRegistry.counter("evenements.sse.dropped");
+        this.disconnectedCounter = meterRegistry.counter("evenements.sse.slow.disconnected");
+        meterRegistry.gauge("evenements.sse.subscribers", subscribers, List::size);
+    }
+
+    /**
+     * Registers an emitter that will receive the events matching the filter
+     */
+    public SseEmitter subscribe(SseEmitter emitter, Filtre filtre) {
+        Subscriber subscriber = new Subscriber(emitter, filtre);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Runs after the commit of the publishing transaction, or right away outside of one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatutChange(StatutChangeEventDTO event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.filtre.matches(event)) {
+                offer(subscriber, event);
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and finds the clients that went away
+    @Scheduled(fixedDelayString = "${evenements.sse.heartbeat-ms:30000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, HEARTBEAT);
+        }
+    }
+
+    private void offer(Subscriber subscriber, Object event) {
+        if (!subscriber.queue.offer(event)) {
+            droppedCounter.increment();
+            if (subscriber.dropped.incrementAndGet() >= bufferSize) {
+                disconnect(subscriber);
+                return;
+            }
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Object event;
+            while (subscribers.contains(subscriber) && (event = subscriber.queue.poll()) != null) {
+                int dropped = subscriber.dropped.getAndSet(0);
+                if (dropped > 0) {
+                    subscriber.emitter.send(SseEmitter.event().name(OVERFLOW_EVENT).data(dropped));
+                }
+                if (event == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    StatutChangeEventDTO statutChange = (StatutChangeEventDTO) event;
+                    subscriber.emitter.send(SseEmitter.event().name(statutChange.getType()).data(statutChange));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client gone or emitter already completed
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event may have been queued after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty() && subscribers.contains(subscriber)
+                && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        disconnectedCounter.increment();
+        subscriber.queue.clear();
+        log.warn("Disconnected a slow event stream subscriber after {} dropped events", bufferSize);
+        // The sender may be stuck writing to this client, and complete() waits for it
+        completers.execute(subscriber.emitter::complete);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            completers.execute(subscriber.emitter::complete);
+        }
+        subscribers.clear();
+        completers.shutdown();
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,226 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.config.CacheConfig;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.ReservationStock;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.ReservationStock.StatutReservation;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ReservationStockRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Reservation ledger on top of {@link Produit#getStock()}. Stock is reserved when an order is
+ * placed, consumed when it is delivered and released when it is canceled. Every change of
+ * {@link Produit#getStockReserve()} is a conditional UPDATE, so concurrent orders can never
+ * reserve more units than the product holds.
+ */
+@Service
+public class StockReservationService {
+
+    // Delivery statements, run as one JDBC batch with one statement per product in ascending ID order
+    private static final String CONSUME_RESERVED_SQL = "UPDATE produit SET stock = stock - ?, "
+            + "stock_reserve = stock_reserve - ? WHERE id = ? AND stock_reserve >= ? AND stock >= ?";
+    private static final String DECREMENT_STOCK_SQL = "UPDATE produit SET stock = stock - ? WHERE id = ? AND stock >= ?";
+
+    private final ProduitRepository produitRepository;
+    private final ReservationStockRepository reservationStockRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache produitCache;
+
+    @Autowired
+    public StockReservationService(
+            ProduitRepository produitRepository,
+            ReservationStockRepository reservationStockRepository,
+            EntityManager entityManager,
+            JdbcTemplate jdbcTemplate,
+            CacheManager cacheManager) {
+        this.produitRepository = produitRepository;
+        this.reservationStockRepository = reservationStockRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.produitCache = cacheManager.getCache(CacheConfig.PRODUITS);
+    }
+
+    /**
+     * Reserves stock for each product, all or nothing. Products are handled in ID order so that
+     * concurrent reservations lock rows in the same order. When a product is short, the units
+     * reserved by this call are released again.
+     * @param productQuantities quantity to reserve per product ID
+     * @return IDs of the products that were short, empty if everything was reserved
+     */
+    @Transactional
+    public List<Long> tryReserve(Map<Long, Integer> productQuantities) {
+        Map<Long, Integer> reserved = new TreeMap<>();
+        List<Long> shortProducts = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(productQuantities).entrySet()) {
+            if (produitRepository.reserveStock(entry.getKey(), entry.getValue()) == 1) {
+                reserved.put(entry.getKey(), entry.getValue());
+            } else {
+                shortProducts.add(entry.getKey());
+            }
+        }
+        if (!shortProducts.isEmpty()) {
+            reserved.forEach(produitRepository::releaseStock);
+        } else {
+            evictProduits(reserved.keySet());
+        }
+        return shortProducts;
+    }
+
+    /**
+     * Records the ledger entries of stock already reserved with {@link #tryReserve(Map)}.
+     * The entries are persisted with the order and inserted with it.
+     * @param commande the order holding the stock
+     * @param productQuantities quantity reserved per product ID
+     */
+    @Transactional
+    public void recordReservations(Commande commande, Map<Long, Integer> productQuantities) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(productQuantities).entrySet()) {
+            Produit produit = entityManager.getReference(Produit.class, entry.getKey());
+            entityManager.persist(new ReservationStock(
+                    null, commande, produit, entry.getValue(), StatutReservation.RESERVEE, now));
+        }
+    }
+
+    /**
+     * Releases the stock still held by the given orders, for instance when they are canceled.
+     * Orders without active reservations are ignored.
+     * @param commandeIds order IDs
+     */
+    @Transactional
+    public void releaseForCommandes(Collection<Long> commandeIds) {
+        if (commandeIds.isEmpty()) {
+            return;
+        }
+        List<ReservationStock> reservations =
+                reservationStockRepository.lockByCommandeIdInAndStatut(commandeIds, StatutReservation.RESERVEE);
+        if (reservations.isEmpty()) {
+            return;
+        }
+        SortedMap<Long, Integer> quantities = sumByProduct(reservations);
+        quantities.forEach((produitId, quantite) -> {
+            if (produitRepository.releaseStock(produitId, quantite) != 1) {
+                throw new IllegalStateException("Reserved stock is inconsistent for product: " + produitId);
+            }
+        });
+        evictProduits(quantities.keySet());
+        reservationStockRepository.updateStatutByIdIn(ids(reservations), StatutReservation.LIBEREE);
+    }
+
+    /**
+     * Turns the reservations of delivered orders into an actual stock decrease
+     * @param commandeIds order IDs
+     * @return IDs of the orders whose reservations were consumed; orders whose stock was already
+     *         consumed or released, or placed before the ledger existed, hold none and are left to the caller
+     * @throws IllegalStateException if the reserved stock cannot be consumed
+     */
+    @Transactional
+    public Set<Long> consumeForCommandes(Collection<Long> commandeIds) {
+        if (commandeIds.isEmpty()) {
+            return Set.of();
+        }
+        List<ReservationStock> reservations =
+                reservationStockRepository.lockByCommandeIdInAndStatut(commandeIds, StatutReservation.RESERVEE);
+        if (reservations.isEmpty()) {
+            return Set.of();
+        }
+        SortedMap<Long, Integer> quantities = sumByProduct(reservations);
+        applyInIdOrder(CONSUME_RESERVED_SQL, quantities,
+                (produitId, quantite) -> new Object[]{quantite, quantite, produitId, quantite, quantite},
+                "Insufficient reserved stock for product: ");
+        reservationStockRepository.updateStatutByIdIn(ids(reservations), StatutReservation.CONSOMMEE);
+        return reservations.stream()
+                .map(reservation -> reservation.getCommande().getId())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @param commandeId order ID
+     * @return whether the order has ledger entries, whatever their status; orders placed before
+     *         the ledger existed have none
+     */
+    public boolean hasReservations(Long commandeId) {
+        return reservationStockRepository.existsByCommandeId(commandeId);
+    }
+
+    /**
+     * Removes delivered quantities from the stock of products that were never reserved,
+     * for orders placed before the ledger existed. Either every product is decremented or none is.
+     * @param productQuantities quantity per product ID
+     * @throws IllegalStateException if a product is short, rolling the transaction back
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> productQuantities) {
+        applyInIdOrder(DECREMENT_STOCK_SQL, new TreeMap<>(productQuantities),
+                (produitId, quantite) -> new Object[]{quantite, produitId, quantite},
+                "Insufficient stock for product: ");
+    }
+
+    /**
+     * Sends one guarded UPDATE per product in a single JDBC batch. Rows are locked in ascending
+     * ID order, so concurrent deliveries of overlapping orders cannot deadlock.
+     * @throws IllegalStateException if a guard refused an update
+     */
+    private void applyInIdOrder(String sql, SortedMap<Long, Integer> quantities,
+                                BiFunction<Long, Integer, Object[]> parameters, String shortMessage) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        // Pending entity changes must reach the database before the plain JDBC statements
+        entityManager.flush();
+        List<Long> produitIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> batch = new ArrayList<>(produitIds.size());
+        quantities.forEach((produitId, quantite) -> batch.add(parameters.apply(produitId, quantite)));
+        int[] counts = jdbcTemplate.batchUpdate(sql, batch);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 1) {
+                throw new IllegalStateException(shortMessage + produitIds.get(i));
+            }
+        }
+        evictProduits(produitIds);
+    }
+
+    /**
+     * Releases what orders still hold and removes their ledger entries, before the orders are deleted
+     * @param commandeIds order IDs
+     */
+    @Transactional
+    public void deleteForCommandes(Collection<Long> commandeIds) {
+        if (commandeIds.isEmpty()) {
+            return;
+        }
+        releaseForCommandes(commandeIds);
+        reservationStockRepository.deleteByCommandeIdIn(commandeIds);
+    }
+
+    // Cached products show the reserved stock, so they are dropped once it changes
+    private void evictProduits(Collection<Long> produitIds) {
+        if (produitCache != null) {
+            produitIds.forEach(produitCache::evict);
+        }
+    }
+
+    private SortedMap<Long, Integer> sumByProduct(List<ReservationStock> reservations) {
+        return reservations.stream().collect(Collectors.groupingBy(
+                reservation -> reservation.getProduit().getId(), TreeMap::new,
+                Collectors.summingInt(ReservationStock::getQuantite)));
+    }
+
+    private List<Long> ids(List<ReservationStock> reservations) {
+        return reservations.stream().map(ReservationStock::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,194 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.TransporteurRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the carrier of new deliveries from live load counters kept in memory: the number of
+ * active (EN_ATTENTE or EN_COURS) deliveries per carrier and per delivery day. A carrier's load
+ * is divided by its rating, so better rated carriers receive proportionally more deliveries.
+ * Selection is lock-free: the chosen counter is claimed with a compare-and-set and the choice
+ * is made again if another thread got there first.
+ */
+@Service
+public class TransporteurAssignmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransporteurAssignmentService.class);
+
+    /**
+     * Statuses counted in a carrier's load
+     */
+    public static final Set<StatutLivraison> ACTIVE_STATUSES = EnumSet.of(StatutLivraison.EN_ATTENTE, StatutLivraison.EN_COURS);
+
+    // Weight of carriers without a rating (middle of the 0-5 scale), and floor for badly rated ones
+    private static final double DEFAULT_WEIGHT = 2.5;
+    private static final double MIN_WEIGHT = 0.5;
+
+    /**
+     * Counter bucket: one carrier on one delivery day (null day for deliveries without a date)
+     */
+    public record LoadKey(Long transporteurId, LocalDate jour) {
+    }
+
+    private final TransporteurRepository transporteurRepository;
+    private final LivraisonRepository livraisonRepository;
+
+    private final ConcurrentHashMap<LoadKey, AtomicInteger> loads = new ConcurrentHashMap<>();
+    // Carrier ID to weight, replaced as a whole when carriers change
+    private volatile Map<Long, Double> weights = Map.of();
+
+    @Autowired
+    public TransporteurAssignmentService(TransporteurRepository transporteurRepository,
+                                         LivraisonRepository livraisonRepository) {
+        this.transporteurRepository = transporteurRepository;
+        this.livraisonRepository = livraisonRepository;
+    }
+
+    /**
+     * Loads the carriers and counts the active deliveries of each from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        refreshTransporteurs();
+        Map<LoadKey, AtomicInteger> counted = new HashMap<>();
+        for (Object[] row : livraisonRepository.findTransporteurAndDateByStatutIn(ACTIVE_STATUSES)) {
+            counted.computeIfAbsent(new LoadKey((Long) row[0], toJour((LocalDateTime) row[1])),
+                    key -> new AtomicInteger()).incrementAndGet();
+        }
+        loads.clear();
+        loads.putAll(counted);
+        log.info("Loaded {} carriers and {} active delivery counters", weights.size(), counted.size());
+    }
+
+    /**
+     * Reloads carrier ratings; to be called whenever a carrier is created, rated or deleted
+     */
+    public void refreshTransporteurs() {
+        Map<Long, Double> refreshed = new HashMap<>();
+        for (Transporteur transporteur : transporteurRepository.findAll()) {
+            refreshed.put(transporteur.getId(), weightOf(transporteur.getNote()));
+        }
+        weights = Map.copyOf(refreshed);
+    }
+
+    /**
+     * Assigns the least loaded carrier, relative to its rating, for the delivery day and counts the delivery
+     * @param livraison an active delivery without carrier
+     * @return the assigned carrier ID, empty if no carrier exists
+     */
+    public Optional<Long> assign(Livraison livraison) {
+        LocalDate jour = toJour(livraison.getDateLivraison());
+        Map<Long, Double> candidates = weights;
+        while (!candidates.isEmpty()) {
+            Long bestId = null;
+            int bestLoad = 0;
+            double bestScore = Double.MAX_VALUE;
+            double bestWeight = 0;
+            for (Map.Entry<Long, Double> candidate : candidates.entrySet()) {
+                int load = counter(new LoadKey(candidate.getKey(), jour)).get();
+                double score = load / candidate.getValue();
+                if (score < bestScore
+                        || (score == bestScore && (candidate.getValue() > bestWeight
+                        || (candidate.getValue() == bestWeight && candidate.getKey() < bestId)))) {
+                    bestId = candidate.getKey();
+                    bestLoad = load;
+                    bestScore = score;
+                    bestWeight = candidate.getValue();
+                }
+            }
+            LoadKey key = new LoadKey(bestId, jour);
+            // Another thread may have taken the slot since the counter was read: choose again
+            if (counter(key).compareAndSet(bestLoad, bestLoad + 1)) {
+                undoOnRollback(null, key);
+                livraison.setTransporteur(transporteurRepository.getReferenceById(bestId));
+                return Optional.of(bestId);
+            }
+            candidates = weights;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Moves a delivery between counters after its carrier, day or status changed
+     * @param before counter of the delivery before the change, null if it was not counted
+     * @param after counter after the change, null if it is no longer counted
+     */
+    public void track(LoadKey before, LoadKey after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        adjust(before, -1);
+        adjust(after, 1);
+        undoOnRollback(before, after);
+    }
+
+    /**
+     * @return the counter a delivery belongs to, null if it has no carrier or is not active
+     */
+    public LoadKey keyOf(Livraison livraison) {
+        if (livraison.getTransporteur() == null || !ACTIVE_STATUSES.contains(livraison.getStatut())) {
+            return null;
+        }
+        return new LoadKey(livraison.getTransporteur().getId(), toJour(livraison.getDateLivraison()));
+    }
+
+    /**
+     * @return active deliveries of a carrier on a day
+     */
+    public int getLoad(Long transporteurId, LocalDate jour) {
+        AtomicInteger counter = loads.get(new LoadKey(transporteurId, jour));
+        return counter != null ? counter.get() : 0;
+    }
+
+    private AtomicInteger counter(LoadKey key) {
+        return loads.computeIfAbsent(key, ignored -> new AtomicInteger());
+    }
+
+    private void adjust(LoadKey key, int delta) {
+        if (key != null) {
+            counter(key).addAndGet(delta);
+        }
+    }
+
+    // Counters are updated as soon as the choice is made, so concurrent transactions see it;
+    // a rollback gives the slot back
+    private void undoOnRollback(LoadKey before, LoadKey after) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    adjust(after, -1);
+                    adjust(before, 1);
+                }
+            }
+        });
+    }
+
+    private static LocalDate toJour(LocalDateTime dateLivraison) {
+        return dateLivraison != null ? dateLivraison.toLocalDate() : null;
+    }
+
+    private static double weightOf(Double note) {
+        return note != null ? Math.max(note, MIN_WEIGHT) : DEFAULT_WEIGHT;
+    }
+}
@@ -1,48 +1,69 @@
 package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
 
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.TransporteurDTO;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
 import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.TransporteurRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.search.NameSearchIndexes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class TransporteurService {
 
     private final TransporteurRepository transporteurRepository;
+    private final NameSearchIndexes nameSearchIndexes;
+    private final TransporteurAssignmentService transporteurAssignmentService;
 
     @Autowired
-    public TransporteurService(TransporteurRepository transporteurRepository) {
+    public TransporteurService(
+            TransporteurRepository transporteurRepository,
+            NameSearchIndexes nameSearchIndexes,
+            TransporteurAssignmentService transporteurAssignmentService) {
         this.transporteurRepository = transporteurRepository;
+        this.nameSearchIndexes = nameSearchIndexes;
+        this.transporteurAssignmentService = transporteurAssignmentService;
     }
 
-    public List<Transporteur> getAllTransporteurs() {
-        return transporteurRepository.findAll();
+    public List<TransporteurDTO> getAllTransporteurs() {
+        return transporteurRepository.findAll().stream().map(TransporteurDTO::of).toList();
     }
 
-    public Optional<Transporteur> getTransporteurById(Long id) {
-        return transporteurRepository.findById(id);
+    public Optional<TransporteurDTO> getTransporteurById(Long id) {
+        return transporteurRepository.findById(id).map(TransporteurDTO::of);
     }
 
+    @Transactional
     public Transporteur saveTransporteur(Transporteur transporteur) {
-        return transporteurRepository.save(transporteur);
+        Transporteur saved = transporteurRepository.save(transporteur);
+        nameSearchIndexes.transporteurs().putAfterCommit(saved.getId(), saved.getNom());
+        transporteurAssignmentService.refreshTransporteurs();
+        return saved;
     }
 
+    @Transactional
     public void deleteTransporteur(Long id) {
         transporteurRepository.deleteById(id);
+        nameSearchIndexes.transporteurs().removeAfterCommit(id);
+        transporteurAssignmentService.refreshTransporteurs();
     }
 
+    @Transactional
     public boolean existsById(Long id) {
         return transporteurRepository.existsById(id);
     }
 
-    public List<Transporteur> getTransporteursByNom(String nom) {
-        return transporteurRepository.findByNomContainingIgnoreCase(nom);
+    public List<TransporteurDTO> getTransporteursByNom(String nom) {
+        return searchTransporteurs(nom);
     }
 
-    public List<Transporteur> searchTransporteurs(String query) {
-        return transporteurRepository.findByNomContainingIgnoreCase(query);
+    public List<TransporteurDTO> searchTransporteurs(String query) {
+        return nameSearchIndexes.transporteurs().search(query, transporteurRepository::findAllById,
+                transporteurRepository::findByNomContainingIgnoreCase, Transporteur::getNom)
+                .stream().map(TransporteurDTO::of).toList();
     }
 }
@@ -0,0 +1,23 @@
+-- Indexes backing the repository queries. Foreign keys already come with an index on their column,
+-- substring searches on names are served by the in-memory trigram index (see NameSearchIndexes).
+
+-- Orders: findByStatut / findSummariesByStatut (ORDER BY date), findByClientId / findSummariesByClientId (ORDER BY date).
+-- Date ranges and keyset pagination use idx_commande_date_id (V6).
+CREATE INDEX idx_commande_statut_date ON commande (statut, date);
+CREATE INDEX idx_commande_client_date ON commande (client_id, date);
+
+-- Deliveries: findByStatut, carrier load counters and late delivery windows (statut IN ... AND date_livraison range)
+CREATE INDEX idx_livraison_statut_date ON livraison (statut, date_livraison);
+-- findByDateLivraisonBetween, findByDateLivraisonAfterOrderByDateLivraison
+CREATE INDEX idx_livraison_date ON livraison (date_livraison);
+-- findByTransporteurId, findByTransporteurIsNullAndStatutIn
+CREATE INDEX idx_livraison_transporteur_statut ON livraison (transporteur_id, statut);
+
+-- Payments: findByDateBetween / findByDateAfter, findByStatut, findByMode
+CREATE INDEX idx_paiement_date ON paiement (date);
+CREATE INDEX idx_paiement_statut_date ON paiement (statut, date);
+CREATE INDEX idx_paiement_mode ON paiement (mode);
+
+-- Clients: lookup by email. Emails are stored lower-cased so the lookup is a plain equality on the index.
+UPDATE client SET email = LOWER(TRIM(email));
+CREATE INDEX idx_client_email ON client (email);
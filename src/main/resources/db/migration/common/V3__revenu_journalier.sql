@@ -0,0 +1,17 @@
+-- Daily revenue rollup: one row per day, payment mode and payment status, kept up to date by
+-- RevenuJournalierService. Payments without a date or a mode are not counted.
+CREATE TABLE revenu_journalier (
+    jour DATE NOT NULL,
+    mode ENUM ('CARTE_CREDIT','CHEQUE','ESPECES','PAYPAL','VIREMENT') NOT NULL,
+    statut ENUM ('ECHEC','EFFECTUE','EN_ATTENTE','REMBOURSE') NOT NULL,
+    nombre BIGINT NOT NULL,
+    montant DECIMAL(19,2) NOT NULL,
+    PRIMARY KEY (jour, mode, statut)
+);
+
+-- Backfill from the existing payments (same rounding as the incremental updates: per payment, to the cent)
+INSERT INTO revenu_journalier (jour, mode, statut, nombre, montant)
+SELECT CAST(p.date AS DATE), p.mode, p.statut, COUNT(*), COALESCE(SUM(CAST(p.montant_paye AS DECIMAL(19,2))), 0)
+FROM paiement p
+WHERE p.date IS NOT NULL AND p.mode IS NOT NULL AND p.statut IS NOT NULL
+GROUP BY CAST(p.date AS DATE), p.mode, p.statut;
@@ -0,0 +1,6 @@
+-- City and postal code parsed from the free-text client address, for by-city / by-postal-code lookups.
+-- Existing rows are filled by the Java migration V5 (the parsing is done by AdresseParser).
+ALTER TABLE client ADD COLUMN ville VARCHAR(255);
+ALTER TABLE client ADD COLUMN code_postal VARCHAR(10);
+CREATE INDEX idx_client_ville ON client (ville);
+CREATE INDEX idx_client_code_postal ON client (code_postal);
@@ -0,0 +1,4 @@
+-- Claim taken on a payment while its gateway call is in flight (PaiementProcessingService), so that two
+-- processing runs never charge it twice. Claims older than paiement.batch.claim-timeout-ms are abandoned.
+ALTER TABLE paiement ADD COLUMN traitement_jeton VARCHAR(36);
+ALTER TABLE paiement ADD COLUMN traitement_debut DATETIME(6);
@@ -0,0 +1,20 @@
+-- Schema as created by ddl-auto=update before migrations were introduced.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate).
+
+create table client (id bigint not null auto_increment, adresse varchar(255), email varchar(255) not null, nom varchar(255) not null, primary key (id)) engine=InnoDB;
+create table commande (montant_total decimal(38,2), client_id bigint not null, date datetime(6) not null, id bigint not null auto_increment, statut enum ('ANNULEE','EN_ATTENTE','EN_PREPARATION','EXPEDIEE','LIVREE','VALIDEE'), primary key (id)) engine=InnoDB;
+create table fournisseur (note float(53), id bigint not null auto_increment, adresse varchar(255), email varchar(255), nom varchar(255) not null, telephone varchar(255), primary key (id)) engine=InnoDB;
+create table ligne_commande (prix_unitaire decimal(38,2) not null, quantite integer not null, commande_id bigint not null, id bigint not null auto_increment, produit_id bigint not null, primary key (id)) engine=InnoDB;
+create table livraison (cout decimal(38,2), commande_id bigint not null, date_livraison datetime(6), id bigint not null auto_increment, transporteur_id bigint, adresse_livraison varchar(255), statut enum ('ANNULEE','EN_ATTENTE','EN_COURS','LIVREE','RETARDEE'), primary key (id)) engine=InnoDB;
+create table paiement (montant_paye float(53), commande_id bigint not null, date datetime(6), id bigint not null auto_increment, mode enum ('CARTE_CREDIT','CHEQUE','ESPECES','PAYPAL','VIREMENT'), statut enum ('ECHEC','EFFECTUE','EN_ATTENTE','REMBOURSE'), primary key (id)) engine=InnoDB;
+create table produit (prix decimal(38,2) not null, stock integer not null, fournisseur_id bigint, id bigint not null auto_increment, description varchar(255), nom varchar(255) not null, primary key (id)) engine=InnoDB;
+create table transporteur (note float(53), id bigint not null auto_increment, nom varchar(255) not null, telephone varchar(255), primary key (id)) engine=InnoDB;
+alter table livraison add constraint UK1nl3j7yj3yq91ul57uujh5lrw unique (commande_id);
+alter table paiement add constraint UKri4k6vawhjoo19b5itwloxsmj unique (commande_id);
+alter table commande add constraint FK79q1nginx2k3m83vi3bt3rlon foreign key (client_id) references client (id);
+alter table ligne_commande add constraint FKaff2bjyreiuyi723relg10spm foreign key (commande_id) references commande (id);
+alter table ligne_commande add constraint FK5ykb96p8me6913jyiwbe8nyj5 foreign key (produit_id) references produit (id);
+alter table livraison add constraint FKouvi45brhke9hr6sjshfjclro foreign key (commande_id) references commande (id);
+alter table livraison add constraint FK4bv8p63q9boy34d4o2bhghitn foreign key (transporteur_id) references transporteur (id);
+alter table paiement add constraint FK7154xu8wk0uya9b09dg8pcedm foreign key (commande_id) references commande (id);
+alter table produit add constraint FKayuabstor0gbpqp7stdcqwnte foreign key (fournisseur_id) references fournisseur (id);
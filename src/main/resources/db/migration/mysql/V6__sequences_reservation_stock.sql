@@ -0,0 +1,26 @@
+-- Objects added to the entities since the baseline: pooled ID sequences for the batched inserts,
+-- the keyset pagination index and the stock reservation ledger.
+
+-- Orders and order lines take their IDs from pooled sequences (allocationSize 50), emulated with tables on MySQL.
+-- Hibernate hands out next_val - 49 .. next_val, so next_val starts 51 past the existing IDs.
+create table commande_seq (next_val bigint) engine=InnoDB;
+insert into commande_seq select coalesce(max(id), 0) + 51 from commande;
+create table ligne_commande_seq (next_val bigint) engine=InnoDB;
+insert into ligne_commande_seq select coalesce(max(id), 0) + 51 from ligne_commande;
+-- The referencing foreign keys do not allow modifying the key column while they are checked
+SET FOREIGN_KEY_CHECKS = 0;
+alter table commande modify id bigint not null;
+alter table ligne_commande modify id bigint not null;
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Keyset pagination (date, id) and date ranges on orders
+create index idx_commande_date_id on commande (date, id);
+
+-- Units held by orders not yet delivered. Existing orders hold none: they are decremented from their lines at delivery.
+alter table produit add column stock_reserve integer not null default 0;
+create table reservation_stock_seq (next_val bigint) engine=InnoDB;
+insert into reservation_stock_seq values ( 1 );
+create table reservation_stock (quantite integer, commande_id bigint not null, date_creation datetime(6), id bigint not null, produit_id bigint not null, statut enum ('CONSOMMEE','LIBEREE','RESERVEE'), primary key (id)) engine=InnoDB;
+create index idx_reservation_commande_statut on reservation_stock (commande_id, statut);
+alter table reservation_stock add constraint FKj26gxt445x9gwk3hr0iwi2e6r foreign key (commande_id) references commande (id);
+alter table reservation_stock add constraint FK7syj3ll0qtnb1yryagpin3tii foreign key (produit_id) references produit (id);
@@ -0,0 +1,78 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ClientDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ClientAdresseTests {
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cityAndPostalCodeAreParsedFromCommonLayouts() {
+        assertAdresse("12 rue de la Paix, 75002 Paris", "PARIS", "75002");
+        assertAdresse("3 Avenue Habib Bourguiba\n1000 Tunis\nTunisie", "TUNIS", "1000");
+        assertAdresse("Route de la Corniche, Sousse 4000", "SOUSSE", "4000");
+        assertAdresse("10 bd Haussmann; 75009 Paris Cedex 09; France", "PARIS", "75009");
+        assertAdresse("Rue de Gabès, Gabès", "GABES", null);
+        assertAdresse("Zone industrielle, 3000", null, "3000");
+        // Street numbers and PO boxes are too short to be taken for a postal code
+        assertAdresse("10 rue Ibn Khaldoun, BP 45, Sfax", "SFAX", null);
+        assertAdresse("Tunis", null, null);
+        assertAdresse(null, null, null);
+        assertEquals("SAINT-ETIENNE", AdresseParser.normalizeVille("  saint-étienne "));
+    }
+
+    @Test
+    void clientsAreFoundByNormalizedCityAndPostalCodePrefix() {
+        // Cities hold no digits: a unique one is spelled with letters
+        String ville = "Ville" + Long.toString(System.nanoTime(), 36).replaceAll("\\d", "x");
+        Client paris = clientService.saveClient(new Client(null, "Client Paris", "adresse-" + System.nanoTime()
+                + "@example.com", "5 rue de Rivoli, 98701 " + ville.toLowerCase(), null, null, null));
+        Client autre = clientService.saveClient(new Client(null, "Client Autre", "adresse-" + System.nanoTime()
+                + "@example.com", "8 place Carnot\n98702 " + ville, null, null, null));
+        assertEquals(ville.toUpperCase(), paris.getVille());
+        assertEquals("98701", paris.getCodePostal());
+
+        assertEquals(List.of(paris.getId(), autre.getId()), ids(clientService.getClientsByCity(" " + ville + " ")));
+        assertEquals(List.of(paris.getId(), autre.getId()), ids(clientService.getClientsByPostalCode("987")));
+        assertEquals(List.of(autre.getId()), ids(clientService.getClientsByPostalCode("98702")));
+        assertTrue(clientService.getClientsByPostalCode(" ").isEmpty());
+
+        // Moving recomputes the columns
+        autre.setAdresse("1 rue du Port, 98801 Ailleurs");
+        clientService.saveClient(autre);
+        assertEquals(List.of(paris.getId()), ids(clientService.getClientsByCity(ville)));
+        assertEquals(List.of(autre.getId()), ids(clientService.getClientsByPostalCode("98801")));
+    }
+
+    @Test
+    void existingAddressesAreParsedByTheJavaMigration() {
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"flyway_schema_history\" "
+                + "WHERE \"version\" = '5' AND \"type\" = 'JDBC' AND \"success\"", Integer.class));
+    }
+
+    private static void assertAdresse(String adresse, String ville, String codePostal) {
+        AdresseParser.Adresse parsed = AdresseParser.parse(adresse);
+        assertEquals(ville, parsed.ville(), "ville of " + adresse);
+        assertEquals(codePostal, parsed.codePostal(), "codePostal of " + adresse);
+    }
+
+    private static List<Long> ids(List<ClientDTO> clients) {
+        return clients.stream().map(ClientDTO::getId).toList();
+    }
+}
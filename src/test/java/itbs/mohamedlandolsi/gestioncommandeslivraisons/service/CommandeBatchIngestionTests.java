@@ -0,0 +1,127 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeBatchResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CommandeBatchIngestionTests {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandeBatchIngestionTests.class);
+
+    private static final int ORDER_COUNT = 500;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private List<Produit> produits;
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Batch", "1 Rue du Lac, 1053 Tunis");
+        produits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            produits.add(fixture.produit("Produit batch " + i, new BigDecimal("10.00"), 1_000_000));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void batchReportsErrorsPerOrderAndSavesTheValidOnes() {
+        Commande valide = newCommande(client.getId(), 2);
+        Commande clientInconnu = newCommande(Long.MAX_VALUE, 1);
+        Commande sansLignes = newCommande(client.getId(), 1);
+        sansLignes.setLignesCommande(new ArrayList<>());
+        Commande stockInsuffisant = newCommande(client.getId(), 1);
+        stockInsuffisant.getLignesCommande().get(0).setQuantite(2_000_000);
+
+        CommandeBatchResultDTO result = commandeService.saveCommandesBatch(
+                List.of(valide, clientInconnu, sansLignes, stockInsuffisant));
+
+        assertEquals(4, result.getTotal());
+        assertEquals(1, result.getAcceptees());
+        assertEquals(3, result.getRejetees());
+
+        CommandeBatchResultDTO.Resultat premier = result.getResultats().get(0);
+        assertTrue(premier.isSucces());
+        assertNotNull(premier.getCommandeId());
+        Commande saved = commandeRepository.findById(premier.getCommandeId()).orElseThrow();
+        assertEquals(0, new BigDecimal("60.00").compareTo(saved.getMontantTotal()));
+
+        assertTrue(result.getResultats().get(1).getErreur().contains("does not exist"));
+        assertTrue(result.getResultats().get(2).getErreur().contains("at least one item"));
+        assertTrue(result.getResultats().get(3).getErreur().contains("Insufficient stock"));
+    }
+
+    @Test
+    void batchAccountsForStockClaimedByEarlierOrdersOfTheSameBatch() {
+        Produit rare = fixture.produit("Produit rare", new BigDecimal("5.00"), 3);
+        Commande premiere = newCommande(client.getId(), 2, rare);
+        Commande seconde = newCommande(client.getId(), 2, rare);
+
+        CommandeBatchResultDTO result = commandeService.saveCommandesBatch(List.of(premiere, seconde));
+
+        assertTrue(result.getResultats().get(0).isSucces());
+        assertFalse(result.getResultats().get(1).isSucces());
+    }
+
+    @Test
+    void batchThroughputComparedToSingleOrderPath() {
+        List<Commande> unitaires = new ArrayList<>();
+        List<Commande> lot = new ArrayList<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            unitaires.add(newCommande(client.getId(), 1));
+            lot.add(newCommande(client.getId(), 1));
+        }
+
+        long start = System.nanoTime();
+        for (Commande commande : unitaires) {
+            commandeService.saveCommande(commande);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        CommandeBatchResultDTO result = commandeService.saveCommandesBatch(lot);
+        long batchNanos = System.nanoTime() - start;
+
+        assertEquals(ORDER_COUNT, result.getAcceptees());
+        log.info("Ingested {} orders: single path {} orders/s, batch path {} orders/s",
+                ORDER_COUNT, throughput(singleNanos), throughput(batchNanos));
+    }
+
+    private long throughput(long nanos) {
+        return Math.round(ORDER_COUNT / (nanos / 1_000_000_000.0));
+    }
+
+    private Commande newCommande(Long clientId, int quantite, Produit... lignesProduits) {
+        return fixture.nouvelleCommande(clientId, quantite, lignesProduits.length == 0 ? produits : List.of(lignesProduits));
+    }
+}
@@ -0,0 +1,58 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeStatutBulkResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CommandeBulkStatusTests {
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void onlyOrdersInAnAllowedSourceStatusAreMoved() {
+        Client client = clientRepository.save(new Client(null, "Client Entrepot", "entrepot@example.com", null, null, null, null));
+        Long validee1 = saveCommande(client, StatutCommande.VALIDEE);
+        Long validee2 = saveCommande(client, StatutCommande.VALIDEE);
+        Long livree = saveCommande(client, StatutCommande.LIVREE);
+        Long inconnue = Long.MAX_VALUE;
+
+        CommandeStatutBulkResultDTO result = commandeService.updateCommandesStatus(
+                List.of(validee1, livree, validee2, inconnue), StatutCommande.EN_PREPARATION);
+
+        assertEquals(List.of(validee1, validee2), result.getModifiees());
+        assertEquals(List.of(livree, inconnue), List.copyOf(result.getRejetees().keySet()));
+        assertTrue(result.getRejetees().get(livree).contains("LIVREE"));
+        assertTrue(result.getRejetees().get(inconnue).contains("not found"));
+
+        assertEquals(StatutCommande.EN_PREPARATION, commandeRepository.findById(validee1).orElseThrow().getStatut());
+        assertEquals(StatutCommande.EN_PREPARATION, commandeRepository.findById(validee2).orElseThrow().getStatut());
+        assertEquals(StatutCommande.LIVREE, commandeRepository.findById(livree).orElseThrow().getStatut());
+    }
+
+    private Long saveCommande(Client client, StatutCommande statut) {
+        Commande commande = new Commande();
+        commande.setClient(client);
+        commande.setStatut(statut);
+        return commandeRepository.save(commande).getId();
+    }
+}
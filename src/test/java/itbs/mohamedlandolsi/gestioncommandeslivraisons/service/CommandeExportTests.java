@@ -0,0 +1,100 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.service.CommandeExportService.ExportFormat;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CommandeExportTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(1990, 3, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(1990, 3, 31, 23, 59);
+
+    @Autowired
+    private CommandeExportService commandeExportService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        if (!commandeRepository.findByDateBetween(START, END).isEmpty()) {
+            return;
+        }
+        Client client = clientRepository.save(new Client(null, "Client Export", "export@example.com", null, null, null, null));
+        Produit produit = produitRepository.save(
+                new Produit(null, "Câble, 2m", null, new BigDecimal("4.50"), 100, 0, null));
+        for (int i = 0; i < 20; i++) {
+            Commande commande = new Commande();
+            commande.setClient(client);
+            commande.setDate(START.plusDays(i));
+            List<LigneCommande> lignes = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                lignes.add(new LigneCommande(null, commande, produit, j + 1, new BigDecimal("4.50")));
+            }
+            commande.setLignesCommande(lignes);
+            commandeRepository.save(commande);
+        }
+    }
+
+    @Test
+    void csvHasOneRowPerOrderLineAndIsReadWithOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String csv = export(ExportFormat.CSV);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        String[] lines = csv.split("\n");
+        assertEquals(1 + 20 * 2, lines.length);
+        assertTrue(lines[1].contains("export@example.com"));
+        assertTrue(lines[1].contains("\"Câble, 2m\""));
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerOrderWithItsLines() throws Exception {
+        String[] lines = export(ExportFormat.NDJSON).split("\n");
+
+        assertEquals(20, lines.length);
+        assertTrue(lines[0].contains("\"clientEmail\":\"export@example.com\""));
+        assertEquals(2, lines[0].split("\"produitNom\"").length - 1);
+    }
+
+    private String export(ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        commandeExportService.exportCommandes(START, END, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
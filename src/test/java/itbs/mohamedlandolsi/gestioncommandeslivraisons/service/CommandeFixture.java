@@ -0,0 +1,137 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.FournisseurRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LigneCommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Clients, products and orders shared by the service tests. Everything created here is deleted by
+ * {@link #cleanUp()}, with the orders, deliveries, payments and reservations of the clients, so that a
+ * test never sees the rows of another one (the late delivery scheduler reads every pending delivery).
+ * Picked up by the component scan of the test context, like the application beans.
+ */
+@Component
+class CommandeFixture {
+
+    private final ClientService clientService;
+    private final ProduitService produitService;
+    private final FournisseurService fournisseurService;
+    private final ProduitRepository produitRepository;
+    private final FournisseurRepository fournisseurRepository;
+    private final CommandeRepository commandeRepository;
+    private final LigneCommandeRepository ligneCommandeRepository;
+
+    private final List<Long> clients = new CopyOnWriteArrayList<>();
+    private final List<Long> produits = new CopyOnWriteArrayList<>();
+    private final List<Long> fournisseurs = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    CommandeFixture(ClientService clientService, ProduitService produitService, FournisseurService fournisseurService,
+                    ProduitRepository produitRepository, FournisseurRepository fournisseurRepository,
+                    CommandeRepository commandeRepository, LigneCommandeRepository ligneCommandeRepository) {
+        this.clientService = clientService;
+        this.produitService = produitService;
+        this.fournisseurService = fournisseurService;
+        this.produitRepository = produitRepository;
+        this.fournisseurRepository = fournisseurRepository;
+        this.commandeRepository = commandeRepository;
+        this.ligneCommandeRepository = ligneCommandeRepository;
+    }
+
+    Client client(String nom) {
+        return client(nom, null);
+    }
+
+    Client client(String nom, String adresse) {
+        Client client = clientService.saveClient(new Client(null, nom, "fixture-" + System.nanoTime() + "@example.com",
+                adresse, null, null, null));
+        clients.add(client.getId());
+        return client;
+    }
+
+    Fournisseur fournisseur(String nom) {
+        Fournisseur fournisseur = new Fournisseur();
+        fournisseur.setNom(nom);
+        fournisseur = fournisseurRepository.save(fournisseur);
+        fournisseurs.add(fournisseur.getId());
+        return fournisseur;
+    }
+
+    Produit produit(String nom, BigDecimal prix, int stock) {
+        return produit(nom, prix, stock, null);
+    }
+
+    Produit produit(String nom, BigDecimal prix, int stock, Fournisseur fournisseur) {
+        Produit produit = produitRepository.save(new Produit(null, nom, null, prix, stock, 0, fournisseur));
+        produits.add(produit.getId());
+        return produit;
+    }
+
+    /**
+     * An order as the API receives it, not saved: client and products are references by ID, and
+     * the service fills in the status, the date and the total.
+     */
+    Commande nouvelleCommande(Long clientId, int quantite, List<Produit> lignesProduits) {
+        Client clientRef = new Client();
+        clientRef.setId(clientId);
+        Commande commande = new Commande();
+        commande.setClient(clientRef);
+        List<LigneCommande> lignes = new ArrayList<>();
+        for (Produit produit : lignesProduits) {
+            Produit produitRef = new Produit();
+            produitRef.setId(produit.getId());
+            LigneCommande ligne = new LigneCommande();
+            ligne.setCommande(commande);
+            ligne.setProduit(produitRef);
+            ligne.setQuantite(quantite);
+            ligne.setPrixUnitaire(produit.getPrix());
+            lignes.add(ligne);
+        }
+        commande.setLignesCommande(lignes);
+        return commande;
+    }
+
+    /**
+     * An order saved directly, bypassing the service checks and the stock reservation; lines are
+     * added with {@link #ligne(Commande, Produit)}.
+     */
+    Commande commande(Client client, StatutCommande statut, LocalDateTime date) {
+        Commande commande = new Commande();
+        commande.setClient(client);
+        commande.setDate(date);
+        commande.setStatut(statut);
+        return commandeRepository.save(commande);
+    }
+
+    LigneCommande ligne(Commande commande, Produit produit) {
+        return ligneCommandeRepository.save(new LigneCommande(null, commande, produit, 1, BigDecimal.ONE));
+    }
+
+    /**
+     * Deletes what the fixture created, clients first: their orders take the lines, deliveries,
+     * payments and stock reservations that reference the products with them.
+     */
+    void cleanUp() {
+        clients.forEach(clientService::deleteClient);
+        clients.clear();
+        produits.forEach(produitService::deleteProduit);
+        produits.clear();
+        fournisseurs.forEach(fournisseurService::deleteFournisseur);
+        fournisseurs.clear();
+    }
+}
@@ -0,0 +1,82 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.exception.CommandeValidationException;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CommandeStockValidationTests {
+
+    private static final int LINE_COUNT = 200;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private List<Produit> produits;
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Stock");
+        produits = new ArrayList<>();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            produits.add(fixture.produit("Produit stock " + i, new BigDecimal("3.00"), 5));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void stockCheckLoadsAllProductsWithOneQuery() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CommandeValidationException exception = assertThrows(CommandeValidationException.class,
+                () -> commandeService.saveCommande(newCommande(10)));
+
+        // Client lookup (exists + load) and one query for all the products
+        assertTrue(statistics.getPrepareStatementCount() <= 3,
+                "Expected at most 3 statements but got " + statistics.getPrepareStatementCount());
+        for (Produit produit : produits) {
+            assertTrue(exception.getMessage().contains(produit.getNom()));
+        }
+    }
+
+    @Test
+    void orderWithEnoughStockIsSaved() {
+        Commande saved = commandeService.saveCommande(newCommande(5));
+
+        assertNotNull(saved.getId());
+        assertEquals(0, new BigDecimal("3000.00").compareTo(saved.getMontantTotal()));
+    }
+
+    private Commande newCommande(int quantite) {
+        return fixture.nouvelleCommande(client.getId(), quantite, produits);
+    }
+}
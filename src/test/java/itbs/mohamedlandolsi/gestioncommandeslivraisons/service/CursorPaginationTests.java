@@ -0,0 +1,146 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CommandeDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.CursorPageDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ProduitDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CursorPaginationTests {
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private FournisseurService fournisseurService;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void commandesArePagedByDateThenIdWithoutGapsOrDuplicates() {
+        Client client = fixture.client("Client Page");
+        LocalDateTime date = LocalDateTime.of(2100, 1, 1, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        // Several orders share the same date so that the id tie-breaker matters
+        for (int i = 0; i < 7; i++) {
+            expected.add(newCommande(client, date.minusHours(i / 3)));
+        }
+        // Newest first, then highest id first within the same date
+        List<Long> ordered = new ArrayList<>();
+        for (int group = 0; group < 3; group++) {
+            List<Long> sameDate = new ArrayList<>(expected.subList(group * 3, Math.min(group * 3 + 3, 7)));
+            sameDate.sort((a, b) -> Long.compare(b, a));
+            ordered.addAll(sameDate);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<CommandeDTO> page = commandeService.getCommandesPage(cursor, 3);
+            assertTrue(page.getItems().size() <= 3);
+            page.getItems().forEach(commande -> seen.add(commande.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null && seen.size() < ordered.size());
+
+        assertEquals(ordered, seen.subList(0, ordered.size()));
+    }
+
+    @Test
+    void produitsAreWalkedInIdOrderUntilTheLastPage() {
+        for (int i = 0; i < 5; i++) {
+            fixture.produit("Produit page " + i, BigDecimal.ONE, 1);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<ProduitDTO> page = produitService.getProduitsPage(cursor, 2);
+            page.getItems().forEach(produit -> seen.add(produit.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(produitRepository.count(), seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1) < seen.get(i));
+        }
+    }
+
+    @Test
+    void supplierOrderHistoryIsDistinctBoundedByDateAndPaged() {
+        Client client = fixture.client("Client Historique");
+        Fournisseur fournisseur = fixture.fournisseur("Fournisseur Historique");
+        Produit p1 = fixture.produit("Produit historique 1", BigDecimal.ONE, 10, fournisseur);
+        Produit p2 = fixture.produit("Produit historique 2", BigDecimal.ONE, 10, fournisseur);
+        Produit autre = fixture.produit("Produit autre fournisseur", BigDecimal.ONE, 10);
+        LocalDateTime date = LocalDateTime.of(2099, 3, 1, 12, 0);
+
+        Long deuxLignes = newCommande(client, date, p1, p2);
+        Long memeDateA = newCommande(client, date.minusHours(1), p1);
+        Long memeDateB = newCommande(client, date.minusHours(1), p2);
+        newCommande(client, date.minusHours(2), autre);
+        Long plusAncienne = newCommande(client, date.minusHours(3), p1);
+        Long horsPeriode = newCommande(client, date.minusDays(10), p1);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<CommandeDTO> page = fournisseurService.getOrderHistory(
+                    fournisseur.getId(), date.minusDays(1), date, cursor, 2);
+            page.getItems().forEach(commande -> seen.add(commande.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of(deuxLignes, Math.max(memeDateA, memeDateB), Math.min(memeDateA, memeDateB), plusAncienne),
+                seen);
+        assertEquals(2, pages);
+        List<CommandeDTO> all = fournisseurService.getOrderHistory(fournisseur.getId(), null, null, null, 10).getItems();
+        assertEquals(5, all.size());
+        assertEquals(horsPeriode, all.get(4).getId());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> commandeService.getCommandesPage("not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> produitService.getProduitsPage(null, 0));
+    }
+
+    private Long newCommande(Client client, LocalDateTime date, Produit... produits) {
+        Commande commande = fixture.commande(client, StatutCommande.EN_ATTENTE, date);
+        for (Produit produit : produits) {
+            fixture.ligne(commande, produit);
+        }
+        return commande.getId();
+    }
+}
@@ -0,0 +1,112 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonRequestDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.scheduler.LateDeliveryScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Ticks last one hour in the test profile and are triggered by hand with a chosen current time
+@SpringBootTest
+@ActiveProfiles("test")
+class LateDeliverySchedulerTests {
+
+    @Autowired
+    private LateDeliveryScheduler lateDeliveryScheduler;
+
+    @Autowired
+    private LivraisonService livraisonService;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Retard");
+        now = LocalDateTime.now();
+        lateDeliveryScheduler.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void overdueDeliveriesAreFlaggedWhenTheirTickPasses() {
+        Livraison enRetard = livraisonService.createLivraisonFromDTO(newRequest(now.minusMinutes(30), null));
+        Livraison aVenir = livraisonService.createLivraisonFromDTO(newRequest(now.plusHours(5), null));
+        Livraison livree = livraisonService.createLivraisonFromDTO(newRequest(now.minusMinutes(30), StatutLivraison.LIVREE));
+
+        lateDeliveryScheduler.tick(now.plusHours(2));
+
+        assertEquals(StatutLivraison.RETARDEE, statutOf(enRetard));
+        assertEquals(StatutLivraison.EN_ATTENTE, statutOf(aVenir));
+        assertEquals(StatutLivraison.LIVREE, statutOf(livree));
+
+        lateDeliveryScheduler.tick(now.plusHours(6));
+
+        assertEquals(StatutLivraison.RETARDEE, statutOf(aVenir));
+    }
+
+    @Test
+    void rescheduledDeliveriesMoveOnTheWheel() {
+        Livraison livraison = livraisonService.createLivraisonFromDTO(newRequest(now.minusMinutes(30), null));
+        LivraisonRequestDTO report = new LivraisonRequestDTO();
+        report.setDateLivraison(now.plusHours(5));
+        livraisonService.updateLivraisonFromDTO(livraison.getId(), report);
+
+        lateDeliveryScheduler.tick(now.plusHours(2));
+        assertEquals(StatutLivraison.EN_ATTENTE, statutOf(livraison));
+
+        lateDeliveryScheduler.tick(now.plusHours(6));
+        assertEquals(StatutLivraison.RETARDEE, statutOf(livraison));
+    }
+
+    @Test
+    void deliveriesBeyondTheHorizonAreLoadedAsTheWheelTurns() {
+        // Saved directly, so only the incremental load can put it on the wheel
+        Livraison lointaine = new Livraison();
+        lointaine.setCommande(fixture.commande(client, StatutCommande.VALIDEE, LocalDateTime.now()));
+        lointaine.setDateLivraison(now.plusDays(70));
+        lointaine.setAdresseLivraison("Route de Gabès, Sfax");
+        lointaine = livraisonRepository.save(lointaine);
+
+        assertEquals(0, lateDeliveryScheduler.tick(now.plusDays(69)));
+        assertEquals(StatutLivraison.EN_ATTENTE, statutOf(lointaine));
+
+        lateDeliveryScheduler.tick(now.plusDays(71));
+        assertEquals(StatutLivraison.RETARDEE, statutOf(lointaine));
+    }
+
+    private StatutLivraison statutOf(Livraison livraison) {
+        return livraisonRepository.findById(livraison.getId()).orElseThrow().getStatut();
+    }
+
+    private LivraisonRequestDTO newRequest(LocalDateTime date, StatutLivraison statut) {
+        LivraisonRequestDTO request = new LivraisonRequestDTO();
+        request.setCommandeId(fixture.commande(client, StatutCommande.VALIDEE, LocalDateTime.now()).getId());
+        request.setDateLivraison(date);
+        request.setAdresseLivraison("5 Rue de Rome, 1000 Tunis");
+        request.setStatut(statut);
+        return request;
+    }
+}
@@ -0,0 +1,175 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Fournisseur;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LigneCommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static itbs.mohamedlandolsi.gestioncommandeslivraisons.service.SqlStatements.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the statements of the list endpoints through MockMvc, JSON serialization included, and
+ * checks that the responses are the DTOs assembled by the services rather than the entity graphs.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListEndpointQueryCountTests {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2099, 6, 1, 12, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LigneCommandeRepository ligneCommandeRepository;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private PaiementRepository paiementRepository;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private Fournisseur fournisseur;
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Requetes");
+        fournisseur = fixture.fournisseur("Fournisseur Requetes");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void listEndpointsRunTheSameStatementsWhateverTheNumberOfOrders() {
+        Commande premiere = newCommande(0);
+        Long livraisonId = livraisonRepository.findByCommandeId(premiere.getId()).get(0).getId();
+        Long paiementId = paiementRepository.findByCommandeId(premiere.getId()).get(0).getId();
+        Long ligneId = ligneCommandeRepository.findByCommandeId(premiere.getId()).get(0).getId();
+
+        // Endpoint and the most statements it may run; pages start at this test's rows
+        Map<String, Long> endpoints = new LinkedHashMap<>();
+        endpoints.put("/api/commandes", 1L);
+        endpoints.put("/api/clients", 1L);
+        endpoints.put("/api/fournisseurs", 1L);
+        endpoints.put("/api/transporteurs", 1L);
+        endpoints.put("/api/livraisons", 1L);
+        endpoints.put("/api/paiements", 1L);
+        endpoints.put("/api/lignes-commandes", 1L);
+        // Page, then one batch for the lines
+        endpoints.put("/api/commandes/page?limit=20", 2L);
+        endpoints.put("/api/fournisseurs/" + fournisseur.getId() + "/commandes?limit=20", 2L);
+        endpoints.put("/api/livraisons/page?limit=20&cursor=" + CursorCodec.encodeId(livraisonId - 1), 1L);
+        endpoints.put("/api/paiements/page?limit=20&cursor=" + CursorCodec.encodeId(paiementId - 1), 1L);
+        endpoints.put("/api/lignes-commandes/page?limit=20&cursor=" + CursorCodec.encodeId(ligneId - 1), 1L);
+
+        Map<String, Long> single = counts(endpoints);
+        for (int i = 1; i < 6; i++) {
+            newCommande(i);
+        }
+        Map<String, Long> six = counts(endpoints);
+
+        assertEquals(single, six);
+    }
+
+    @Test
+    void responsesReferenceRelatedEntitiesById() throws Exception {
+        Commande commande = newCommande(0);
+        Livraison livraison = livraisonRepository.findByCommandeId(commande.getId()).get(0);
+        Paiement paiement = paiementRepository.findByCommandeId(commande.getId()).get(0);
+
+        mockMvc.perform(get("/api/clients/" + client.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nom").value("Client Requetes"))
+                .andExpect(jsonPath("$.commandes").doesNotExist());
+        mockMvc.perform(get("/api/commandes/" + commande.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clientId").value(client.getId()))
+                .andExpect(jsonPath("$.lignesCommande.length()").value(2))
+                .andExpect(jsonPath("$.lignesCommande[0].commandeId").value(commande.getId()))
+                .andExpect(jsonPath("$.lignesCommande[0].produitId").isNumber());
+        mockMvc.perform(get("/api/livraisons/" + livraison.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commandeId").value(commande.getId()))
+                .andExpect(jsonPath("$.commande").doesNotExist());
+        mockMvc.perform(get("/api/paiements/" + paiement.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commandeId").value(commande.getId()))
+                .andExpect(jsonPath("$.commande").doesNotExist());
+        mockMvc.perform(get("/api/fournisseurs/" + fournisseur.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.produits").doesNotExist());
+        // Write endpoints answer with the same DTOs, assembled without a session left open
+        mockMvc.perform(patch("/api/commandes/" + commande.getId() + "/statut").param("statut", "VALIDEE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statut").value("VALIDEE"))
+                .andExpect(jsonPath("$.lignesCommande.length()").value(2));
+        mockMvc.perform(patch("/api/livraisons/" + livraison.getId() + "/statut").param("statut", "EN_COURS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commandeId").value(commande.getId()));
+    }
+
+    private Map<String, Long> counts(Map<String, Long> endpoints) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        endpoints.forEach((url, max) -> counts.put(url, count(() -> assertMaxStatements(max, () -> perform(url)))));
+        return counts;
+    }
+
+    private Void perform(String url) {
+        try {
+            mockMvc.perform(get(url)).andExpect(status().isOk());
+            return null;
+        } catch (Exception e) {
+            throw new IllegalStateException(url, e);
+        }
+    }
+
+    // An order with two lines of the supplier's products, a delivery and a payment
+    private Commande newCommande(int i) {
+        Commande commande = fixture.commande(client, StatutCommande.EN_ATTENTE, DATE.minusMinutes(i));
+        for (int j = 0; j < 2; j++) {
+            fixture.ligne(commande, fixture.produit("Produit requetes " + i + "-" + j, BigDecimal.ONE, 10, fournisseur));
+        }
+        Livraison livraison = new Livraison();
+        livraison.setCommande(commande);
+        livraison.setDateLivraison(DATE.plusDays(1));
+        livraisonRepository.save(livraison);
+        Paiement paiement = new Paiement();
+        paiement.setCommande(commande);
+        paiement.setMontantPaye(10.0);
+        paiement.setMode(ModePaiement.VIREMENT);
+        paiementRepository.save(paiement);
+        return commande;
+    }
+}
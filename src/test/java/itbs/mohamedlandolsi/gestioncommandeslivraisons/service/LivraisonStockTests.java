@@ -0,0 +1,183 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LivraisonStockTests {
+
+    private static final int LINE_COUNT = 20;
+
+    @Autowired
+    private LivraisonService livraisonService;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private List<Produit> produits;
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Livraison");
+        produits = new ArrayList<>();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            produits.add(fixture.produit("Produit livré " + i, new BigDecimal("4.00"), 10));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void deliveryConsumesTheReservationWithAConstantNumberOfStatements() {
+        Commande commande = commandeService.saveCommande(newCommande(3));
+        Livraison livraison = newLivraison(commande);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+
+        // The product updates go out as one JDBC batch, outside these statistics; the rest must not grow with the lines
+        assertTrue(statistics.getPrepareStatementCount() <= 8,
+                "Expected at most 8 statements but got " + statistics.getPrepareStatementCount());
+        for (Produit produit : produitRepository.findAllById(ids())) {
+            assertEquals(7, produit.getStock());
+            assertEquals(0, produit.getStockReserve());
+        }
+        assertEquals(Commande.StatutCommande.LIVREE,
+                commandeRepository.findById(commande.getId()).orElseThrow().getStatut());
+    }
+
+    @Test
+    void orderWithoutReservationIsDecrementedAtDelivery() {
+        Livraison livraison = newLivraison(commandeRepository.save(newCommande(4)));
+
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+
+        for (Produit produit : produitRepository.findAllById(ids())) {
+            assertEquals(6, produit.getStock());
+        }
+    }
+
+    @Test
+    void orderDeliveredThroughItsStatusIsNotDecrementedAgainByItsDelivery() {
+        Commande commande = commandeService.saveCommande(newCommande(3));
+        Livraison livraison = newLivraison(commande);
+
+        commandeService.updateCommandeStatus(commande.getId(), Commande.StatutCommande.LIVREE);
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.EN_COURS);
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+
+        for (Produit produit : produitRepository.findAllById(ids())) {
+            assertEquals(7, produit.getStock());
+            assertEquals(0, produit.getStockReserve());
+        }
+    }
+
+    @Test
+    void redeliveredOrderIsDecrementedOnce() {
+        Livraison livraison = newLivraison(commandeService.saveCommande(newCommande(3)));
+
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.EN_COURS);
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+
+        for (Produit produit : produitRepository.findAllById(ids())) {
+            assertEquals(7, produit.getStock());
+        }
+    }
+
+    @Test
+    void canceledOrderKeepsItsReleasedStockAtDelivery() {
+        Commande commande = newCommande(3);
+        commande.setStatut(Commande.StatutCommande.EN_PREPARATION);
+        commande = commandeService.saveCommande(commande);
+        Livraison livraison = newLivraison(commande);
+
+        commandeService.updateCommandeStatus(commande.getId(), Commande.StatutCommande.ANNULEE);
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE);
+
+        for (Produit produit : produitRepository.findAllById(ids())) {
+            assertEquals(10, produit.getStock());
+            assertEquals(0, produit.getStockReserve());
+        }
+    }
+
+    @Test
+    void shortProductRollsBackTheWholeDelivery() {
+        Produit dernier = produits.get(LINE_COUNT - 1);
+        dernier.setStock(1);
+        produitRepository.save(dernier);
+        Livraison livraison = newLivraison(commandeRepository.save(newCommande(4)));
+
+        assertThrows(IllegalStateException.class,
+                () -> livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.LIVREE));
+
+        for (Produit produit : produitRepository.findAllById(ids())) {
+            assertEquals(produit.getId().equals(dernier.getId()) ? 1 : 10, produit.getStock());
+        }
+        assertEquals(StatutLivraison.EN_ATTENTE,
+                livraisonRepository.findById(livraison.getId()).orElseThrow().getStatut());
+    }
+
+    private List<Long> ids() {
+        return produits.stream().map(Produit::getId).toList();
+    }
+
+    private Livraison newLivraison(Commande commande) {
+        Livraison livraison = new Livraison();
+        livraison.setCommande(commande);
+        livraison.setAdresseLivraison("3 Avenue Habib Bourguiba, 1000 Tunis");
+        livraison.setDateLivraison(LocalDateTime.now().plusDays(1));
+        return livraisonRepository.save(livraison);
+    }
+
+    private Commande newCommande(int quantite) {
+        Commande commande = fixture.nouvelleCommande(client.getId(), quantite, produits);
+        commande.setStatut(Commande.StatutCommande.EXPEDIEE);
+        commande.setDate(LocalDateTime.now());
+        return commande;
+    }
+}
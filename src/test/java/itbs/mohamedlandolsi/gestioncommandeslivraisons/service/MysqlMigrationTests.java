@@ -0,0 +1,160 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.LigneCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the mysql migrations against MySQL 8 in a container, starting from a database in the
+ * pre-Flyway state (schema of V1 with rows, no history table), as production is upgraded.
+ * Needs Docker, so it only runs on request: mvn test -Dtest=MysqlMigrationTests -Dmysql=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "mysql", matches = "true")
+class MysqlMigrationTests {
+
+    private static MySQLContainer<?> mysql;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private PaiementService paiementService;
+
+    @Autowired
+    private PaiementProcessingService paiementProcessingService;
+
+    @Autowired
+    private RevenuJournalierService revenuJournalierService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @DynamicPropertySource
+    static void mysqlProperties(DynamicPropertyRegistry registry) {
+        MySQLContainer<?> container = startLegacyDatabase();
+        registry.add("spring.datasource.url",
+                () -> container.getJdbcUrl() + "?rewriteBatchedStatements=true&useCursorFetch=true");
+        registry.add("spring.datasource.username", container::getUsername);
+        registry.add("spring.datasource.password", container::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.MySQLDialect");
+    }
+
+    private static synchronized MySQLContainer<?> startLegacyDatabase() {
+        if (mysql != null) {
+            return mysql;
+        }
+        mysql = new MySQLContainer<>("mysql:8.0");
+        mysql.start();
+
+        // The schema as ddl-auto=update left it, without Flyway's history table
+        Flyway.configure()
+                .dataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword())
+                .locations("classpath:db/migration/mysql")
+                .target("1")
+                .load()
+                .migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(
+                new DriverManagerDataSource(mysql.getJdbcUrl(), mysql.getUsername(), mysql.getPassword()));
+        jdbc.execute("DROP TABLE flyway_schema_history");
+
+        jdbc.update("INSERT INTO client (id, adresse, email, nom) VALUES (1, '12 rue de Rome, 75008 Paris', 'ancien@example.com', 'Client Ancien')");
+        jdbc.update("INSERT INTO produit (id, nom, prix, stock) VALUES (1, 'Produit Ancien', 2.00, 10)");
+        jdbc.update("INSERT INTO commande (id, client_id, date, montant_total, statut) VALUES (120, 1, '2024-03-01 10:00:00', 4.00, 'LIVREE')");
+        jdbc.update("INSERT INTO ligne_commande (id, commande_id, produit_id, quantite, prix_unitaire) VALUES (130, 120, 1, 2, 2.00)");
+        jdbc.update("INSERT INTO paiement (id, commande_id, date, mode, statut, montant_paye) VALUES (5, 120, '2024-03-01 10:05:00', 'CHEQUE', 'EFFECTUE', 4.0)");
+        return mysql;
+    }
+
+    @Test
+    void legacyDatabaseIsBaselinedAndMigrated() {
+        List<Map<String, Object>> history = jdbcTemplate.queryForList(
+                "SELECT version, type, success FROM flyway_schema_history ORDER BY installed_rank");
+        assertEquals(List.of("1", "2", "3", "4", "5", "6", "7"),
+                history.stream().map(row -> (String) row.get("version")).toList());
+        assertEquals("BASELINE", history.get(0).get("type"));
+        assertTrue(history.stream().allMatch(row -> Boolean.TRUE.equals(row.get("success"))));
+
+        assertEquals(171L, jdbcTemplate.queryForObject("SELECT next_val FROM commande_seq", Long.class));
+        assertEquals(181L, jdbcTemplate.queryForObject("SELECT next_val FROM ligne_commande_seq", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT stock_reserve FROM produit WHERE id = 1", Integer.class));
+
+        Map<String, Object> client = jdbcTemplate.queryForMap("SELECT ville, code_postal FROM client WHERE id = 1");
+        assertEquals("PARIS", client.get("ville"));
+        assertEquals("75008", client.get("code_postal"));
+
+        Map<String, Object> revenu = jdbcTemplate.queryForMap(
+                "SELECT nombre, montant FROM revenu_journalier WHERE jour = '2024-03-01' AND mode = 'CHEQUE' AND statut = 'EFFECTUE'");
+        assertEquals(1L, ((Number) revenu.get("nombre")).longValue());
+        assertEquals(0, new BigDecimal("4.00").compareTo((BigDecimal) revenu.get("montant")));
+    }
+
+    @Test
+    void servicesWorkOnTheMigratedSchema() {
+        Client client = clientRepository.save(new Client(null, "Client MySQL", "mysql-" + System.nanoTime()
+                + "@example.com", null, null, null, null));
+        Produit produit = produitRepository.save(
+                new Produit(null, "Produit MySQL", null, new BigDecimal("3.00"), 5, 0, null));
+
+        LigneCommande ligne = new LigneCommande();
+        ligne.setProduit(produit);
+        ligne.setQuantite(2);
+        ligne.setPrixUnitaire(new BigDecimal("3.00"));
+        Commande commande = new Commande();
+        commande.setClient(client);
+        commande.setLignesCommande(new ArrayList<>(List.of(ligne)));
+        Commande saved = commandeService.saveCommande(commande);
+
+        // IDs come from the sequence tables, past the legacy rows
+        assertTrue(saved.getId() > 120);
+        assertTrue(saved.getLignesCommande().get(0).getId() > 130);
+        assertEquals(2, produitRepository.findById(produit.getId()).orElseThrow().getStockReserve());
+
+        LocalDateTime date = LocalDateTime.of(2031, 7, 1, 9, 0);
+        Paiement paiement = new Paiement();
+        paiement.setCommande(saved);
+        paiement.setDate(date);
+        paiement.setMontantPaye(6.0);
+        paiement.setMode(ModePaiement.CARTE_CREDIT);
+        paiement = paiementService.savePaiement(paiement);
+        assertEquals(StatutPaiement.EFFECTUE, paiementProcessingService.processPaiement(paiement.getId()).getStatut());
+
+        var totaux = revenuJournalierService.getTotaux(date.toLocalDate(), date.toLocalDate());
+        assertEquals(1, totaux.size());
+        assertEquals(StatutPaiement.EFFECTUE, totaux.get(0).getStatut());
+        assertEquals(1L, totaux.get(0).getNombre());
+        assertEquals(0, new BigDecimal("6.00").compareTo(totaux.get(0).getMontant()));
+    }
+}
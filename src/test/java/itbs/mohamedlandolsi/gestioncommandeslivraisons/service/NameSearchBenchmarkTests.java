@@ -0,0 +1,112 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.search.NameSearchIndexes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the trigram index with the LIKE query on 1M products.
+ * Run with: mvn test -Dtest=NameSearchBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NameSearchBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(NameSearchBenchmarkTests.class);
+
+    private static final int ROW_COUNT = 1_000_000;
+    private static final int QUERY_COUNT = 50;
+    private static final String PREFIX = "bench ";
+    private static final String[] WORDS = {
+            "cable", "ecran", "clavier", "souris", "lampe", "bureau", "chaise", "casque", "routeur", "disque",
+            "batterie", "chargeur", "support", "adaptateur", "imprimante", "scanner", "tablette", "micro",
+            "enceinte", "projecteur", "webcam", "switch", "serveur", "armoire", "etagere", "tapis", "filtre"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private NameSearchIndexes nameSearchIndexes;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM produit WHERE nom LIKE 'bench %'");
+        nameSearchIndexes.rebuildAll();
+    }
+
+    @Test
+    void indexOutperformsLikeAtOneMillionRows() {
+        Random random = new Random(42);
+        String[] noms = new String[ROW_COUNT];
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            noms[i] = PREFIX + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + Integer.toString(i, 36);
+            batch.add(new Object[]{noms[i], 1, 1, 0});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        long start = System.nanoTime();
+        nameSearchIndexes.rebuildAll();
+        log.info("Built the product index over {} rows in {} ms", ROW_COUNT, (System.nanoTime() - start) / 1_000_000);
+
+        // Search-as-you-type queries: the end of an existing name, e.g. "ran 1x3f"
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String nom = noms[random.nextInt(ROW_COUNT)];
+            queries.add(nom.substring(nom.lastIndexOf(' ') - 3));
+        }
+
+        // Warm both paths up before measuring
+        run(queries.subList(0, 5), produitService::searchProduitsByNom);
+        run(queries.subList(0, 5), produitRepository::findByNomContainingIgnoreCase);
+
+        long indexNanos = run(queries, produitService::searchProduitsByNom);
+        long likeNanos = run(queries, produitRepository::findByNomContainingIgnoreCase);
+
+        for (String query : queries.subList(0, 5)) {
+            assertEquals(produitRepository.findByNomContainingIgnoreCase(query).size(),
+                    produitService.searchProduitsByNom(query).size());
+        }
+        log.info("{} searches over {} products: index {} ms/query, LIKE {} ms/query", QUERY_COUNT, ROW_COUNT,
+                indexNanos / QUERY_COUNT / 1_000_000.0, likeNanos / QUERY_COUNT / 1_000_000.0);
+        assertTrue(indexNanos < likeNanos);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO produit (nom, prix, stock, stock_reserve) VALUES (?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private long run(List<String> queries, Function<String, List<?>> search) {
+        long start = System.nanoTime();
+        for (String query : queries) {
+            search.apply(query);
+        }
+        return System.nanoTime() - start;
+    }
+}
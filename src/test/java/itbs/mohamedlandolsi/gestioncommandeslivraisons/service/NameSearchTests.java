@@ -0,0 +1,129 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ClientDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ProduitDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.search.NameSearchIndexes;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NameSearchTests {
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private TransporteurService transporteurService;
+
+    @Autowired
+    private NameSearchIndexes nameSearchIndexes;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void resultsAreRankedByMatchQuality() {
+        Produit milieu = saveProduit("Support d'écran zorblax");
+        Produit mot = saveProduit("Câble zorblax renforcé");
+        Produit exact = saveProduit("Zorblax");
+        Produit prefixe = saveProduit("Zorblax Pro");
+        saveProduit("Lampe de bureau");
+
+        List<ProduitDTO> resultats = produitService.searchProduitsByNom("ZORBLAX");
+
+        assertEquals(List.of(exact.getId(), prefixe.getId(), mot.getId(), milieu.getId()),
+                resultats.stream().map(ProduitDTO::getId).toList());
+    }
+
+    @Test
+    void indexedSearchSkipsTheTableScan() {
+        Produit produit = saveProduit("Imprimante quuxpoint");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProduitDTO> resultats = produitService.searchProduitsByNom("quuxpo");
+
+        assertEquals(List.of(produit.getId()), resultats.stream().map(ProduitDTO::getId).toList());
+        // Only the primary key lookup of the matches
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        Client client = clientService.saveClient(new Client(null, "Hélène Frébault", "helene@example.com", null, null, null, null));
+
+        assertEquals(List.of(client.getId()),
+                clientService.searchClientsByName("helene freb").stream().map(ClientDTO::getId).toList());
+    }
+
+    @Test
+    void indexFollowsRenamesAndDeletes() {
+        Transporteur transporteur = new Transporteur();
+        transporteur.setNom("Express Vortigaunt");
+        transporteur = transporteurService.saveTransporteur(transporteur);
+        assertEquals(1, transporteurService.searchTransporteurs("vortigaunt").size());
+
+        transporteur.setNom("Rapide Nihilanth");
+        transporteurService.saveTransporteur(transporteur);
+        assertTrue(transporteurService.searchTransporteurs("vortigaunt").isEmpty());
+        assertEquals(1, transporteurService.searchTransporteurs("nihilanth").size());
+
+        transporteurService.deleteTransporteur(transporteur.getId());
+        assertTrue(transporteurService.searchTransporteurs("nihilanth").isEmpty());
+        assertTrue(nameSearchIndexes.transporteurs().findIds("nihilanth").isEmpty());
+    }
+
+    @Test
+    void rolledBackChangesLeaveTheIndexUnchanged() {
+        Transporteur conserve = new Transporteur();
+        conserve.setNom("Fret Gonarch");
+        Long id = transporteurService.saveTransporteur(conserve).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Transporteur annule = new Transporteur();
+            annule.setNom("Fret Xenwyrm");
+            transporteurService.saveTransporteur(annule);
+            transporteurService.deleteTransporteur(id);
+            // Not visible to the searches before the commit
+            assertTrue(nameSearchIndexes.transporteurs().findIds("xenwyrm").isEmpty());
+            status.setRollbackOnly();
+        });
+
+        assertTrue(nameSearchIndexes.transporteurs().findIds("xenwyrm").isEmpty());
+        assertEquals(List.of(id), nameSearchIndexes.transporteurs().findIds("gonarch"));
+    }
+
+    @Test
+    void shortQueriesFallBackToTheDatabase() {
+        Produit produit = saveProduit("Qz");
+
+        List<ProduitDTO> resultats = produitService.searchProduitsByNom("qz");
+
+        assertEquals(produit.getId(), resultats.get(0).getId());
+    }
+
+    private Produit saveProduit(String nom) {
+        return produitService.saveProduit(new Produit(null, nom, null, new BigDecimal("1.00"), 1, 0, null));
+    }
+}
@@ -0,0 +1,208 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementBatchResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.PaiementResultatDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.gateway.PaiementGateway;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.PaiementRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PaiementBatchTests {
+
+    // The test profile's simulated gateway takes 10 to 30 ms per call
+    private static final int PAIEMENTS = 40;
+    private static final long MIN_LATENCY_MS = 10;
+
+    @Autowired
+    private PaiementProcessingService paiementProcessingService;
+
+    @Autowired
+    private PaiementService paiementService;
+
+    @Autowired
+    private PaiementRepository paiementRepository;
+
+    @MockitoSpyBean
+    private PaiementGateway paiementGateway;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(new Client(null, "Client Paiement", "paiement-" + System.nanoTime()
+                + "@example.com", null, null, null, null));
+    }
+
+    @Test
+    void pendingPaymentsAreChargedConcurrentlyAndWrittenBack() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < PAIEMENTS; i++) {
+            ids.add(newPaiement(10.0 + i, StatutPaiement.EN_ATTENTE).getId());
+        }
+        Long montantInvalide = newPaiement(0.0, StatutPaiement.EN_ATTENTE).getId();
+        Long dejaEffectue = newPaiement(15.0, StatutPaiement.EFFECTUE).getId();
+        Long inconnu = -1L;
+        ids.addAll(List.of(montantInvalide, dejaEffectue, inconnu));
+
+        PaiementBatchResultDTO result = paiementProcessingService.processPaiementsBatch(ids);
+
+        assertEquals(PAIEMENTS, result.getEffectues());
+        assertEquals(1, result.getEchecs());
+        assertEquals(2, result.getIgnores());
+        // Run one after the other, the calls alone would take at least PAIEMENTS x MIN_LATENCY_MS
+        assertTrue(result.getDureeMs() < PAIEMENTS * MIN_LATENCY_MS,
+                "Batch took " + result.getDureeMs() + " ms");
+        assertTrue(result.getPaiementsParSeconde() > 0);
+
+        Map<Long, PaiementResultatDTO> resultats = result.getResultats().stream()
+                .collect(Collectors.toMap(PaiementResultatDTO::getId, Function.identity()));
+        assertEquals(ids.size(), result.getResultats().size());
+        assertEquals(ids.get(0), result.getResultats().get(0).getId());
+        assertNotNull(resultats.get(ids.get(0)).getReference());
+        assertEquals(StatutPaiement.ECHEC, resultats.get(montantInvalide).getStatut());
+        assertNotNull(resultats.get(montantInvalide).getMotif());
+        assertEquals(StatutPaiement.EFFECTUE, resultats.get(dejaEffectue).getStatut());
+        assertNull(resultats.get(inconnu).getStatut());
+
+        for (Long id : ids.subList(0, PAIEMENTS)) {
+            assertEquals(StatutPaiement.EFFECTUE, paiementRepository.findById(id).orElseThrow().getStatut());
+        }
+        assertEquals(StatutPaiement.ECHEC, paiementRepository.findById(montantInvalide).orElseThrow().getStatut());
+    }
+
+    @Test
+    void processedPaymentsAreNotChargedTwice() {
+        Long id = newPaiement(25.0, StatutPaiement.EN_ATTENTE).getId();
+
+        assertEquals(1, paiementProcessingService.processPaiementsBatch(List.of(id)).getEffectues());
+        PaiementBatchResultDTO again = paiementProcessingService.processPaiementsBatch(List.of(id));
+
+        assertEquals(0, again.getEffectues());
+        assertEquals(1, again.getIgnores());
+        assertNull(again.getResultats().get(0).getReference());
+        assertEquals(StatutPaiement.EFFECTUE, paiementProcessingService.processPaiement(id).getStatut());
+    }
+
+    @Test
+    void concurrentRunsChargeEachPaymentOnce() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < PAIEMENTS; i++) {
+            ids.add(newPaiement(10.0 + i, StatutPaiement.EN_ATTENTE).getId());
+        }
+        long appelsAvant = gatewayCalls();
+
+        // Two overlapping batches and a single payment call, released at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch depart = new CountDownLatch(1);
+        try {
+            Future<PaiementBatchResultDTO> premier = executor.submit(() -> {
+                depart.await();
+                return paiementProcessingService.processPaiementsBatch(ids);
+            });
+            Future<PaiementBatchResultDTO> second = executor.submit(() -> {
+                depart.await();
+                return paiementProcessingService.processPaiementsBatch(ids);
+            });
+            Future<Paiement> unitaire = executor.submit(() -> {
+                depart.await();
+                return paiementProcessingService.processPaiement(ids.get(0));
+            });
+            depart.countDown();
+
+            int effectues = premier.get().getEffectues() + second.get().getEffectues()
+                    + (unitaire.get().getStatut() == StatutPaiement.EFFECTUE ? 1 : 0);
+            assertTrue(effectues >= PAIEMENTS, "Only " + effectues + " payments reported as charged");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(PAIEMENTS, gatewayCalls() - appelsAvant);
+        for (Paiement paiement : paiementRepository.findAllById(ids)) {
+            assertEquals(StatutPaiement.EFFECTUE, paiement.getStatut());
+            assertNull(paiement.getTraitementJeton());
+        }
+    }
+
+    @Test
+    void outcomeIsNotWrittenOnceTheClaimWasTakenOver() {
+        Long lot = newPaiement(20.0, StatutPaiement.EN_ATTENTE).getId();
+        Long unitaire = newPaiement(30.0, StatutPaiement.EN_ATTENTE).getId();
+        // The claim expires during the gateway call and another run takes the payment over
+        doAnswer(invocation -> {
+            PaiementGateway.Demande demande = invocation.getArgument(0);
+            paiementService.claimEnAttente(List.of(demande.paiementId()), "reprise", LocalDateTime.now().plusMinutes(1));
+            return invocation.callRealMethod();
+        }).when(paiementGateway).charger(any());
+
+        PaiementBatchResultDTO result = paiementProcessingService.processPaiementsBatch(List.of(lot));
+        assertEquals(0, result.getEffectues() + result.getEchecs());
+        PaiementResultatDTO resultat = result.getResultats().get(0);
+        assertEquals(StatutPaiement.EN_ATTENTE, resultat.getStatut());
+        assertTrue(resultat.getMotif().contains("expired"), resultat.getMotif());
+        assertEquals(StatutPaiement.EN_ATTENTE, paiementProcessingService.processPaiement(unitaire).getStatut());
+
+        for (Paiement paiement : paiementRepository.findAllById(List.of(lot, unitaire))) {
+            assertEquals(StatutPaiement.EN_ATTENTE, paiement.getStatut());
+            assertEquals("reprise", paiement.getTraitementJeton());
+        }
+    }
+
+    private long gatewayCalls() {
+        return meterRegistry.find("paiements.gateway.appels").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private Paiement newPaiement(Double montant, StatutPaiement statut) {
+        Commande commande = new Commande();
+        commande.setClient(client);
+        commande.setDate(LocalDateTime.now());
+        commande.setMontantTotal(BigDecimal.valueOf(montant));
+        commande = commandeRepository.save(commande);
+
+        Paiement paiement = new Paiement();
+        paiement.setCommande(commande);
+        paiement.setMontantPaye(montant);
+        paiement.setMode(ModePaiement.CARTE_CREDIT);
+        paiement.setStatut(statut);
+        return paiementRepository.save(paiement);
+    }
+}
@@ -0,0 +1,86 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.config.CacheConfig;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProduitCacheTests {
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Produit produit;
+
+    @BeforeEach
+    void setUp() {
+        produit = produitService.saveProduit(
+                new Produit(null, "Produit en cache", null, new BigDecimal("7.00"), 20, 0, null));
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        double hitsBefore = cacheGets("hit");
+
+        produitService.getProduitById(produit.getId());
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(produitService.getProduitById(produit.getId()).isPresent());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(10, cacheGets("hit") - hitsBefore);
+    }
+
+    @Test
+    void stockChangesEvictTheCachedProduct() {
+        produitService.getProduitById(produit.getId());
+        produitService.addStock(produit.getId(), 5);
+        assertEquals(25, produitService.getProduitById(produit.getId()).orElseThrow().getStock());
+
+        produitService.reduceStock(produit.getId(), 3);
+        assertEquals(22, produitService.getProduitById(produit.getId()).orElseThrow().getStock());
+
+        assertTrue(stockReservationService.tryReserve(Map.of(produit.getId(), 4)).isEmpty());
+        assertEquals(4, produitService.getProduitById(produit.getId()).orElseThrow().getStockReserve());
+    }
+
+    @Test
+    void deletedProductIsNoLongerServed() {
+        produitService.getProduitById(produit.getId());
+        produitService.deleteProduit(produit.getId());
+
+        assertTrue(produitService.getProduitById(produit.getId()).isEmpty());
+    }
+
+    private double cacheGets(String result) {
+        var counter = meterRegistry.find("cache.gets")
+                .tags("cache", CacheConfig.PRODUITS, "result", result)
+                .functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,140 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares loading every order in a read-write transaction, as the services did before, with
+ * {@link CommandeService#getAllCommandes()} in its read-only transaction, over 100k orders.
+ * Reports per findAll the heap allocated, the CPU time of the calling thread (query, hydration,
+ * the flush at commit and the DTO mapping) and the heap still held by the result, which the
+ * response is written from.
+ * Run with: mvn test -Dtest=ReadOnlyFindAllBenchmarkTests -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReadOnlyFindAllBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadOnlyFindAllBenchmarkTests.class);
+
+    private static final int ROW_COUNT = 100_000;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 3);
+    // Far above the IDs handed out by commande_seq during the run
+    private static final long FIRST_ID = 1_000_000_000L;
+
+    private record Mesure(long allocatedBytes, long cpuNanos, long retainedBytes) {
+    }
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Client client;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM commande WHERE id >= ?", FIRST_ID);
+        if (client != null) {
+            clientRepository.deleteById(client.getId());
+        }
+    }
+
+    @Test
+    void readOnlyFindAllRetainsLessHeap() {
+        client = clientRepository.save(new Client(null, "Client Benchmark", "benchmark-" + System.nanoTime()
+                + "@example.com", null, null, null, null));
+        List<Object[]> batch = new ArrayList<>();
+        Timestamp date = Timestamp.valueOf(LocalDateTime.of(2030, 1, 1, 12, 0));
+        for (int i = 0; i < ROW_COUNT; i++) {
+            batch.add(new Object[]{FIRST_ID + i, client.getId(), date, "EN_ATTENTE", i % 1000});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO commande (id, client_id, date, statut, montant_total) "
+                        + "VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        // Before: the same fetch plan in a read-write transaction, every entity snapshotted and dirty checked at commit
+        Supplier<List<?>> readWrite = () -> transactionTemplate.execute(status -> entityManager.createQuery(
+                "SELECT c FROM Commande c LEFT JOIN FETCH c.lignesCommande",
+                Commande.class).getResultList());
+        // After: the service's read-only transaction and the repository's read-only hint, mapped to DTOs
+        Supplier<List<?>> readOnly = commandeService::getAllCommandes;
+
+        measure(readWrite);
+        measure(readOnly);
+        Mesure avant = average(readWrite);
+        Mesure apres = average(readOnly);
+
+        log.info("findAll of {} orders, read-write: {} MB allocated, {} ms CPU, {} MB retained",
+                ROW_COUNT, avant.allocatedBytes() >> 20, avant.cpuNanos() / 1_000_000, avant.retainedBytes() >> 20);
+        log.info("findAll of {} orders, read-only: {} MB allocated, {} ms CPU, {} MB retained",
+                ROW_COUNT, apres.allocatedBytes() >> 20, apres.cpuNanos() / 1_000_000, apres.retainedBytes() >> 20);
+        assertTrue(apres.retainedBytes() < avant.retainedBytes());
+    }
+
+    private Mesure average(Supplier<List<?>> findAll) {
+        long allocated = 0;
+        long cpu = 0;
+        long retained = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Mesure mesure = measure(findAll);
+            allocated += mesure.allocatedBytes();
+            cpu += mesure.cpuNanos();
+            retained += mesure.retainedBytes();
+        }
+        return new Mesure(allocated / ITERATIONS, cpu / ITERATIONS, retained / ITERATIONS);
+    }
+
+    private Mesure measure(Supplier<List<?>> findAll) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+
+        List<?> commandes = findAll.get();
+
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.gc();
+        long retainedBytes = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        assertTrue(commandes.size() >= ROW_COUNT);
+        return new Mesure(allocatedBytes, cpuNanos, retainedBytes);
+    }
+}
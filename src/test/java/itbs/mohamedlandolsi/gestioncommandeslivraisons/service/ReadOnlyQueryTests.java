@@ -0,0 +1,54 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReadOnlyQueryTests {
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void listResultsAreReadOnlyAndLookupsByIdStayWritable() {
+        String ville = "Lecture" + Long.toString(System.nanoTime(), 36).replaceAll("\\d", "x");
+        Client saved = clientService.saveClient(new Client(null, "Client Lecture", "lecture-" + System.nanoTime()
+                + "@example.com", "3 rue du Port, 8000 " + ville, null, null, null));
+
+        // The services return DTOs, so their finders are checked directly, in a read-write session
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            List<Client> clients = clientRepository.findByVilleOrderByIdAsc(AdresseParser.normalizeVille(ville));
+            assertEquals(1, clients.size());
+            assertTrue(session.isReadOnly(clients.get(0)));
+            clients.get(0).setNom("Ignored");
+
+            session.clear();
+            Client client = clientRepository.findById(saved.getId()).orElseThrow();
+            assertFalse(session.isReadOnly(client));
+        });
+
+        assertEquals("Client Lecture", clientService.getClientById(saved.getId()).orElseThrow().getNom());
+    }
+}
@@ -0,0 +1,69 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.ClientDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against two embedded databases standing in for the MySQL primary and its replica. They are
+ * not replicated, so where a query ran shows in what it sees.
+ */
+@SpringBootTest(properties = "spring.datasource.replica.url=" + ReadReplicaRoutingTests.REPLICA_URL)
+@ActiveProfiles("test")
+class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    // The replica gets its schema from the primary in production; here it is created before the application starts
+    private static final JdbcTemplate replica;
+
+    static {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        String ville = "Replique" + Long.toString(System.nanoTime(), 36).replaceAll("\\d", "x");
+        Client client = clientService.saveClient(new Client(null, "Client Primaire", "primaire-" + System.nanoTime()
+                + "@example.com", "1 rue de la Gare, 2000 " + ville, null, null, null));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM client WHERE id = ?", Integer.class,
+                client.getId()));
+        assertTrue(clientService.getClientsByCity(ville).isEmpty());
+        // Inside a read-write transaction, reads stay on the primary
+        assertEquals(1, transactionTemplate.execute(status -> clientService.getClientsByCity(ville)).size());
+
+        replica.update("INSERT INTO client (nom, email, adresse, ville, code_postal) VALUES (?, ?, ?, ?, ?)",
+                "Client Replique", "replique-" + System.nanoTime() + "@example.com", "2000 " + ville,
+                ville.toUpperCase(), "2000");
+        List<ClientDTO> fromReplica = clientService.getClientsByCity(ville);
+        assertEquals(1, fromReplica.size());
+        assertEquals("Client Replique", fromReplica.get(0).getNom());
+        assertEquals("Client Primaire", transactionTemplate.execute(
+                status -> clientService.getClientsByCity(ville)).get(0).getNom());
+    }
+}
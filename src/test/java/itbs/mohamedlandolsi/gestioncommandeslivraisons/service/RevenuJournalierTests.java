@@ -0,0 +1,141 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.RevenuTotalDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.RevenuJournalier;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.CommandeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RevenuJournalierTests {
+
+    @Autowired
+    private RevenuJournalierService revenuJournalierService;
+
+    @Autowired
+    private PaiementService paiementService;
+
+    @Autowired
+    private PaiementProcessingService paiementProcessingService;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(new Client(null, "Client Revenu", "revenu-" + System.nanoTime()
+                + "@example.com", null, null, null, null));
+    }
+
+    @Test
+    void everyPaymentChangeMovesItsAmountBetweenBuckets() {
+        LocalDate jour = LocalDate.of(2031, 5, 10);
+        Paiement carte = newPaiement(jour.atTime(10, 0), 100.25, ModePaiement.CARTE_CREDIT);
+        Paiement virement = newPaiement(jour.atTime(15, 30), 50.0, ModePaiement.VIREMENT);
+
+        List<RevenuJournalier> revenus = revenuJournalierService.getRevenus(jour, jour, null, null);
+        assertEquals(2, revenus.size());
+        assertRevenu(revenus.get(0), jour, ModePaiement.CARTE_CREDIT, StatutPaiement.EN_ATTENTE, 1, "100.25");
+        assertRevenu(revenus.get(1), jour, ModePaiement.VIREMENT, StatutPaiement.EN_ATTENTE, 1, "50.00");
+
+        paiementService.updatePaiementStatus(carte.getId(), StatutPaiement.EFFECTUE);
+        paiementProcessingService.processPaiement(virement.getId());
+
+        revenus = revenuJournalierService.getRevenus(jour, jour, null, null);
+        assertEquals(2, revenus.size());
+        assertRevenu(revenus.get(0), jour, ModePaiement.CARTE_CREDIT, StatutPaiement.EFFECTUE, 1, "100.25");
+        assertRevenu(revenus.get(1), jour, ModePaiement.VIREMENT, StatutPaiement.EFFECTUE, 1, "50.00");
+        assertEquals(1, revenuJournalierService.getRevenus(jour, jour, ModePaiement.VIREMENT, null).size());
+
+        // Moved to the next day with a new amount, as the PUT endpoint does
+        Paiement modifie = new Paiement();
+        modifie.setDate(jour.plusDays(1).atTime(9, 0));
+        modifie.setMontantPaye(80.0);
+        modifie.setStatut(null);
+        paiementService.updatePaiement(carte.getId(), modifie);
+        paiementService.deletePaiement(virement.getId());
+
+        assertTrue(revenuJournalierService.getRevenus(jour, jour, null, null).isEmpty());
+        List<RevenuTotalDTO> totaux = revenuJournalierService.getTotaux(jour, jour.plusDays(1));
+        assertEquals(1, totaux.size());
+        assertEquals(ModePaiement.CARTE_CREDIT, totaux.get(0).getMode());
+        assertEquals(StatutPaiement.EFFECTUE, totaux.get(0).getStatut());
+        assertEquals(1L, totaux.get(0).getNombre());
+        assertEquals(0, new BigDecimal("80.00").compareTo(totaux.get(0).getMontant()));
+
+        commandeService.deleteCommande(carte.getCommande().getId());
+        assertTrue(revenuJournalierService.getTotaux(jour, jour.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void backfillRebuildsTheSameRollup() {
+        LocalDate jour = LocalDate.of(2031, 6, 1);
+        for (int i = 0; i < 5; i++) {
+            newPaiement(jour.atTime(8 + i, 0), 10.5 * (i + 1), i % 2 == 0 ? ModePaiement.PAYPAL : ModePaiement.CHEQUE);
+        }
+        Paiement traite = newPaiement(jour.atTime(18, 0), 99.99, ModePaiement.PAYPAL);
+        paiementProcessingService.processPaiementsBatch(List.of(traite.getId()));
+        List<RevenuTotalDTO> incremental = revenuJournalierService.getTotaux(jour, jour);
+
+        assertTrue(revenuJournalierService.backfill() > 0);
+
+        List<RevenuTotalDTO> rebuilt = revenuJournalierService.getTotaux(jour, jour);
+        assertEquals(3, rebuilt.size());
+        assertEquals(incremental.size(), rebuilt.size());
+        for (int i = 0; i < rebuilt.size(); i++) {
+            assertEquals(incremental.get(i).getMode(), rebuilt.get(i).getMode());
+            assertEquals(incremental.get(i).getStatut(), rebuilt.get(i).getStatut());
+            assertEquals(incremental.get(i).getNombre(), rebuilt.get(i).getNombre());
+            assertEquals(0, incremental.get(i).getMontant().compareTo(rebuilt.get(i).getMontant()));
+        }
+    }
+
+    private Paiement newPaiement(LocalDateTime date, Double montant, ModePaiement mode) {
+        Commande commande = new Commande();
+        commande.setClient(client);
+        commande.setDate(date);
+        commande.setMontantTotal(BigDecimal.valueOf(montant));
+        commande = commandeRepository.save(commande);
+
+        Paiement paiement = new Paiement();
+        paiement.setCommande(commande);
+        paiement.setDate(date);
+        paiement.setMontantPaye(montant);
+        paiement.setMode(mode);
+        return paiementService.savePaiement(paiement);
+    }
+
+    private static void assertRevenu(RevenuJournalier revenu, LocalDate jour, ModePaiement mode,
+                                     StatutPaiement statut, long nombre, String montant) {
+        assertEquals(jour, revenu.getJour());
+        assertEquals(mode, revenu.getMode());
+        assertEquals(statut, revenu.getStatut());
+        assertEquals(nombre, revenu.getNombre());
+        assertEquals(0, new BigDecimal(montant).compareTo(revenu.getMontant()));
+    }
+}
@@ -0,0 +1,264 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.ModePaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Paiement.StatutPaiement;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.ReservationStock.StatutReservation;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.*;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls each repository query, captures the SQL Hibernate sends for it, and runs EXPLAIN on that
+ * statement with its bound values, against the schema built by the Flyway migrations. The queried
+ * table must never be read through a full scan.
+ * Not covered: substring searches on names (LIKE '%...%', served by the trigram index) and the streams that read a whole table on purpose (streamIdAndNom).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaIndexTests {
+
+    private static final LocalDateTime D = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime D2 = LocalDateTime.of(2025, 2, 1, 0, 0);
+    private static final List<Long> IDS = List.of(1L, 2L, 3L);
+
+    private record Statement(String sql, Object[] parameters) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private LigneCommandeRepository ligneCommandeRepository;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private PaiementRepository paiementRepository;
+
+    @Autowired
+    private RevenuJournalierRepository revenuJournalierRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private ReservationStockRepository reservationStockRepository;
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() throws Exception {
+        List<StatutCommande> statutsCommande = List.of(StatutCommande.EN_ATTENTE, StatutCommande.VALIDEE);
+        List<StatutLivraison> statutsLivraison = List.of(StatutLivraison.EN_ATTENTE, StatutLivraison.EN_COURS);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        // CommandeRepository
+        queries.put("Commande.findByClientId", () -> commandeRepository.findByClientId(1L));
+        queries.put("Commande.findByStatut", () -> commandeRepository.findByStatut(StatutCommande.VALIDEE));
+        queries.put("Commande.findByDateBetween", () -> commandeRepository.findByDateBetween(D, D2));
+        queries.put("Commande.findByDateAfterOrderByDateDesc", () -> commandeRepository.findByDateAfterOrderByDateDesc(D));
+        queries.put("Commande.findAllByOrderByDateDescIdDesc", () -> commandeRepository.findAllByOrderByDateDescIdDesc(Limit.of(51)));
+        queries.put("Commande.findPageBefore", () -> commandeRepository.findPageBefore(D, 10L, Limit.of(51)));
+        queries.put("Commande.findPageByFournisseur",
+                () -> commandeRepository.findPageByFournisseur(1L, D, D2, 10L, Limit.of(51)));
+        queries.put("Commande.findSummariesByStatut", () -> commandeRepository.findSummariesByStatut(StatutCommande.VALIDEE));
+        queries.put("Commande.findSummariesByClientId", () -> commandeRepository.findSummariesByClientId(1L));
+        queries.put("Commande.findSummariesByDateAfter", () -> commandeRepository.findSummariesByDateAfter(D));
+        queries.put("Commande.lockIdsByIdInAndStatutIn", () -> commandeRepository.lockIdsByIdInAndStatutIn(IDS, statutsCommande));
+        queries.put("Commande.updateStatutByIdInAndStatutIn",
+                () -> commandeRepository.updateStatutByIdInAndStatutIn(IDS, statutsCommande, StatutCommande.ANNULEE));
+        queries.put("Commande.findStatutsByIdIn", () -> commandeRepository.findStatutsByIdIn(IDS));
+        queries.put("Commande.findIdsByClientId", () -> commandeRepository.findIdsByClientId(1L));
+        queries.put("Commande.streamExportByDateBetween", () -> {
+            try (Stream<?> rows = commandeRepository.streamExportByDateBetween(D, D2)) {
+                rows.count();
+            }
+        });
+        // ClientRepository
+        queries.put("Client.findByEmail", () -> clientRepository.findByEmail("a@example.com"));
+        queries.put("Client.findByIdGreaterThanOrderByIdAsc", () -> clientRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(51)));
+        queries.put("Client.findByVilleOrderByIdAsc", () -> clientRepository.findByVilleOrderByIdAsc("TUNIS"));
+        queries.put("Client.findByCodePostalStartingWithOrderByIdAsc",
+                () -> clientRepository.findByCodePostalStartingWithOrderByIdAsc("75"));
+        // LigneCommandeRepository
+        queries.put("LigneCommande.findByCommandeId", () -> ligneCommandeRepository.findByCommandeId(1L));
+        queries.put("LigneCommande.findByProduitId", () -> ligneCommandeRepository.findByProduitId(1L));
+        queries.put("LigneCommande.deleteByCommandeId", () -> ligneCommandeRepository.deleteByCommandeId(1L));
+        queries.put("LigneCommande.sumQuantitesByProduit", () -> ligneCommandeRepository.sumQuantitesByProduit(1L));
+        queries.put("LigneCommande.findByIdGreaterThanOrderByIdAsc",
+                () -> ligneCommandeRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(51)));
+        // LivraisonRepository
+        queries.put("Livraison.findByCommandeId", () -> livraisonRepository.findByCommandeId(1L));
+        queries.put("Livraison.deleteByCommandeId", () -> livraisonRepository.deleteByCommandeId(1L));
+        queries.put("Livraison.deleteByCommandeClientId", () -> livraisonRepository.deleteByCommandeClientId(1L));
+        queries.put("Livraison.findByTransporteurId", () -> livraisonRepository.findByTransporteurId(1L));
+        queries.put("Livraison.findByStatut", () -> livraisonRepository.findByStatut(StatutLivraison.EN_COURS));
+        queries.put("Livraison.findByDateLivraisonBetween", () -> livraisonRepository.findByDateLivraisonBetween(D, D2));
+        queries.put("Livraison.findByDateLivraisonAfterOrderByDateLivraison",
+                () -> livraisonRepository.findByDateLivraisonAfterOrderByDateLivraison(D));
+        queries.put("Livraison.findTransporteurAndDateByStatutIn",
+                () -> livraisonRepository.findTransporteurAndDateByStatutIn(statutsLivraison));
+        queries.put("Livraison.findByTransporteurIsNullAndStatutInOrderByIdAsc",
+                () -> livraisonRepository.findByTransporteurIsNullAndStatutInOrderByIdAsc(statutsLivraison));
+        queries.put("Livraison.streamIdAndDateDueBefore", () -> {
+            try (Stream<?> rows = livraisonRepository.streamIdAndDateDueBefore(statutsLivraison, D)) {
+                rows.count();
+            }
+        });
+        queries.put("Livraison.streamIdAndDateDueBetween", () -> {
+            try (Stream<?> rows = livraisonRepository.streamIdAndDateDueBetween(statutsLivraison, D, D2)) {
+                rows.count();
+            }
+        });
+        queries.put("Livraison.updateStatutByIdIn", () -> livraisonRepository.updateStatutByIdIn(IDS, StatutLivraison.RETARDEE));
+        queries.put("Livraison.findByIdGreaterThanOrderByIdAsc",
+                () -> livraisonRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(51)));
+        // PaiementRepository
+        queries.put("Paiement.findByCommandeId", () -> paiementRepository.findByCommandeId(1L));
+        queries.put("Paiement.deleteByCommandeId", () -> paiementRepository.deleteByCommandeId(1L));
+        queries.put("Paiement.deleteByCommandeClientId", () -> paiementRepository.deleteByCommandeClientId(1L));
+        queries.put("Paiement.findByMode", () -> paiementRepository.findByMode(ModePaiement.CHEQUE));
+        queries.put("Paiement.findByStatut", () -> paiementRepository.findByStatut(StatutPaiement.EFFECTUE));
+        queries.put("Paiement.findByDateBetween", () -> paiementRepository.findByDateBetween(D, D2));
+        queries.put("Paiement.findByDateAfter", () -> paiementRepository.findByDateAfter(D));
+        queries.put("Paiement.findByIdGreaterThanOrderByIdAsc",
+                () -> paiementRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(51)));
+        queries.put("Paiement.findGatewayRowsByIdIn", () -> paiementRepository.findGatewayRowsByIdIn(IDS));
+        queries.put("Paiement.claimByIdInAndStatut",
+                () -> paiementRepository.claimByIdInAndStatut(IDS, StatutPaiement.EN_ATTENTE, "jeton", D2, D));
+        queries.put("Paiement.releaseClaims", () -> paiementRepository.releaseClaims(IDS, "jeton"));
+        queries.put("Paiement.findStatutsByIdIn", () -> paiementRepository.findStatutsByIdIn(IDS));
+        queries.put("Paiement.lockById", () -> paiementRepository.lockById(1L));
+        queries.put("Paiement.lockByCommandeId", () -> paiementRepository.lockByCommandeId(1L));
+        queries.put("Paiement.lockByCommandeClientId", () -> paiementRepository.lockByCommandeClientId(1L));
+        queries.put("Paiement.lockRevenuRowsByIdInAndStatut",
+                () -> paiementRepository.lockRevenuRowsByIdInAndStatut(IDS, StatutPaiement.EN_ATTENTE, "jeton"));
+        queries.put("Paiement.updateStatutByIdInAndStatut",
+                () -> paiementRepository.updateStatutByIdInAndStatut(IDS, StatutPaiement.EN_ATTENTE, "jeton", StatutPaiement.EFFECTUE));
+        // RevenuJournalierRepository
+        queries.put("RevenuJournalier.findByJourBetween", () -> revenuJournalierRepository.findByJourBetween(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), ModePaiement.CHEQUE, null));
+        queries.put("RevenuJournalier.findTotauxByJourBetween",
+                () -> revenuJournalierRepository.findTotauxByJourBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)));
+        // ProduitRepository
+        queries.put("Produit.findByFournisseurId", () -> produitRepository.findByFournisseurId(1L));
+        queries.put("Produit.findByIdGreaterThanOrderByIdAsc", () -> produitRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(51)));
+        queries.put("Produit.reserveStock", () -> produitRepository.reserveStock(1L, 2));
+        queries.put("Produit.releaseStock", () -> produitRepository.releaseStock(1L, 2));
+        queries.put("Produit.reduceStock", () -> produitRepository.reduceStock(1L, 2));
+        queries.put("Produit.addStock", () -> produitRepository.addStock(1L, 2));
+        // ReservationStockRepository
+        queries.put("ReservationStock.findByCommandeId", () -> reservationStockRepository.findByCommandeId(1L));
+        queries.put("ReservationStock.existsByCommandeId", () -> reservationStockRepository.existsByCommandeId(1L));
+        queries.put("ReservationStock.lockByCommandeIdInAndStatut",
+                () -> reservationStockRepository.lockByCommandeIdInAndStatut(IDS, StatutReservation.RESERVEE));
+        queries.put("ReservationStock.updateStatutByIdIn",
+                () -> reservationStockRepository.updateStatutByIdIn(IDS, StatutReservation.LIBEREE));
+        queries.put("ReservationStock.deleteByCommandeIdIn", () -> reservationStockRepository.deleteByCommandeIdIn(IDS));
+
+        List<String> fullScans = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            String name = query.getKey();
+            // Joined tables are ordered by cost and a small one may be scanned; the queried entity's table may not
+            String table = name.substring(0, name.indexOf('.')).replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+            List<Statement> statements = capture(query.getValue());
+            assertFalse(statements.isEmpty(), name + " sent no SQL");
+            for (Statement statement : statements) {
+                String plan = jdbcTemplate.queryForObject("EXPLAIN " + statement.sql(), String.class, statement.parameters());
+                if (plan.contains("/* public." + table + ".tableScan")) {
+                    fullScans.add(name + ": " + plan);
+                }
+            }
+        }
+        assertTrue(fullScans.isEmpty(), "Full table scans:\n" + String.join("\n", fullScans));
+    }
+
+    @Test
+    void migrationsCreateTheDeclaredIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT LOWER(index_name) FROM information_schema.indexes WHERE table_schema = 'public'", String.class);
+        for (String index : List.of("idx_commande_date_id", "idx_commande_statut_date", "idx_commande_client_date",
+                "idx_livraison_statut_date", "idx_livraison_date", "idx_livraison_transporteur_statut",
+                "idx_paiement_date", "idx_paiement_statut_date", "idx_paiement_mode", "idx_client_email",
+                "idx_client_ville", "idx_client_code_postal",
+                "idx_reservation_commande_statut")) {
+            assertTrue(indexes.contains(index), "Missing index " + index);
+        }
+    }
+
+    // Runs the call in a rolled back transaction and returns the statements it sent, with their bound values
+    private List<Statement> capture(Runnable call) throws Exception {
+        Thread caller = Thread.currentThread();
+        List<Statement> statements = new ArrayList<>();
+        QueryExecutionListener recorder = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                if (Thread.currentThread() != caller) {
+                    return;
+                }
+                for (QueryInfo queryInfo : queryInfoList) {
+                    List<List<ParameterSetOperation>> parameters = queryInfo.getParametersList();
+                    statements.add(new Statement(queryInfo.getQuery(),
+                            parameters.isEmpty() ? new Object[0] : values(parameters.get(0))));
+                }
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+        };
+        ChainListener listeners = dataSource.unwrap(ProxyDataSource.class).getProxyConfig().getQueryListener();
+        listeners.addListener(recorder);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                call.run();
+            });
+        } finally {
+            listeners.getListeners().remove(recorder);
+        }
+        return statements;
+    }
+
+    // Bound values in parameter order; setNull records the SQL type as its value
+    private static Object[] values(List<ParameterSetOperation> operations) {
+        Object[] values = new Object[operations.size()];
+        for (ParameterSetOperation operation : operations) {
+            Object[] args = operation.getArgs();
+            int index = (Integer) args[0];
+            values[index - 1] = operation.getMethod().getName().equals("setNull") ? null : args[1];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,132 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring.SlowQueryLog;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring.SqlStatementFilter;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring.SqlStatementMetrics;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static itbs.mohamedlandolsi.gestioncommandeslivraisons.service.SqlStatements.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SqlStatementMonitoringTests {
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cityLookupRunsOneQueryWhateverTheNumberOfClients() {
+        String ville = "Compteur" + Long.toString(System.nanoTime(), 36).replaceAll("\\d", "x");
+        newClient(ville);
+        long single = count(() -> clientService.getClientsByCity(ville));
+        for (int i = 0; i < 5; i++) {
+            newClient(ville);
+        }
+        int clients = assertStatementCount(single, () -> clientService.getClientsByCity(ville)).size();
+
+        assertEquals(6, clients);
+        assertEquals(1, single);
+        DistributionSummary service = meterRegistry.find(SqlStatementMetrics.REQUETES)
+                .tags("source", "service", "operation", "ClientService.getClientsByCity").summary();
+        assertNotNull(service);
+        assertTrue(service.count() >= 2);
+    }
+
+    @Test
+    void requestsAreMeasuredByRouteAndFlaggedOverTheBudget() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        SqlStatementFilter filter = new SqlStatementFilter(new SqlStatementMetrics(registry), 2);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/clients/42");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/clients/{id}");
+            for (int i = 0; i < 3; i++) {
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM client", Long.class);
+            }
+        });
+
+        DistributionSummary statements = registry.find(SqlStatementMetrics.REQUETES)
+                .tags("source", "http", "operation", "GET /api/clients/{id}").summary();
+        assertNotNull(statements);
+        assertEquals(1, statements.count());
+        assertEquals(3, statements.totalAmount());
+        assertNotNull(registry.find(SqlStatementMetrics.DUREE).tags("operation", "GET /api/clients/{id}").timer());
+    }
+
+    @Test
+    void slowAndSampledStatementsAreLoggedWithTheirCaller() throws Exception {
+        assertEquals(List.of(), logged(new SlowQueryLog(60000, 0)));
+
+        List<ILoggingEvent> slow = logged(new SlowQueryLog(0, 0));
+        assertEquals(1, slow.size());
+        assertEquals(Level.WARN, slow.get(0).getLevel());
+        assertTrue(slow.get(0).getFormattedMessage().contains("from ClientRepository.findByVilleOrderByIdAsc: select"),
+                slow.get(0).getFormattedMessage());
+        assertFalse(slow.get(0).getFormattedMessage().contains("SLOWLOG"));
+
+        List<ILoggingEvent> sampled = logged(new SlowQueryLog(60000, 1));
+        assertEquals(1, sampled.size());
+        assertEquals(Level.INFO, sampled.get(0).getLevel());
+        assertTrue(sampled.get(0).getFormattedMessage().startsWith("Sampled SQL"));
+    }
+
+    // Runs one repository query with the given log added to the DataSource listeners
+    private List<ILoggingEvent> logged(SlowQueryLog slowQueryLog) throws Exception {
+        ChainListener listeners = dataSource.unwrap(ProxyDataSource.class).getProxyConfig().getQueryListener();
+        Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryLog.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        listeners.addListener(slowQueryLog);
+        try {
+            // Bound values stay out of the log
+            clientRepository.findByVilleOrderByIdAsc("SLOWLOG");
+        } finally {
+            listeners.getListeners().remove(slowQueryLog);
+            logger.detachAppender(appender);
+        }
+        return appender.list.stream()
+                .filter(event -> event.getThreadName().equals(Thread.currentThread().getName()))
+                .toList();
+    }
+
+    private void newClient(String ville) {
+        clientService.saveClient(new Client(null, "Client Compteur", "compteur-" + System.nanoTime() + "@example.com",
+                "1 rue du Compteur, 1000 " + ville, null, null, null));
+    }
+}
@@ -0,0 +1,39 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.monitoring.SqlStatementCounter;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statement count assertions for the tests. Only the statements run by the calling thread are
+ * counted, so tests running in parallel or background jobs do not disturb them.
+ */
+final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    static long count(Runnable action) {
+        SqlStatementCounter.Snapshot start = SqlStatementCounter.snapshot();
+        action.run();
+        return SqlStatementCounter.snapshot().since(start).statements();
+    }
+
+    static <T> T assertStatementCount(long expected, Supplier<T> action) {
+        SqlStatementCounter.Snapshot start = SqlStatementCounter.snapshot();
+        T result = action.get();
+        assertEquals(expected, SqlStatementCounter.snapshot().since(start).statements(), "SQL statements");
+        return result;
+    }
+
+    static <T> T assertMaxStatements(long max, Supplier<T> action) {
+        SqlStatementCounter.Snapshot start = SqlStatementCounter.snapshot();
+        T result = action.get();
+        long executed = SqlStatementCounter.snapshot().since(start).statements();
+        assertTrue(executed <= max, executed + " SQL statements, at most " + max + " expected");
+        return result;
+    }
+}
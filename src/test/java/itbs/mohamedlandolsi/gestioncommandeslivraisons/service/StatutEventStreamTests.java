@@ -0,0 +1,242 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.StatutChangeEventDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatutEventStreamTests {
+
+    @Autowired
+    private StatutEventBroadcaster statutEventBroadcaster;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private LivraisonService livraisonService;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(RecordingEmitter::close);
+        emitters.clear();
+        fixture.cleanUp();
+    }
+
+    @Test
+    void subscribersOnlyReceiveTheChangesMatchingTheirFilter() throws Exception {
+        Commande commandeA = fixture.commande(fixture.client("Client Flux a"), StatutCommande.EN_ATTENTE, LocalDateTime.now());
+        Commande commandeB = fixture.commande(fixture.client("Client Flux b"), StatutCommande.EN_ATTENTE, LocalDateTime.now());
+        RecordingEmitter parClient = subscribe(new StatutEventBroadcaster.Filtre(commandeA.getClient().getId(), null, null));
+        RecordingEmitter parStatut = subscribe(new StatutEventBroadcaster.Filtre(null, null, "annulee"));
+
+        commandeService.updateCommandeStatus(commandeA.getId(), StatutCommande.VALIDEE);
+        commandeService.updateCommandeStatus(commandeB.getId(), StatutCommande.ANNULEE);
+
+        StatutChangeEventDTO recuA = parClient.awaitEvents(1).get(0);
+        assertEquals(commandeA.getId(), recuA.getId());
+        assertEquals("EN_ATTENTE", recuA.getAncienStatut());
+        assertEquals("VALIDEE", recuA.getNouveauStatut());
+        StatutChangeEventDTO recuB = parStatut.awaitEvents(1).get(0);
+        assertEquals(commandeB.getId(), recuB.getId());
+        Thread.sleep(200);
+        assertEquals(1, parClient.events.size());
+        assertEquals(1, parStatut.events.size());
+    }
+
+    @Test
+    void deliveryStatusChangesAreStreamed() throws Exception {
+        Commande commande = fixture.commande(fixture.client("Client Flux livraison"), StatutCommande.EN_ATTENTE, LocalDateTime.now());
+        Livraison livraison = new Livraison();
+        livraison.setCommande(commande);
+        livraison.setDateLivraison(LocalDateTime.now().plusDays(2));
+        livraison = livraisonRepository.save(livraison);
+        RecordingEmitter emitter = subscribe(new StatutEventBroadcaster.Filtre(commande.getClient().getId(), null, null));
+
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.EN_COURS);
+
+        StatutChangeEventDTO event = emitter.awaitEvents(1).get(0);
+        assertEquals(StatutChangeEventDTO.LIVRAISON, event.getType());
+        assertEquals(livraison.getId(), event.getId());
+        assertEquals(commande.getId(), event.getCommandeId());
+        assertEquals("EN_COURS", event.getNouveauStatut());
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedWithoutHoldingBackTheOthers() throws Exception {
+        long clientId = -42L;
+        StatutEventBroadcaster.Filtre filtre = new StatutEventBroadcaster.Filtre(clientId, null, null);
+        CountDownLatch blocked = new CountDownLatch(1);
+        RecordingEmitter lent = subscribe(filtre, blocked);
+        RecordingEmitter rapide = subscribe(filtre);
+        int subscribers = statutEventBroadcaster.getSubscriberCount();
+
+        // One event stuck in the slow client's socket, a full buffer, then as many dropped events
+        int published = 1 + 256 + 256;
+        try {
+            for (int i = 0; i < published; i++) {
+                statutEventBroadcaster.onStatutChange(new StatutChangeEventDTO(StatutChangeEventDTO.COMMANDE,
+                        (long) i, (long) i, clientId, null, "EN_ATTENTE", "VALIDEE", LocalDateTime.now()));
+                if (i == 0) {
+                    lent.awaitSendStarted();
+                } else if (i % 128 == 0) {
+                    // The fast client keeps up with its own buffer
+                    rapide.awaitEvents(i + 1);
+                }
+            }
+
+            assertEquals(published, rapide.awaitEvents(published).size());
+            assertEquals(subscribers - 1, statutEventBroadcaster.getSubscriberCount());
+        } finally {
+            blocked.countDown();
+        }
+        assertTrue(lent.completed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void blockedSubscribersDoNotStallTheOthers() throws Exception {
+        long clientId = -43L;
+        StatutEventBroadcaster.Filtre filtre = new StatutEventBroadcaster.Filtre(clientId, null, null);
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<RecordingEmitter> lents = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lents.add(subscribe(filtre, blocked));
+        }
+        RecordingEmitter rapide = subscribe(filtre);
+        int subscribers = statutEventBroadcaster.getSubscriberCount();
+
+        try {
+            // Every slow client is stuck in a send, then lets a full buffer and as many events drop
+            publish(clientId, 0);
+            for (RecordingEmitter lent : lents) {
+                lent.awaitSendStarted();
+            }
+            int published = 1 + 256 + 256;
+            for (int i = 1; i < published; i++) {
+                publish(clientId, i);
+                if (i % 128 == 0) {
+                    rapide.awaitEvents(i + 1);
+                }
+            }
+            assertEquals(subscribers - lents.size(), statutEventBroadcaster.getSubscriberCount());
+
+            // The slow clients are being completed, which waits for their stuck sends
+            for (int i = published; i < published + 10; i++) {
+                publish(clientId, i);
+            }
+            assertEquals(published + 10, rapide.awaitEvents(published + 10).size());
+        } finally {
+            blocked.countDown();
+        }
+        for (RecordingEmitter lent : lents) {
+            assertTrue(lent.completed.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private void publish(long clientId, long id) {
+        statutEventBroadcaster.onStatutChange(new StatutChangeEventDTO(StatutChangeEventDTO.COMMANDE,
+                id, id, clientId, null, "EN_ATTENTE", "VALIDEE", LocalDateTime.now()));
+    }
+
+    private RecordingEmitter subscribe(StatutEventBroadcaster.Filtre filtre) {
+        return subscribe(filtre, null);
+    }
+
+    private RecordingEmitter subscribe(StatutEventBroadcaster.Filtre filtre, CountDownLatch blocked) {
+        RecordingEmitter emitter = new RecordingEmitter(blocked);
+        emitters.add(emitter);
+        statutEventBroadcaster.subscribe(emitter, filtre);
+        return emitter;
+    }
+
+    // Stands in for a browser connection: records the status events, optionally blocking like a full socket
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<StatutChangeEventDTO> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blocked;
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean closed;
+
+        RecordingEmitter(CountDownLatch blocked) {
+            this.blocked = blocked;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (closed) {
+                throw new IOException("Connection closed");
+            }
+            sendStarted.countDown();
+            awaitUnblocked();
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof StatutChangeEventDTO event) {
+                    events.add(event);
+                }
+            }
+        }
+
+        // Like the real emitter, completing waits for the send in progress
+        @Override
+        public void complete() {
+            awaitUnblocked();
+            closed = true;
+            completed.countDown();
+            super.complete();
+        }
+
+        private void awaitUnblocked() {
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        void awaitSendStarted() throws InterruptedException {
+            assertTrue(sendStarted.await(10, TimeUnit.SECONDS));
+        }
+
+        List<StatutChangeEventDTO> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, events.size());
+            return events;
+        }
+    }
+}
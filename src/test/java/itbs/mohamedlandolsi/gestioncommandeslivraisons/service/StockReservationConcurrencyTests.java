@@ -0,0 +1,162 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.exception.CommandeValidationException;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Produit;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ProduitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationConcurrencyTests {
+
+    private static final int STOCK = 50;
+    private static final int ORDER_COUNT = 200;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private Produit produit;
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Concurrence");
+        produit = fixture.produit("Produit convoité", new BigDecimal("2.00"), STOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.cleanUp();
+    }
+
+    @Test
+    void concurrentOrdersNeverReserveMoreThanTheStock() throws Exception {
+        List<Long> acceptees = placeConcurrentOrders();
+
+        assertEquals(STOCK, acceptees.size());
+        Produit reloaded = produitRepository.findById(produit.getId()).orElseThrow();
+        assertEquals(STOCK, reloaded.getStock());
+        assertEquals(STOCK, reloaded.getStockReserve());
+        assertEquals(0, reloaded.getStockDisponible());
+    }
+
+    @Test
+    void cancellationReleasesAndDeliveryConsumesTheReservation() throws Exception {
+        List<Long> acceptees = placeConcurrentOrders();
+
+        commandeService.updateCommandeStatus(acceptees.get(0), StatutCommande.ANNULEE);
+        List<Long> livrees = acceptees.subList(1, 11);
+        for (StatutCommande statut : List.of(StatutCommande.VALIDEE, StatutCommande.EN_PREPARATION,
+                StatutCommande.EXPEDIEE, StatutCommande.LIVREE)) {
+            assertEquals(livrees.size(), commandeService.updateCommandesStatus(livrees, statut).getModifiees().size());
+        }
+
+        Produit reloaded = produitRepository.findById(produit.getId()).orElseThrow();
+        assertEquals(STOCK - 10, reloaded.getStock());
+        assertEquals(STOCK - 11, reloaded.getStockReserve());
+        assertEquals(1, reloaded.getStockDisponible());
+
+        // The released unit can be ordered again, but only once
+        assertNotNull(commandeService.saveCommande(newCommande()).getId());
+        assertThrows(CommandeValidationException.class, () -> commandeService.saveCommande(newCommande()));
+    }
+
+    @Test
+    void deletingAClientReleasesTheStockOfItsOrders() {
+        Long livree = commandeService.saveCommande(newCommande()).getId();
+        for (StatutCommande statut : List.of(StatutCommande.VALIDEE, StatutCommande.EN_PREPARATION,
+                StatutCommande.EXPEDIEE, StatutCommande.LIVREE)) {
+            commandeService.updateCommandeStatus(livree, statut);
+        }
+        Long enAttente = commandeService.saveCommande(newCommande()).getId();
+
+        clientService.deleteClient(client.getId());
+
+        assertFalse(clientService.existsById(client.getId()));
+        assertFalse(commandeService.existsById(livree));
+        assertFalse(commandeService.existsById(enAttente));
+        Produit reloaded = produitRepository.findById(produit.getId()).orElseThrow();
+        assertEquals(STOCK - 1, reloaded.getStock());
+        assertEquals(0, reloaded.getStockReserve());
+    }
+
+    @Test
+    void removedStockNeverTakesTheReservedUnits() {
+        for (int i = 0; i < 10; i++) {
+            commandeService.saveCommande(newCommande());
+        }
+
+        assertThrows(IllegalStateException.class, () -> produitService.reduceStock(produit.getId(), STOCK - 9));
+        assertEquals(STOCK, produitRepository.findById(produit.getId()).orElseThrow().getStock());
+
+        Produit reduit = produitService.reduceStock(produit.getId(), STOCK - 10);
+        assertEquals(10, reduit.getStock());
+        assertEquals(10, reduit.getStockReserve());
+        assertEquals(0, reduit.getStockDisponible());
+    }
+
+    private List<Long> placeConcurrentOrders() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejetees = new AtomicInteger();
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < ORDER_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return commandeService.saveCommande(newCommande()).getId();
+                    } catch (CommandeValidationException e) {
+                        rejetees.incrementAndGet();
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Long> acceptees = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                Long id = future.get(2, TimeUnit.MINUTES);
+                if (id != null) {
+                    acceptees.add(id);
+                }
+            }
+            assertEquals(ORDER_COUNT, acceptees.size() + rejetees.get());
+            return acceptees;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Commande newCommande() {
+        return fixture.nouvelleCommande(client.getId(), 1, List.of(produit));
+    }
+}
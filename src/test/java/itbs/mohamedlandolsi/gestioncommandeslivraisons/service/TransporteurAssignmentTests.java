@@ -0,0 +1,158 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonAutoAssignResultDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.dto.LivraisonRequestDTO;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Commande.StatutCommande;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Livraison.StatutLivraison;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Transporteur;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.LivraisonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransporteurAssignmentTests {
+
+    @Autowired
+    private LivraisonService livraisonService;
+
+    @Autowired
+    private TransporteurService transporteurService;
+
+    @Autowired
+    private TransporteurAssignmentService transporteurAssignmentService;
+
+    @Autowired
+    private LivraisonRepository livraisonRepository;
+
+    @Autowired
+    private CommandeFixture fixture;
+
+    private Client client;
+    private final List<Transporteur> transporteurs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        client = fixture.client("Client Transport");
+    }
+
+    @AfterEach
+    void tearDown() {
+        // The deliveries go with the client's orders, before their carriers
+        fixture.cleanUp();
+        for (Transporteur transporteur : transporteurs) {
+            transporteurService.deleteTransporteur(transporteur.getId());
+        }
+        transporteurs.clear();
+    }
+
+    @Test
+    void newDeliveriesAreSpreadByLoadAndRating() {
+        Transporteur fiable = newTransporteur("Fiable", 5.0);
+        Transporteur moyen = newTransporteur("Moyen", 2.5);
+        LocalDateTime date = LocalDate.of(2099, 1, 10).atTime(10, 0);
+
+        for (int i = 0; i < 30; i++) {
+            livraisonService.createLivraisonFromDTO(newRequest(date));
+        }
+
+        assertEquals(20, livraisonRepository.findByTransporteurId(fiable.getId()).size());
+        assertEquals(10, livraisonRepository.findByTransporteurId(moyen.getId()).size());
+        assertEquals(20, transporteurAssignmentService.getLoad(fiable.getId(), date.toLocalDate()));
+    }
+
+    @Test
+    void concurrentCreationsKeepCarriersBalanced() throws Exception {
+        Transporteur premier = newTransporteur("Premier", 4.0);
+        Transporteur second = newTransporteur("Second", 4.0);
+        LocalDateTime date = LocalDate.of(2099, 2, 10).atTime(10, 0);
+        List<LivraisonRequestDTO> requests = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            requests.add(newRequest(date));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Livraison>> futures = new ArrayList<>();
+            for (LivraisonRequestDTO request : requests) {
+                futures.add(executor.submit(() -> livraisonService.createLivraisonFromDTO(request)));
+            }
+            for (Future<Livraison> future : futures) {
+                assertNotNull(future.get(1, TimeUnit.MINUTES).getTransporteur());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int chargePremier = livraisonRepository.findByTransporteurId(premier.getId()).size();
+        int chargeSecond = livraisonRepository.findByTransporteurId(second.getId()).size();
+        assertEquals(64, chargePremier + chargeSecond);
+        assertTrue(Math.abs(chargePremier - chargeSecond) <= 1);
+        assertEquals(chargePremier, transporteurAssignmentService.getLoad(premier.getId(), date.toLocalDate()));
+    }
+
+    @Test
+    void finishedDeliveriesLeaveTheLoad() {
+        Transporteur transporteur = newTransporteur("Unique", null);
+        LocalDateTime date = LocalDate.of(2099, 3, 10).atTime(10, 0);
+        Livraison livraison = livraisonService.createLivraisonFromDTO(newRequest(date));
+        assertEquals(1, transporteurAssignmentService.getLoad(transporteur.getId(), date.toLocalDate()));
+
+        livraisonService.updateLivraisonStatus(livraison.getId(), StatutLivraison.ANNULEE);
+
+        assertEquals(0, transporteurAssignmentService.getLoad(transporteur.getId(), date.toLocalDate()));
+    }
+
+    @Test
+    void autoAssignCoversEveryUnassignedActiveDelivery() {
+        LocalDateTime date = LocalDate.of(2099, 4, 10).atTime(10, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Livraison livraison = new Livraison();
+            livraison.setCommande(fixture.commande(client, StatutCommande.VALIDEE, LocalDateTime.now()));
+            livraison.setDateLivraison(date);
+            livraison.setAdresseLivraison("Zone industrielle, Sfax");
+            ids.add(livraisonRepository.save(livraison).getId());
+        }
+        Transporteur transporteur = newTransporteur("Rattrapage", 3.0);
+
+        LivraisonAutoAssignResultDTO result = livraisonService.autoAssignUnassigned();
+
+        assertTrue(result.getAssignees() >= 6);
+        for (Livraison livraison : livraisonRepository.findAllById(ids)) {
+            assertEquals(transporteur.getId(), livraison.getTransporteur().getId());
+        }
+        assertEquals(6, transporteurAssignmentService.getLoad(transporteur.getId(), date.toLocalDate()));
+    }
+
+    private Transporteur newTransporteur(String nom, Double note) {
+        Transporteur transporteur = new Transporteur();
+        transporteur.setNom("Transports " + nom);
+        transporteur.setNote(note);
+        transporteur = transporteurService.saveTransporteur(transporteur);
+        transporteurs.add(transporteur);
+        return transporteur;
+    }
+
+    private LivraisonRequestDTO newRequest(LocalDateTime date) {
+        LivraisonRequestDTO request = new LivraisonRequestDTO();
+        request.setCommandeId(fixture.commande(client, StatutCommande.VALIDEE, LocalDateTime.now()).getId());
+        request.setDateLivraison(date);
+        request.setAdresseLivraison("12 Rue de Marseille, 1000 Tunis");
+        return request;
+    }
+}
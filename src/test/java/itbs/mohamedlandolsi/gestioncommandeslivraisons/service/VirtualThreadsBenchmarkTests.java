@@ -0,0 +1,144 @@
+package itbs.mohamedlandolsi.gestioncommandeslivraisons.service;
+
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.GestionsCommandesLivraisonsApplication;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.model.Client;
+import itbs.mohamedlandolsi.gestioncommandeslivraisons.repository.ClientRepository;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares Tomcat's platform thread pool with virtual threads when every SQL statement takes
+ * DB_LATENCY_MS, as with an overloaded MySQL. The connection pool is sized for the load, so the
+ * request threads are the only limit. Starts the application once per mode.
+ * Run with: mvn test -Dtest=VirtualThreadsBenchmarkTests -Dbenchmark=true
+ * (-Dbenchmark.db-latency-ms, -Dbenchmark.concurrency and -Dbenchmark.requests change the load)
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadsBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsBenchmarkTests.class);
+
+    // Each request runs 2 statements; Tomcat's default pool is 200 platform threads
+    private static final long DB_LATENCY_MS = Long.getLong("benchmark.db-latency-ms", 200);
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 600);
+    private static final int WARMUP_REQUESTS = CONCURRENCY;
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 10 * CONCURRENCY);
+
+    private record Result(String mode, double requestsPerSecond, double p50Ms, double p99Ms, int errors) {
+    }
+
+    @Test
+    void virtualThreadsServeMoreRequestsWhenTheDatabaseIsSlow() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        for (Result result : List.of(platform, virtual)) {
+            log.info("{}: {} requests/s, p50 {} ms, p99 {} ms, {} errors", result.mode(),
+                    Math.round(result.requestsPerSecond()), Math.round(result.p50Ms()), Math.round(result.p99Ms()),
+                    result.errors());
+        }
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+        assertTrue(virtual.requestsPerSecond() > platform.requestsPerSecond());
+        assertTrue(virtual.p99Ms() < platform.p99Ms());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(GestionsCommandesLivraisonsApplication.class)
+                        .profiles("test")
+                        .properties("server.port=0",
+                                "spring.threads.virtual.enabled=" + virtualThreads,
+                                "spring.datasource.hikari.maximum-pool-size=" + CONCURRENCY,
+                                "spring.datasource.hikari.minimum-idle=10",
+                                "sql.monitoring.statement-budget=1000")
+                        .run()) {
+            Client client = context.getBean(ClientRepository.class).save(new Client(null, "Client Charge",
+                    "charge-" + System.nanoTime() + "@example.com", null, null, null, null));
+            URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/clients/" + client.getId());
+
+            QueryExecutionListener slowDatabase = new QueryExecutionListener() {
+                @Override
+                public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                    try {
+                        Thread.sleep(DB_LATENCY_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                }
+            };
+            context.getBean(DataSource.class).unwrap(ProxyDataSource.class).getProxyConfig()
+                    .getQueryListener().addListener(slowDatabase);
+
+            load(uri, WARMUP_REQUESTS);
+            long start = System.nanoTime();
+            long[] latencies = load(uri, REQUESTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            int errors = (int) Arrays.stream(latencies).filter(latency -> latency < 0).count();
+            long[] sorted = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+            return new Result(virtualThreads ? "virtual threads" : "platform threads", REQUESTS / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), errors);
+        }
+    }
+
+    // CONCURRENCY clients sending requests back to back; the latency of each request, negative if it failed
+    private static long[] load(URI uri, int requests) {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        try (HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            // Closing the executor waits for the clients to finish
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < CONCURRENCY; i++) {
+                    clients.submit(() -> {
+                        for (int n = next.getAndIncrement(); n < requests; n = next.getAndIncrement()) {
+                            long start = System.nanoTime();
+                            try {
+                                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                                latencies[n] = status == 200 ? System.nanoTime() - start : -1;
+                            } catch (Exception e) {
+                                latencies[n] = -1;
+                            }
+                        }
+                        return null;
+                    });
+                }
+            }
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,17 @@
+-- H2 counterpart of db/migration/mysql/V1, used by the test profile
+
+create table client (id bigint generated by default as identity, adresse varchar(255), email varchar(255) not null, nom varchar(255) not null, primary key (id));
+create table commande (montant_total numeric(38,2), client_id bigint not null, date timestamp(6) not null, id bigint generated by default as identity, statut enum ('ANNULEE','EN_ATTENTE','EN_PREPARATION','EXPEDIEE','LIVREE','VALIDEE'), primary key (id));
+create table fournisseur (note float(53), id bigint generated by default as identity, adresse varchar(255), email varchar(255), nom varchar(255) not null, telephone varchar(255), primary key (id));
+create table ligne_commande (prix_unitaire numeric(38,2) not null, quantite integer not null, commande_id bigint not null, id bigint generated by default as identity, produit_id bigint not null, primary key (id));
+create table livraison (cout numeric(38,2), commande_id bigint not null unique, date_livraison timestamp(6), id bigint generated by default as identity, transporteur_id bigint, adresse_livraison varchar(255), statut enum ('ANNULEE','EN_ATTENTE','EN_COURS','LIVREE','RETARDEE'), primary key (id));
+create table paiement (montant_paye float(53), commande_id bigint not null unique, date timestamp(6), id bigint generated by default as identity, mode enum ('CARTE_CREDIT','CHEQUE','ESPECES','PAYPAL','VIREMENT'), statut enum ('ECHEC','EFFECTUE','EN_ATTENTE','REMBOURSE'), primary key (id));
+create table produit (prix numeric(38,2) not null, stock integer not null, fournisseur_id bigint, id bigint generated by default as identity, description varchar(255), nom varchar(255) not null, primary key (id));
+create table transporteur (note float(53), id bigint generated by default as identity, nom varchar(255) not null, telephone varchar(255), primary key (id));
+alter table if exists commande add constraint FK79q1nginx2k3m83vi3bt3rlon foreign key (client_id) references client;
+alter table if exists ligne_commande add constraint FKaff2bjyreiuyi723relg10spm foreign key (commande_id) references commande;
+alter table if exists ligne_commande add constraint FK5ykb96p8me6913jyiwbe8nyj5 foreign key (produit_id) references produit;
+alter table if exists livraison add constraint FKouvi45brhke9hr6sjshfjclro foreign key (commande_id) references commande;
+alter table if exists livraison add constraint FK4bv8p63q9boy34d4o2bhghitn foreign key (transporteur_id) references transporteur;
+alter table if exists paiement add constraint FK7154xu8wk0uya9b09dg8pcedm foreign key (commande_id) references commande;
+alter table if exists produit add constraint FKayuabstor0gbpqp7stdcqwnte foreign key (fournisseur_id) references fournisseur;
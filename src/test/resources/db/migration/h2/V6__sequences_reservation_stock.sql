@@ -0,0 +1,16 @@
+-- H2 counterpart of db/migration/mysql/V6: real sequences instead of tables. The test database starts empty,
+-- so they start at 1.
+
+create sequence commande_seq start with 1 increment by 50;
+create sequence ligne_commande_seq start with 1 increment by 50;
+alter table commande alter column id drop identity;
+alter table ligne_commande alter column id drop identity;
+
+create index idx_commande_date_id on commande (date, id);
+
+alter table produit add column stock_reserve integer not null default 0;
+create sequence reservation_stock_seq start with 1 increment by 50;
+create table reservation_stock (quantite integer, commande_id bigint not null, date_creation timestamp(6), id bigint not null, produit_id bigint not null, statut enum ('CONSOMMEE','LIBEREE','RESERVEE'), primary key (id));
+create index idx_reservation_commande_statut on reservation_stock (commande_id, statut);
+alter table if exists reservation_stock add constraint FKj26gxt445x9gwk3hr0iwi2e6r foreign key (commande_id) references commande;
+alter table if exists reservation_stock add constraint FK7syj3ll0qtnb1yryagpin3tii foreign key (produit_id) references produit;